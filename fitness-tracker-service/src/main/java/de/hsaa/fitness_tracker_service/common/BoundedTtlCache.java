@@ -0,0 +1,95 @@
+package de.hsaa.fitness_tracker_service.common;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+public class BoundedTtlCache<K, V> {
+
+	private record Entry<V>(V value, long expiresAtMillis) {
+	}
+
+	private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+	private final int maxSize;
+	private final long ttlMillis;
+	private final Clock clock;
+
+	public BoundedTtlCache(int maxSize, Duration ttl) {
+		this(maxSize, ttl, Clock.systemUTC());
+	}
+
+	public BoundedTtlCache(int maxSize, Duration ttl, Clock clock) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("maxSize must be >= 1");
+		}
+		if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+			throw new IllegalArgumentException("ttl must be positive");
+		}
+		this.maxSize = maxSize;
+		this.ttlMillis = ttl.toMillis();
+		this.clock = clock;
+	}
+
+	public V get(K key) {
+		Entry<V> e = entries.get(key);
+		if (e == null)
+			return null;
+
+		if (e.expiresAtMillis() <= clock.millis()) {
+			entries.remove(key, e);
+			return null;
+		}
+		return e.value();
+	}
+
+	public void put(K key, V value) {
+		if (!entries.containsKey(key) && entries.size() >= maxSize) {
+			makeRoom();
+		}
+		entries.put(key, new Entry<>(value, clock.millis() + ttlMillis));
+	}
+
+	public V putIfAbsent(K key, V value) {
+		V current = get(key);
+		if (current != null)
+			return current;
+
+		if (entries.size() >= maxSize) {
+			makeRoom();
+		}
+		Entry<V> previous = entries.putIfAbsent(key, new Entry<>(value, clock.millis() + ttlMillis));
+		return previous != null ? previous.value() : null;
+	}
+
+	public void remove(K key) {
+		entries.remove(key);
+	}
+
+	public void removeIf(Predicate<V> predicate) {
+		entries.values().removeIf(e -> predicate.test(e.value()));
+	}
+
+	public void clear() {
+		entries.clear();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	private void makeRoom() {
+		long now = clock.millis();
+		boolean removed = entries.values().removeIf(e -> e.expiresAtMillis() <= now);
+		if (removed && entries.size() < maxSize)
+			return;
+
+		Iterator<K> it = entries.keySet().iterator();
+		while (entries.size() >= maxSize && it.hasNext()) {
+			it.next();
+			it.remove();
+		}
+	}
+}
@@ -1,14 +1,19 @@
 package de.hsaa.fitness_tracker_service.common;
 
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import de.hsaa.fitness_tracker_service.security.LoginThrottledException;
 import jakarta.persistence.EntityNotFoundException;
 
 @RestControllerAdvice
@@ -21,6 +26,33 @@ public class GlobalExceptionHandler {
 		return pd;
 	}
 
+	@ExceptionHandler(AuthenticationException.class)
+	public ResponseEntity<ProblemDetail> handleUnauthorized(AuthenticationException ex) {
+		if (ex.getCause() instanceof ServiceBusyException busy) {
+			return handleBusy(busy);
+		}
+		var pd = ProblemDetail.forStatusAndDetail(HttpStatus.UNAUTHORIZED, ex.getMessage());
+		pd.setTitle("Unauthorized");
+		return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(pd);
+	}
+
+	@ExceptionHandler(LoginThrottledException.class)
+	public ResponseEntity<ProblemDetail> handleThrottled(LoginThrottledException ex) {
+		var pd = ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage());
+		pd.setTitle("Too Many Requests");
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds())).body(pd);
+	}
+
+	@ExceptionHandler(ServiceBusyException.class)
+	public ResponseEntity<ProblemDetail> handleBusy(ServiceBusyException ex) {
+		var pd = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+		pd.setTitle("Service Unavailable");
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+				.body(pd);
+	}
+
 	@ExceptionHandler(MethodArgumentNotValidException.class)
 	public ProblemDetail handleValidation(MethodArgumentNotValidException ex) {
 		var detail = ex.getBindingResult().getFieldErrors().stream()
@@ -37,6 +69,14 @@ public class GlobalExceptionHandler {
 		return pd;
 	}
 
+	// a concurrent write won between our read and our commit
+	@ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+	public ProblemDetail handleOptimisticLock(ObjectOptimisticLockingFailureException ex) {
+		var pd = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "Modified concurrently, reload and retry");
+		pd.setTitle("Conflict");
+		return pd;
+	}
+
 	@ExceptionHandler(HttpMessageNotReadableException.class)
 	public ProblemDetail handleUnreadable(HttpMessageNotReadableException ex) {
 		var pd = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "Malformed JSON or type mismatch");
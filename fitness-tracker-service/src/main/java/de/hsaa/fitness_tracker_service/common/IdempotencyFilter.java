@@ -0,0 +1,345 @@
+package de.hsaa.fitness_tracker_service.common;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Makes authenticated POSTs safe to retry: a request that carries an Idempotency-Key is executed once per user,
+// endpoint and key. Retries within the TTL get the stored response back without reaching the controller. Only
+// successful responses are kept, so a failed attempt can be retried with the same key. Reusing a key with a
+// different body is rejected.
+//
+// Every user has their own bounded set of keys. When it is full, that user's oldest completed key makes room;
+// keys still in flight are never evicted, so one client cannot void the guarantee for anybody else.
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+	public static final String HEADER = "Idempotency-Key";
+	public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+	private static final int MAX_KEY_LENGTH = 255;
+	private static final List<String> STORED_HEADERS = List.of(HttpHeaders.LOCATION, HttpHeaders.ETAG);
+
+	private record StoredResponse(int status, String contentType, Map<String, String> headers, byte[] body) {
+	}
+
+	// response stays null while the first request with the key is running
+	private record Entry(long expiresAtMillis, byte[] bodyHash, StoredResponse response) {
+	}
+
+	private enum Outcome {
+		RESERVED, IN_FLIGHT, STORED, FULL
+	}
+
+	private record Reservation(Outcome outcome, Entry entry) {
+	}
+
+	private final Map<String, LinkedHashMap<String, Entry>> byUser = new ConcurrentHashMap<>();
+	private final int maxEntriesPerUser;
+	private final long ttlMillis;
+	private final int maxBodyBytes;
+	private final Clock clock;
+	private final Counter replayed;
+
+	@Autowired
+	public IdempotencyFilter(@Value("${app.idempotency.max-entries-per-user:1000}") int maxEntriesPerUser,
+			@Value("${app.idempotency.ttl:PT24H}") Duration ttl,
+			@Value("${app.idempotency.max-body-bytes:65536}") int maxBodyBytes, MeterRegistry meters) {
+		this(maxEntriesPerUser, ttl, maxBodyBytes, meters, Clock.systemUTC());
+	}
+
+	IdempotencyFilter(int maxEntriesPerUser, Duration ttl, int maxBodyBytes, MeterRegistry meters, Clock clock) {
+		if (maxEntriesPerUser < 1 || ttl.isNegative() || ttl.isZero()) {
+			throw new IllegalArgumentException("invalid idempotency configuration");
+		}
+		this.maxEntriesPerUser = maxEntriesPerUser;
+		this.ttlMillis = ttl.toMillis();
+		this.maxBodyBytes = maxBodyBytes;
+		this.clock = clock;
+		this.replayed = Counter.builder("http.idempotency.replayed").register(meters);
+		meters.gauge("http.idempotency.store.size", this, IdempotencyFilter::size);
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !HttpMethod.POST.matches(request.getMethod()) || request.getHeader(HEADER) == null;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+		if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		String key = request.getHeader(HEADER).trim();
+		if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+			reject(response, HttpStatus.BAD_REQUEST, HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+			return;
+		}
+
+		// keys are scoped so that two users or two endpoints never share a response
+		String user = auth.getName();
+		String scoped = request.getRequestURI() + ' ' + key;
+		Reservation reservation = reserve(user, scoped);
+		switch (reservation.outcome()) {
+		case IN_FLIGHT -> {
+			reject(response, HttpStatus.CONFLICT, "a request with this " + HEADER + " is still being processed");
+			return;
+		}
+		case FULL -> {
+			reject(response, HttpStatus.TOO_MANY_REQUESTS, "too many requests with an " + HEADER + " in progress");
+			return;
+		}
+		case STORED -> {
+			if (!MessageDigest.isEqual(reservation.entry().bodyHash(), hash(request.getInputStream()))) {
+				reject(response, HttpStatus.UNPROCESSABLE_ENTITY,
+						HEADER + " was already used for a request with a different body");
+				return;
+			}
+			replayed.increment();
+			replay(reservation.entry().response(), response);
+			return;
+		}
+		case RESERVED -> {
+		}
+		}
+
+		HashingRequest hashing = new HashingRequest(request);
+		ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+		Entry stored = null;
+		try {
+			chain.doFilter(hashing, wrapper);
+			int status = wrapper.getStatus();
+			if (status >= 200 && status < 300 && wrapper.getContentSize() <= maxBodyBytes) {
+				stored = new Entry(reservation.entry().expiresAtMillis(), hashing.finish(), capture(wrapper));
+			}
+		} finally {
+			complete(user, scoped, reservation.entry(), stored);
+			wrapper.copyBodyToResponse();
+		}
+	}
+
+	private Reservation reserve(String user, String scoped) {
+		Reservation[] result = new Reservation[1];
+		byUser.compute(user, (u, entries) -> {
+			LinkedHashMap<String, Entry> keys = entries != null ? entries : new LinkedHashMap<>();
+			long now = clock.millis();
+			dropExpired(keys, now);
+
+			Entry existing = keys.get(scoped);
+			if (existing != null) {
+				result[0] = new Reservation(existing.response() == null ? Outcome.IN_FLIGHT : Outcome.STORED, existing);
+				return keys;
+			}
+			if (keys.size() >= maxEntriesPerUser && !evictOldestCompleted(keys)) {
+				result[0] = new Reservation(Outcome.FULL, null);
+				return keys.isEmpty() ? null : keys;
+			}
+			Entry inFlight = new Entry(now + ttlMillis, null, null);
+			keys.put(scoped, inFlight);
+			result[0] = new Reservation(Outcome.RESERVED, inFlight);
+			return keys;
+		});
+		return result[0];
+	}
+
+	// stores the response, or frees the key when there is nothing to keep
+	private void complete(String user, String scoped, Entry inFlight, Entry stored) {
+		byUser.computeIfPresent(user, (u, keys) -> {
+			if (keys.get(scoped) == inFlight) {
+				if (stored != null)
+					keys.replace(scoped, stored);
+				else
+					keys.remove(scoped);
+			}
+			return keys.isEmpty() ? null : keys;
+		});
+	}
+
+	// all keys share one TTL, so the expired ones are at the head of the insertion order
+	private static void dropExpired(LinkedHashMap<String, Entry> keys, long now) {
+		Iterator<Entry> it = keys.values().iterator();
+		while (it.hasNext() && it.next().expiresAtMillis() <= now) {
+			it.remove();
+		}
+	}
+
+	private static boolean evictOldestCompleted(LinkedHashMap<String, Entry> keys) {
+		Iterator<Entry> it = keys.values().iterator();
+		while (it.hasNext()) {
+			if (it.next().response() != null) {
+				it.remove();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Scheduled(fixedDelayString = "${app.idempotency.purge-interval:PT10M}")
+	void purgeExpired() {
+		long now = clock.millis();
+		for (String user : byUser.keySet()) {
+			byUser.computeIfPresent(user, (u, keys) -> {
+				dropExpired(keys, now);
+				return keys.isEmpty() ? null : keys;
+			});
+		}
+	}
+
+	int size() {
+		return byUser.values().stream().mapToInt(Map::size).sum();
+	}
+
+	private static StoredResponse capture(ContentCachingResponseWrapper wrapper) {
+		Map<String, String> headers = new LinkedHashMap<>();
+		for (String name : STORED_HEADERS) {
+			String value = wrapper.getHeader(name);
+			if (value != null)
+				headers.put(name, value);
+		}
+		return new StoredResponse(wrapper.getStatus(), wrapper.getContentType(), Map.copyOf(headers),
+				wrapper.getContentAsByteArray());
+	}
+
+	private static void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+		response.setStatus(stored.status());
+		stored.headers().forEach(response::setHeader);
+		response.setHeader(REPLAYED_HEADER, "true");
+		if (stored.contentType() != null)
+			response.setContentType(stored.contentType());
+		response.setContentLength(stored.body().length);
+		response.getOutputStream().write(stored.body());
+	}
+
+	private static void reject(HttpServletResponse response, HttpStatus status, String detail) throws IOException {
+		response.setStatus(status.value());
+		response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+		response.getWriter().write("{\"title\":\"" + status.getReasonPhrase() + "\",\"status\":" + status.value()
+				+ ",\"detail\":\"" + detail + "\"}");
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+
+	private static byte[] hash(InputStream in) throws IOException {
+		MessageDigest digest = sha256();
+		byte[] buf = new byte[8192];
+		int n;
+		while ((n = in.read(buf)) != -1) {
+			digest.update(buf, 0, n);
+		}
+		return digest.digest();
+	}
+
+	// Hashes the body while the controller reads it, so nothing is buffered. Whatever the controller leaves
+	// unread is hashed by finish().
+	private static final class HashingRequest extends HttpServletRequestWrapper {
+
+		private final MessageDigest digest = sha256();
+		private ServletInputStream stream;
+
+		HashingRequest(HttpServletRequest request) {
+			super(request);
+		}
+
+		@Override
+		public ServletInputStream getInputStream() throws IOException {
+			if (stream == null) {
+				ServletInputStream in = super.getInputStream();
+				stream = new ServletInputStream() {
+					@Override
+					public int read() throws IOException {
+						int b = in.read();
+						if (b != -1)
+							digest.update((byte) b);
+						return b;
+					}
+
+					@Override
+					public int read(byte[] b, int off, int len) throws IOException {
+						int n = in.read(b, off, len);
+						if (n > 0)
+							digest.update(b, off, n);
+						return n;
+					}
+
+					@Override
+					public boolean isFinished() {
+						return in.isFinished();
+					}
+
+					@Override
+					public boolean isReady() {
+						return in.isReady();
+					}
+
+					@Override
+					public void setReadListener(ReadListener listener) {
+						in.setReadListener(listener);
+					}
+				};
+			}
+			return stream;
+		}
+
+		@Override
+		public BufferedReader getReader() throws IOException {
+			String encoding = getCharacterEncoding();
+			Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+			return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+		}
+
+		byte[] finish() throws IOException {
+			InputStream in = getInputStream();
+			byte[] buf = new byte[8192];
+			while (in.read(buf) != -1) {
+				// the stream updates the digest
+			}
+			return digest.digest();
+		}
+	}
+}
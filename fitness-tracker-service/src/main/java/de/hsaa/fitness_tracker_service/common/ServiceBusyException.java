@@ -0,0 +1,17 @@
+package de.hsaa.fitness_tracker_service.common;
+
+import java.time.Duration;
+
+public class ServiceBusyException extends RuntimeException {
+
+	private final Duration retryAfter;
+
+	public ServiceBusyException(String message, Duration retryAfter) {
+		super(message);
+		this.retryAfter = retryAfter;
+	}
+
+	public Duration getRetryAfter() {
+		return retryAfter;
+	}
+}
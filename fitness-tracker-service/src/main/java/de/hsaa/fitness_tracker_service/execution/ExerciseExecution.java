@@ -11,6 +11,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.Min;
@@ -23,7 +24,8 @@ import jakarta.validation.constraints.NotNull;
 public class ExerciseExecution {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "exercise_executions_seq")
+	@SequenceGenerator(name = "exercise_executions_seq", sequenceName = "exercise_executions_seq", allocationSize = 50)
 	private Long id;
 
 	@ManyToOne(optional = false)
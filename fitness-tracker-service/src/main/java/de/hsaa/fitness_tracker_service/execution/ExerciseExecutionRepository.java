@@ -3,6 +3,7 @@ package de.hsaa.fitness_tracker_service.execution;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -22,4 +23,11 @@ public interface ExerciseExecutionRepository extends JpaRepository<ExerciseExecu
 
 	@Query("select ee.session.id, count(ee) from ExerciseExecution ee where ee.session.id in :ids group by ee.session.id")
 	List<Object[]> countBySessionIds(@Param("ids") List<Long> ids);
+
+	@Modifying
+	@Query("""
+			    delete from ExerciseExecution ee
+			    where ee.session.id in (select s.id from TrainingSession s where s.plan.id = :planId)
+			""")
+	int deleteByPlanId(@Param("planId") Long planId);
 }
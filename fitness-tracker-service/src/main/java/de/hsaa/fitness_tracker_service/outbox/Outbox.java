@@ -0,0 +1,42 @@
+package de.hsaa.fitness_tracker_service.outbox;
+
+import java.time.LocalDateTime;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+public class Outbox {
+
+	private final OutboxEventRepository repo;
+	private final OutboxDispatcher dispatcher;
+
+	public Outbox(OutboxEventRepository repo, OutboxDispatcher dispatcher) {
+		this.repo = repo;
+		this.dispatcher = dispatcher;
+	}
+
+	// the event commits or rolls back together with the caller's changes
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void publish(OutboxEvent.Type type, Long userId, Long executionId, Long exerciseId) {
+		LocalDateTime now = LocalDateTime.now();
+		OutboxEvent event = new OutboxEvent();
+		event.setType(type);
+		event.setUserId(userId);
+		event.setExecutionId(executionId);
+		event.setExerciseId(exerciseId);
+		event.setOccurredAt(now);
+		event.setNextAttemptAt(now);
+		repo.save(event);
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				dispatcher.wakeUp();
+			}
+		});
+	}
+}
@@ -0,0 +1,182 @@
+package de.hsaa.fitness_tracker_service.outbox;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+// Delivers outbox events to the listeners on a single background thread. Commits wake it up; the poll picks up
+// retries and anything left over from a restart. At most one wake-up is queued, further ones are dropped because
+// the queued run will see their events anyway.
+@Component
+public class OutboxDispatcher {
+
+	private static final int MAX_ERROR_LENGTH = 1000;
+
+	private final OutboxEventRepository repo;
+	private final OutboxReceiptRepository receipts;
+	private final List<OutboxListener> listeners;
+	private final TransactionTemplate tx;
+	private final ThreadPoolExecutor executor;
+	private final int batchSize;
+	private final int maxAttempts;
+	private final Duration retryBackoff;
+	private final Duration retention;
+	private final Counter delivered;
+	private final Counter retried;
+	private final Counter failed;
+
+	public OutboxDispatcher(OutboxEventRepository repo, OutboxReceiptRepository receipts,
+			List<OutboxListener> listeners, PlatformTransactionManager transactionManager,
+			@Value("${app.outbox.batch-size:100}") int batchSize,
+			@Value("${app.outbox.max-attempts:8}") int maxAttempts,
+			@Value("${app.outbox.retry-backoff:PT2S}") Duration retryBackoff,
+			@Value("${app.outbox.retention:P7D}") Duration retention, MeterRegistry meters) {
+		if (batchSize < 1 || maxAttempts < 1) {
+			throw new IllegalArgumentException("app.outbox.batch-size and app.outbox.max-attempts must be positive");
+		}
+		this.repo = repo;
+		this.receipts = receipts;
+		this.listeners = List.copyOf(listeners);
+		this.tx = new TransactionTemplate(transactionManager);
+		this.batchSize = batchSize;
+		this.maxAttempts = maxAttempts;
+		this.retryBackoff = retryBackoff;
+		this.retention = retention;
+
+		this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1), r -> {
+			Thread t = new Thread(r, "outbox-dispatcher");
+			t.setDaemon(true);
+			return t;
+		}, new ThreadPoolExecutor.DiscardPolicy());
+
+		this.delivered = Counter.builder("outbox.events.delivered").register(meters);
+		this.retried = Counter.builder("outbox.events.retried").register(meters);
+		this.failed = Counter.builder("outbox.events.failed").register(meters);
+		meters.gauge("outbox.dispatcher.queue.size", executor, e -> e.getQueue().size());
+	}
+
+	public void wakeUp() {
+		executor.execute(this::drain);
+	}
+
+	@Scheduled(fixedDelayString = "${app.outbox.poll-interval:PT5S}")
+	void poll() {
+		wakeUp();
+	}
+
+	@Scheduled(fixedDelayString = "${app.outbox.purge-interval:PT1H}")
+	void purge() {
+		tx.executeWithoutResult(status -> repo.deleteProcessedBefore(LocalDateTime.now().minus(retention)));
+	}
+
+	void drain() {
+		while (dispatchBatch() == batchSize) {
+			// keep going while there is a backlog
+		}
+	}
+
+	// returns the number of events looked at
+	int dispatchBatch() {
+		List<OutboxEvent> due = tx.execute(status -> repo.findDue(LocalDateTime.now(), Limit.of(batchSize)));
+		if (due == null || due.isEmpty())
+			return 0;
+
+		Map<Long, String> errors = new HashMap<>();
+		for (OutboxListener listener : listeners) {
+			List<OutboxEvent> mine = due.stream().filter(e -> listener.types().contains(e.getType())).toList();
+			if (mine.isEmpty())
+				continue;
+
+			try {
+				deliver(listener, mine);
+			} catch (RuntimeException batchError) {
+				// one bad event must not hold back the rest of the batch
+				for (OutboxEvent event : mine) {
+					try {
+						deliver(listener, List.of(event));
+					} catch (RuntimeException e) {
+						errors.putIfAbsent(event.getId(), listener.name() + ": "
+								+ NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+					}
+				}
+			}
+		}
+
+		settle(due, errors);
+		return due.size();
+	}
+
+	private void deliver(OutboxListener listener, List<OutboxEvent> events) {
+		tx.executeWithoutResult(status -> {
+			Set<Long> received = new HashSet<>(
+					receipts.findReceivedEventIds(listener.name(), events.stream().map(OutboxEvent::getId).toList()));
+			List<OutboxEvent> pending = events.stream().filter(e -> !received.contains(e.getId())).toList();
+			if (pending.isEmpty())
+				return;
+
+			listener.handle(pending);
+			receipts.saveAll(pending.stream().map(e -> new OutboxReceipt(e.getId(), listener.name())).toList());
+		});
+	}
+
+	private void settle(List<OutboxEvent> due, Map<Long, String> errors) {
+		LocalDateTime now = LocalDateTime.now();
+		List<Long> done = new ArrayList<>(due.size());
+		for (OutboxEvent e : due) {
+			if (!errors.containsKey(e.getId()))
+				done.add(e.getId());
+		}
+
+		tx.executeWithoutResult(status -> {
+			if (!done.isEmpty()) {
+				repo.markProcessed(done, now);
+				receipts.deleteByEventIds(done);
+			}
+			for (var entry : errors.entrySet()) {
+				repo.findById(entry.getKey()).ifPresent(e -> retryLater(e, entry.getValue(), now));
+			}
+		});
+		delivered.increment(done.size());
+	}
+
+	private void retryLater(OutboxEvent e, String error, LocalDateTime now) {
+		e.setAttempts(e.getAttempts() + 1);
+		e.setLastError(error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH)
+				: error);
+		if (e.getAttempts() >= maxAttempts) {
+			// kept for inspection; the purge leaves failed events alone
+			e.setFailed(true);
+			e.setProcessedAt(now);
+			failed.increment();
+			return;
+		}
+		// exponential backoff, capped at 2^10 steps
+		e.setNextAttemptAt(now.plus(retryBackoff.multipliedBy(1L << Math.min(e.getAttempts() - 1, 10))));
+		retried.increment();
+	}
+
+	@PreDestroy
+	void shutdown() {
+		executor.shutdownNow();
+	}
+}
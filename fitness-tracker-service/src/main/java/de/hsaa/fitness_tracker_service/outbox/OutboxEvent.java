@@ -0,0 +1,149 @@
+package de.hsaa.fitness_tracker_service.outbox;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+// A domain event written in the same transaction as the change it describes and delivered after commit.
+@Entity
+@Table(name = "outbox_events", indexes = {
+		@Index(name = "idx_outbox_events_due", columnList = "processed_at, next_attempt_at, id") })
+public class OutboxEvent {
+
+	public enum Type {
+		TRAINING_COMPLETED, TRAINING_CANCELLED, EXECUTED_EXERCISE_UPDATED
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+	@SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+	private Long id;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, updatable = false, length = 40)
+	private Type type;
+
+	@Column(name = "user_id", nullable = false, updatable = false)
+	private Long userId;
+
+	@Column(name = "execution_id", updatable = false)
+	private Long executionId;
+
+	@Column(name = "exercise_id", updatable = false)
+	private Long exerciseId;
+
+	@Column(name = "occurred_at", nullable = false, updatable = false)
+	private LocalDateTime occurredAt;
+
+	@Column(nullable = false)
+	private int attempts;
+
+	@Column(name = "next_attempt_at", nullable = false)
+	private LocalDateTime nextAttemptAt;
+
+	@Column(name = "processed_at")
+	private LocalDateTime processedAt;
+
+	@Column(nullable = false)
+	private boolean failed;
+
+	@Column(name = "last_error", length = 1000)
+	private String lastError;
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public void setType(Type type) {
+		this.type = type;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public void setUserId(Long userId) {
+		this.userId = userId;
+	}
+
+	public Long getExecutionId() {
+		return executionId;
+	}
+
+	public void setExecutionId(Long executionId) {
+		this.executionId = executionId;
+	}
+
+	public Long getExerciseId() {
+		return exerciseId;
+	}
+
+	public void setExerciseId(Long exerciseId) {
+		this.exerciseId = exerciseId;
+	}
+
+	public LocalDateTime getOccurredAt() {
+		return occurredAt;
+	}
+
+	public void setOccurredAt(LocalDateTime occurredAt) {
+		this.occurredAt = occurredAt;
+	}
+
+	public int getAttempts() {
+		return attempts;
+	}
+
+	public void setAttempts(int attempts) {
+		this.attempts = attempts;
+	}
+
+	public LocalDateTime getNextAttemptAt() {
+		return nextAttemptAt;
+	}
+
+	public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+		this.nextAttemptAt = nextAttemptAt;
+	}
+
+	public LocalDateTime getProcessedAt() {
+		return processedAt;
+	}
+
+	public void setProcessedAt(LocalDateTime processedAt) {
+		this.processedAt = processedAt;
+	}
+
+	public boolean isFailed() {
+		return failed;
+	}
+
+	public void setFailed(boolean failed) {
+		this.failed = failed;
+	}
+
+	public String getLastError() {
+		return lastError;
+	}
+
+	public void setLastError(String lastError) {
+		this.lastError = lastError;
+	}
+}
@@ -0,0 +1,29 @@
+package de.hsaa.fitness_tracker_service.outbox;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+	@Query("""
+			    select e from OutboxEvent e
+			    where e.processedAt is null
+			      and e.nextAttemptAt <= :now
+			    order by e.id
+			""")
+	List<OutboxEvent> findDue(@Param("now") LocalDateTime now, Limit limit);
+
+	@Modifying
+	@Query("update OutboxEvent e set e.processedAt = :now where e.id in :ids")
+	int markProcessed(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+
+	@Modifying
+	@Query("delete from OutboxEvent e where e.processedAt < :before and e.failed = false")
+	int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,16 @@
+package de.hsaa.fitness_tracker_service.outbox;
+
+import java.util.List;
+import java.util.Set;
+
+// Receives committed events in id order, inside a transaction that also records the receipts. Handlers should
+// tolerate events whose execution no longer exists.
+public interface OutboxListener {
+
+	// stored with every receipt, so it must not change once events have been delivered
+	String name();
+
+	Set<OutboxEvent.Type> types();
+
+	void handle(List<OutboxEvent> events);
+}
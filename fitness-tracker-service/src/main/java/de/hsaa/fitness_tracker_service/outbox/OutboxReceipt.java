@@ -0,0 +1,47 @@
+package de.hsaa.fitness_tracker_service.outbox;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+// Written in the listener's own transaction, so a retried event is never applied twice by the same listener.
+@Entity
+@Table(name = "outbox_receipts", uniqueConstraints = { @UniqueConstraint(columnNames = { "event_id", "listener" }) })
+public class OutboxReceipt {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_receipts_seq")
+	@SequenceGenerator(name = "outbox_receipts_seq", sequenceName = "outbox_receipts_seq", allocationSize = 50)
+	private Long id;
+
+	@Column(name = "event_id", nullable = false, updatable = false)
+	private Long eventId;
+
+	@Column(nullable = false, updatable = false, length = 60)
+	private String listener;
+
+	public OutboxReceipt() {
+	}
+
+	public OutboxReceipt(Long eventId, String listener) {
+		this.eventId = eventId;
+		this.listener = listener;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public Long getEventId() {
+		return eventId;
+	}
+
+	public String getListener() {
+		return listener;
+	}
+}
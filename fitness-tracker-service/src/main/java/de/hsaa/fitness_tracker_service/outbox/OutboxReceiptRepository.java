@@ -0,0 +1,20 @@
+package de.hsaa.fitness_tracker_service.outbox;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface OutboxReceiptRepository extends JpaRepository<OutboxReceipt, Long> {
+
+	@Query("select r.eventId from OutboxReceipt r where r.listener = :listener and r.eventId in :eventIds")
+	List<Long> findReceivedEventIds(@Param("listener") String listener,
+			@Param("eventIds") Collection<Long> eventIds);
+
+	@Modifying
+	@Query("delete from OutboxReceipt r where r.eventId in :eventIds")
+	int deleteByEventIds(@Param("eventIds") Collection<Long> eventIds);
+}
@@ -0,0 +1,21 @@
+package de.hsaa.fitness_tracker_service.security;
+
+import java.util.Collection;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+public class AuthenticatedUser extends User {
+
+	private final Long id;
+
+	public AuthenticatedUser(Long id, String username, String password,
+			Collection<? extends GrantedAuthority> authorities) {
+		super(username, password, authorities);
+		this.id = id;
+	}
+
+	public Long getId() {
+		return id;
+	}
+}
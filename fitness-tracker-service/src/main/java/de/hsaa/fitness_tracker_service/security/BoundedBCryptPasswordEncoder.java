@@ -0,0 +1,23 @@
+package de.hsaa.fitness_tracker_service.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+public class BoundedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+	private final PasswordHashingExecutor executor;
+
+	public BoundedBCryptPasswordEncoder(int strength, PasswordHashingExecutor executor) {
+		super(strength);
+		this.executor = executor;
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return executor.call(() -> super.encode(rawPassword));
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return executor.call(() -> super.matches(rawPassword, encodedPassword));
+	}
+}
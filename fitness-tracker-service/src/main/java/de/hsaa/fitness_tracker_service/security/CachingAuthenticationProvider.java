@@ -0,0 +1,72 @@
+package de.hsaa.fitness_tracker_service.security;
+
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import de.hsaa.fitness_tracker_service.common.ServiceBusyException;
+
+public class CachingAuthenticationProvider extends DaoAuthenticationProvider {
+
+	private final CredentialCache cache;
+	private final LoginAttemptLimiter limiter;
+
+	public CachingAuthenticationProvider(UserDetailsService userDetailsService, PasswordEncoder encoder,
+			CredentialCache cache, LoginAttemptLimiter limiter) {
+		setUserDetailsService(userDetailsService);
+		setPasswordEncoder(encoder);
+		this.cache = cache;
+		this.limiter = limiter;
+	}
+
+	@Override
+	public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+		String username = authentication.getName();
+		Object credentials = authentication.getCredentials();
+
+		if (username == null || !(credentials instanceof String password)) {
+			return super.authenticate(authentication);
+		}
+
+		UserDetails cached = cache.lookup(username, password);
+		if (cached != null) {
+			return createSuccessAuthentication(cached, authentication, cached);
+		}
+
+		limiter.acquire(username, clientAddress(authentication));
+
+		Authentication result;
+		try {
+			result = super.authenticate(authentication);
+		} catch (ServiceBusyException e) {
+			throw new InternalAuthenticationServiceException(e.getMessage(), e);
+		}
+		if (result.getPrincipal() instanceof UserDetails details) {
+			cache.store(username, password, details);
+		}
+		return result;
+	}
+
+	private static String clientAddress(Authentication authentication) {
+		if (authentication.getDetails() instanceof WebAuthenticationDetails details) {
+			return details.getRemoteAddress();
+		}
+		if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+			return attributes.getRequest().getRemoteAddr();
+		}
+		return null;
+	}
+
+	@Override
+	public boolean supports(Class<?> authentication) {
+		return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+	}
+}
@@ -0,0 +1,82 @@
+package de.hsaa.fitness_tracker_service.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import de.hsaa.fitness_tracker_service.common.BoundedTtlCache;
+import de.hsaa.fitness_tracker_service.user.UserChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Component
+public class CredentialCache {
+
+	private static final String HMAC = "HmacSHA256";
+
+	private final BoundedTtlCache<String, UserDetails> cache;
+	private final SecretKeySpec key;
+	private final Counter hits;
+	private final Counter misses;
+
+	public CredentialCache(@Value("${app.security.credential-cache.max-size:10000}") int maxSize,
+			@Value("${app.security.credential-cache.ttl:PT5M}") Duration ttl, MeterRegistry meters) {
+		this.cache = new BoundedTtlCache<>(maxSize, ttl);
+
+		byte[] secret = new byte[32];
+		new SecureRandom().nextBytes(secret);
+		this.key = new SecretKeySpec(secret, HMAC);
+
+		this.hits = Counter.builder("auth.credential.cache").tag("result", "hit").register(meters);
+		this.misses = Counter.builder("auth.credential.cache").tag("result", "miss").register(meters);
+		meters.gauge("auth.credential.cache.size", cache, BoundedTtlCache::size);
+	}
+
+	public UserDetails lookup(String username, String password) {
+		UserDetails details = cache.get(keyOf(username, password));
+		if (details == null) {
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		return details;
+	}
+
+	public void store(String username, String password, UserDetails details) {
+		cache.put(keyOf(username, password), details);
+	}
+
+	public void evict(String username) {
+		if (username == null)
+			return;
+		cache.removeIf(details -> username.equalsIgnoreCase(details.getUsername()));
+	}
+
+	@EventListener
+	public void onUserChanged(UserChangedEvent event) {
+		evict(event.username());
+	}
+
+	private String keyOf(String username, String password) {
+		try {
+			Mac mac = Mac.getInstance(HMAC);
+			mac.init(key);
+			mac.update(username.getBytes(StandardCharsets.UTF_8));
+			mac.update((byte) 0);
+			mac.update(password.getBytes(StandardCharsets.UTF_8));
+			return Base64.getEncoder().encodeToString(mac.doFinal());
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("HMAC not available", e);
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package de.hsaa.fitness_tracker_service.security;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import de.hsaa.fitness_tracker_service.user.UserRepository;
+
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+	static final String ATTRIBUTE = CurrentUserArgumentResolver.class.getName() + ".user";
+
+	private final UserRepository users;
+
+	public CurrentUserArgumentResolver(UserRepository users) {
+		this.users = users;
+	}
+
+	@Override
+	public boolean supportsParameter(MethodParameter parameter) {
+		return parameter.hasParameterAnnotation(CurrentUser.class)
+				&& AuthenticatedUser.class.isAssignableFrom(parameter.getParameterType());
+	}
+
+	@Override
+	public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+			NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+		boolean required = parameter.getParameterAnnotation(CurrentUser.class).required();
+
+		AuthenticatedUser user = resolve(webRequest);
+		if (user == null && required) {
+			throw new AccessDeniedException("Not authenticated");
+		}
+		return user;
+	}
+
+	private AuthenticatedUser resolve(NativeWebRequest webRequest) {
+		Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+		if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken)
+			return null;
+
+		if (auth.getPrincipal() instanceof AuthenticatedUser user)
+			return user;
+
+		String username = auth.getName();
+		if (username == null || username.isBlank() || "anonymousUser".equalsIgnoreCase(username))
+			return null;
+
+		Object cached = webRequest.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+		if (cached instanceof AuthenticatedUser user)
+			return user;
+
+		AuthenticatedUser user = users.findByUsername(username)
+				.map(u -> new AuthenticatedUser(u.getId(), u.getUsername(), "", auth.getAuthorities())).orElse(null);
+		if (user != null) {
+			webRequest.setAttribute(ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+		}
+		return user;
+	}
+}
@@ -1,5 +1,8 @@
 package de.hsaa.fitness_tracker_service.security;
 
+import java.util.List;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -23,9 +26,9 @@ public class CustomUserDetailsService implements UserDetailsService {
 		User user = users.findByUsername(username)
 				.orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
-		return org.springframework.security.core.userdetails.User.withUsername(user.getUsername())
-				.password(user.getPassword()).roles(user.getUsername().equals("gruppe8@gmail.com") ? "ADMIN" : "USER")
-				.build();
+		String role = user.getUsername().equals("gruppe8@gmail.com") ? "ADMIN" : "USER";
+		return new AuthenticatedUser(user.getId(), user.getUsername(), user.getPassword(),
+				List.of(new SimpleGrantedAuthority("ROLE_" + role)));
 
 	}
 }
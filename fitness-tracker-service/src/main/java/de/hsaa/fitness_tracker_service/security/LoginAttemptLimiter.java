@@ -0,0 +1,173 @@
+package de.hsaa.fitness_tracker_service.security;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Component
+public class LoginAttemptLimiter {
+
+	private final Buckets byUsername;
+	private final Buckets byAddress;
+	private final LongSupplier nanoClock;
+	private final Counter usernameThrottled;
+	private final Counter addressThrottled;
+	private final Counter overflowed;
+
+	@Autowired
+	public LoginAttemptLimiter(@Value("${app.security.login-limit.max-keys:100000}") int maxKeys,
+			@Value("${app.security.login-limit.overflow-slots:1024}") int overflowSlots,
+			@Value("${app.security.login-limit.username.capacity:10}") int usernameCapacity,
+			@Value("${app.security.login-limit.username.refill:PT6S}") Duration usernameRefill,
+			@Value("${app.security.login-limit.address.capacity:30}") int addressCapacity,
+			@Value("${app.security.login-limit.address.refill:PT2S}") Duration addressRefill, MeterRegistry meters) {
+		this(maxKeys, overflowSlots, usernameCapacity, usernameRefill, addressCapacity, addressRefill, meters,
+				System::nanoTime);
+	}
+
+	LoginAttemptLimiter(int maxKeys, int overflowSlots, int usernameCapacity, Duration usernameRefill,
+			int addressCapacity, Duration addressRefill, MeterRegistry meters, LongSupplier nanoClock) {
+		this.nanoClock = nanoClock;
+		this.byUsername = new Buckets(maxKeys, overflowSlots, usernameCapacity, usernameRefill);
+		this.byAddress = new Buckets(maxKeys, overflowSlots, addressCapacity, addressRefill);
+		this.usernameThrottled = Counter.builder("auth.login.throttled").tag("key", "username").register(meters);
+		this.addressThrottled = Counter.builder("auth.login.throttled").tag("key", "address").register(meters);
+		this.overflowed = Counter.builder("auth.login.overflow").register(meters);
+		meters.gauge("auth.login.buckets", this, LoginAttemptLimiter::bucketCount);
+	}
+
+	// The address is only charged once the username has let the attempt through, so a rejected attempt costs
+	// the address nothing.
+	public void acquire(String username, String address) {
+		long now = nanoClock.getAsLong();
+
+		if (address != null) {
+			long wait = byAddress.waitFor(address, now);
+			if (wait > 0) {
+				addressThrottled.increment();
+				throw throttled(wait);
+			}
+		}
+		if (username != null) {
+			long wait = byUsername.tryAcquire(username.toLowerCase(), now);
+			if (wait > 0) {
+				usernameThrottled.increment();
+				throw throttled(wait);
+			}
+		}
+		if (address != null) {
+			long wait = byAddress.tryAcquire(address, now);
+			if (wait > 0) {
+				addressThrottled.increment();
+				throw throttled(wait);
+			}
+		}
+	}
+
+	// A full bucket carries no state, so buckets that have refilled are dropped.
+	@Scheduled(fixedDelayString = "${app.security.login-limit.purge-interval:PT30S}")
+	void purgeIdle() {
+		long now = nanoClock.getAsLong();
+		byUsername.purgeIdle(now);
+		byAddress.purgeIdle(now);
+	}
+
+	int bucketCount() {
+		return byUsername.buckets.size() + byAddress.buckets.size();
+	}
+
+	private static LoginThrottledException throttled(long waitNanos) {
+		long seconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+		return new LoginThrottledException("Too many login attempts", Duration.ofSeconds(seconds));
+	}
+
+	// Token bucket per key, stored as the time at which the bucket is full again
+	// (GCRA), so a single CAS updates it. Every key gets its own bucket while the
+	// map has room. Once it is full of active buckets, new keys are hashed with a
+	// per-process seed into a fixed number of shared overflow buckets: they stay
+	// limited, and a flood of made-up keys shares a bucket with few real ones.
+	private final class Buckets {
+
+		final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+		private final AtomicLong[] overflow;
+		private final int mask;
+		private final int seed = new SecureRandom().nextInt();
+		private final int maxKeys;
+		private final long interval;
+		private final long burst;
+
+		Buckets(int maxKeys, int overflowSlots, int capacity, Duration refill) {
+			if (maxKeys < 1 || overflowSlots < 1 || capacity < 1 || refill.isNegative() || refill.isZero()) {
+				throw new IllegalArgumentException("invalid login limit configuration");
+			}
+			this.maxKeys = maxKeys;
+			this.overflow = new AtomicLong[Math.max(Integer.highestOneBit(overflowSlots - 1) << 1, 1)];
+			long now = nanoClock.getAsLong();
+			for (int i = 0; i < overflow.length; i++) {
+				overflow[i] = new AtomicLong(now);
+			}
+			this.mask = overflow.length - 1;
+			this.interval = refill.toNanos();
+			this.burst = interval * capacity;
+		}
+
+		long waitFor(String key, long now) {
+			AtomicLong fullAt = buckets.get(key);
+			if (fullAt == null) {
+				if (buckets.size() < maxKeys)
+					return 0;
+				fullAt = overflow[index(key)];
+			}
+			long current = fullAt.get();
+			long next = (current - now < 0 ? now : current) + interval;
+			return Math.max(0, next - now - burst);
+		}
+
+		long tryAcquire(String key, long now) {
+			AtomicLong fullAt = buckets.get(key);
+			if (fullAt == null) {
+				if (buckets.size() >= maxKeys) {
+					overflowed.increment();
+					fullAt = overflow[index(key)];
+				} else {
+					fullAt = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+				}
+			}
+			while (true) {
+				long current = fullAt.get();
+				long base = current - now < 0 ? now : current;
+				long next = base + interval;
+				if (next - now > burst) {
+					return next - now - burst;
+				}
+				if (fullAt.compareAndSet(current, next)) {
+					return 0;
+				}
+			}
+		}
+
+		// an attempt racing with the removal of its bucket may go uncounted; that is one attempt at most
+		void purgeIdle(long now) {
+			buckets.values().removeIf(fullAt -> fullAt.get() - now <= 0);
+		}
+
+		private int index(String key) {
+			int h = key.hashCode() ^ seed;
+			h ^= h >>> 16;
+			h *= 0x85ebca6b;
+			h ^= h >>> 13;
+			return h & mask;
+		}
+	}
+}
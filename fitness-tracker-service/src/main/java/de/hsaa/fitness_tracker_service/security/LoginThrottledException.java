@@ -0,0 +1,19 @@
+package de.hsaa.fitness_tracker_service.security;
+
+import java.time.Duration;
+
+import org.springframework.security.core.AuthenticationException;
+
+public class LoginThrottledException extends AuthenticationException {
+
+	private final Duration retryAfter;
+
+	public LoginThrottledException(String message, Duration retryAfter) {
+		super(message);
+		this.retryAfter = retryAfter;
+	}
+
+	public Duration getRetryAfter() {
+		return retryAfter;
+	}
+}
@@ -0,0 +1,75 @@
+package de.hsaa.fitness_tracker_service.security;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import de.hsaa.fitness_tracker_service.common.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+@Component
+public class PasswordHashingExecutor {
+
+	private final ThreadPoolExecutor executor;
+	private final Duration retryAfter;
+	private final Counter rejected;
+
+	public PasswordHashingExecutor(@Value("${app.security.hashing.threads:0}") int threads,
+			@Value("${app.security.hashing.queue-capacity:64}") int queueCapacity,
+			@Value("${app.security.hashing.retry-after:PT1S}") Duration retryAfter, MeterRegistry meters) {
+		int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		AtomicInteger counter = new AtomicInteger();
+
+		this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), r -> {
+					Thread t = new Thread(r, "password-hashing-" + counter.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}, new ThreadPoolExecutor.AbortPolicy());
+		this.retryAfter = retryAfter;
+
+		this.rejected = Counter.builder("auth.hashing.rejected").register(meters);
+		meters.gauge("auth.hashing.queue.size", executor, e -> e.getQueue().size());
+		meters.gauge("auth.hashing.queue.remaining", executor, e -> e.getQueue().remainingCapacity());
+		meters.gauge("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount);
+	}
+
+	public <T> T call(Callable<T> task) {
+		Future<T> future;
+		try {
+			future = executor.submit(task);
+		} catch (RejectedExecutionException e) {
+			rejected.increment();
+			throw new ServiceBusyException("password hashing capacity exhausted", retryAfter);
+		}
+
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while hashing password", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	@PreDestroy
+	void shutdown() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,31 @@
+package de.hsaa.fitness_tracker_service.security;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.AuthenticationEntryPoint;
+
+import de.hsaa.fitness_tracker_service.common.ServiceBusyException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+public class RestAuthenticationEntryPoint implements AuthenticationEntryPoint {
+
+	@Override
+	public void commence(HttpServletRequest request, HttpServletResponse response,
+			AuthenticationException authException) throws IOException {
+		if (authException.getCause() instanceof ServiceBusyException busy) {
+			response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, busy.getRetryAfter().toSeconds())));
+			response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+			return;
+		}
+		if (authException instanceof LoginThrottledException throttled) {
+			response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(throttled.getRetryAfter().toSeconds()));
+			response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+			return;
+		}
+		response.setStatus(HttpStatus.UNAUTHORIZED.value());
+	}
+}
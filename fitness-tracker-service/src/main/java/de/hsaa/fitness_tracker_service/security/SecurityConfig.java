@@ -2,10 +2,10 @@ package de.hsaa.fitness_tracker_service.security;
 
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -13,17 +13,20 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
-import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import jakarta.servlet.DispatcherType;
+
 @EnableMethodSecurity
 @Configuration
 public class SecurityConfig {
 
 	@Bean
-	SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+	SecurityFilterChain filterChain(HttpSecurity http, TokenService tokenService) throws Exception {
+		var entryPoint = new RestAuthenticationEntryPoint();
 
 		http.cors(cors -> {
 		}).csrf(csrf -> csrf.disable()).headers(headers -> headers.frameOptions(frame -> frame.disable()))
@@ -31,14 +34,22 @@ public class SecurityConfig {
 
 				.authorizeHttpRequests(auth -> auth.requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
+						// streamed responses finish on an async dispatch of an already authorized request
+						.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
 						.requestMatchers("/h2-console/**").permitAll()
 
 						.requestMatchers(HttpMethod.GET, "/api/v1/exercises/**", "/api/v1/training-plans/**",
 								"/api/v1/training-sessions/**")
-						.permitAll().requestMatchers(HttpMethod.POST, "/api/v1/users/register").permitAll().anyRequest()
-						.authenticated())
+						.permitAll()
+						.requestMatchers(HttpMethod.POST, "/api/v1/users/register", "/api/v1/users/login",
+								"/api/v1/users/token/refresh")
+						.permitAll().anyRequest().authenticated())
+
+				.addFilterBefore(new TokenAuthenticationFilter(tokenService, entryPoint),
+						BasicAuthenticationFilter.class)
 
-				.httpBasic(basic -> basic.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)));
+				.httpBasic(basic -> basic.authenticationEntryPoint(entryPoint));
 
 		return http.build();
 	}
@@ -57,8 +68,15 @@ public class SecurityConfig {
 	}
 
 	@Bean
-	BCryptPasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
+	BCryptPasswordEncoder passwordEncoder(@Value("${app.security.bcrypt.strength:10}") int strength,
+			PasswordHashingExecutor hashingExecutor) {
+		return new BoundedBCryptPasswordEncoder(strength, hashingExecutor);
+	}
+
+	@Bean
+	CachingAuthenticationProvider authenticationProvider(CustomUserDetailsService userDetailsService,
+			BCryptPasswordEncoder passwordEncoder, CredentialCache credentialCache, LoginAttemptLimiter limiter) {
+		return new CachingAuthenticationProvider(userDetailsService, passwordEncoder, credentialCache, limiter);
 	}
 
 	@Bean
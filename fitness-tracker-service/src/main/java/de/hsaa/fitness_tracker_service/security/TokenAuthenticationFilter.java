@@ -0,0 +1,61 @@
+package de.hsaa.fitness_tracker_service.security;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+	private static final String BEARER = "Bearer ";
+
+	private final TokenService tokens;
+	private final AuthenticationEntryPoint entryPoint;
+
+	public TokenAuthenticationFilter(TokenService tokens, AuthenticationEntryPoint entryPoint) {
+		this.tokens = tokens;
+		this.entryPoint = entryPoint;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+		if (header == null || !header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		try {
+			TokenService.TokenClaims claims = tokens.verify(header.substring(BEARER.length()).trim(),
+					TokenService.TokenType.ACCESS);
+
+			var authorities = List.of(new SimpleGrantedAuthority("ROLE_" + claims.role()));
+			var principal = new AuthenticatedUser(claims.userId(), claims.username(), "", authorities);
+			var auth = UsernamePasswordAuthenticationToken.authenticated(principal, null, authorities);
+			auth.setDetails(claims);
+
+			SecurityContext context = SecurityContextHolder.createEmptyContext();
+			context.setAuthentication(auth);
+			SecurityContextHolder.setContext(context);
+		} catch (AuthenticationException ex) {
+			SecurityContextHolder.clearContext();
+			entryPoint.commence(request, response, ex);
+			return;
+		}
+
+		chain.doFilter(request, response);
+	}
+}
@@ -0,0 +1,187 @@
+package de.hsaa.fitness_tracker_service.security;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+
+@Service
+public class TokenService {
+
+	private static final String HMAC = "HmacSHA256";
+	private static final byte VERSION = 1;
+
+	public enum TokenType {
+		ACCESS, REFRESH
+	}
+
+	public record TokenClaims(TokenType type, long tokenId, Long userId, String username, String role,
+			Instant expiresAt) {
+	}
+
+	public record IssuedTokens(String accessToken, String refreshToken, long expiresInSeconds) {
+	}
+
+	private final SecretKeySpec key;
+	private final Duration accessTtl;
+	private final Duration refreshTtl;
+	private final Clock clock;
+	private final SecureRandom random = new SecureRandom();
+	private final Map<Long, Long> denylist = new ConcurrentHashMap<>();
+
+	@Autowired
+	public TokenService(@Value("${app.security.token.secret:}") String secret,
+			@Value("${app.security.token.access-ttl:PT15M}") Duration accessTtl,
+			@Value("${app.security.token.refresh-ttl:P7D}") Duration refreshTtl) {
+		this(secret, accessTtl, refreshTtl, Clock.systemUTC());
+	}
+
+	TokenService(String secret, Duration accessTtl, Duration refreshTtl, Clock clock) {
+		byte[] material;
+		if (secret == null || secret.isBlank()) {
+			material = new byte[32];
+			random.nextBytes(material);
+		} else {
+			material = Base64.getDecoder().decode(secret.trim());
+		}
+		if (material.length < 32) {
+			throw new IllegalArgumentException("token secret must be at least 256 bit");
+		}
+		this.key = new SecretKeySpec(material, HMAC);
+		this.accessTtl = accessTtl;
+		this.refreshTtl = refreshTtl;
+		this.clock = clock;
+	}
+
+	public IssuedTokens issue(Long userId, String username, String role) {
+		Instant now = clock.instant();
+		String access = sign(new TokenClaims(TokenType.ACCESS, random.nextLong(), userId, username, role,
+				now.plus(accessTtl)));
+		String refresh = sign(new TokenClaims(TokenType.REFRESH, random.nextLong(), userId, username, role,
+				now.plus(refreshTtl)));
+		return new IssuedTokens(access, refresh, accessTtl.toSeconds());
+	}
+
+	public TokenClaims verify(String token, TokenType expectedType) {
+		TokenClaims claims = parse(token);
+
+		if (claims.type() != expectedType) {
+			throw new BadCredentialsException("Invalid token type");
+		}
+		if (!claims.expiresAt().isAfter(clock.instant())) {
+			throw new BadCredentialsException("Token expired");
+		}
+		if (denylist.containsKey(claims.tokenId())) {
+			throw new BadCredentialsException("Token revoked");
+		}
+		return claims;
+	}
+
+	// the denylist entry is claimed atomically, so of two concurrent refreshes with one token only one succeeds
+	public IssuedTokens refresh(String refreshToken) {
+		TokenClaims claims = verify(refreshToken, TokenType.REFRESH);
+		if (denylist.putIfAbsent(claims.tokenId(), claims.expiresAt().getEpochSecond()) != null) {
+			throw new BadCredentialsException("Token revoked");
+		}
+		return issue(claims.userId(), claims.username(), claims.role());
+	}
+
+	public void revoke(TokenClaims claims) {
+		denylist.put(claims.tokenId(), claims.expiresAt().getEpochSecond());
+	}
+
+	// expired tokens are rejected anyway, so their entries can go
+	@Scheduled(fixedDelayString = "${app.security.token.denylist-purge-interval:PT5M}")
+	void purgeExpired() {
+		long now = clock.instant().getEpochSecond();
+		denylist.values().removeIf(expiresAt -> expiresAt <= now);
+	}
+
+	int denylistSize() {
+		return denylist.size();
+	}
+
+	private String sign(TokenClaims claims) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(VERSION);
+			out.writeByte(claims.type().ordinal());
+			out.writeLong(claims.tokenId());
+			out.writeLong(claims.userId());
+			out.writeLong(claims.expiresAt().getEpochSecond());
+			out.writeUTF(claims.role());
+			out.writeUTF(claims.username());
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+
+		byte[] payload = bytes.toByteArray();
+		Base64.Encoder b64 = Base64.getUrlEncoder().withoutPadding();
+		return b64.encodeToString(payload) + "." + b64.encodeToString(mac(payload));
+	}
+
+	private TokenClaims parse(String token) {
+		int dot = token != null ? token.indexOf('.') : -1;
+		if (dot <= 0) {
+			throw new BadCredentialsException("Malformed token");
+		}
+
+		byte[] payload;
+		byte[] signature;
+		try {
+			Base64.Decoder b64 = Base64.getUrlDecoder();
+			payload = b64.decode(token.substring(0, dot));
+			signature = b64.decode(token.substring(dot + 1));
+		} catch (IllegalArgumentException e) {
+			throw new BadCredentialsException("Malformed token");
+		}
+
+		if (!MessageDigest.isEqual(mac(payload), signature)) {
+			throw new BadCredentialsException("Invalid token signature");
+		}
+
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+			if (in.readByte() != VERSION) {
+				throw new BadCredentialsException("Unsupported token version");
+			}
+			TokenType type = TokenType.values()[in.readByte()];
+			long tokenId = in.readLong();
+			long userId = in.readLong();
+			Instant expiresAt = Instant.ofEpochSecond(in.readLong());
+			String role = in.readUTF();
+			String username = in.readUTF();
+			return new TokenClaims(type, tokenId, userId, username, role, expiresAt);
+		} catch (IOException | ArrayIndexOutOfBoundsException e) {
+			throw new BadCredentialsException("Malformed token");
+		}
+	}
+
+	private byte[] mac(byte[] payload) {
+		try {
+			Mac mac = Mac.getInstance(HMAC);
+			mac.init(key);
+			return mac.doFinal(payload);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("HMAC not available", e);
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.hsaa.fitness_tracker_service.outbox.Outbox;
+import de.hsaa.fitness_tracker_service.outbox.OutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Closes trainings that were started but never completed or cancelled. Trainings with at least one exercise marked
+// done are completed on the day they were started, the others are discarded. Each batch runs in its own transaction
+// and is written with bulk statements. Open live streams learn about the outcome once the batch has committed.
+@Component
+@ConditionalOnProperty(name = "app.executions.sweep.enabled", havingValue = "true", matchIfMissing = true)
+public class AbandonedExecutionSweeper {
+
+	private static final Logger log = LoggerFactory.getLogger(AbandonedExecutionSweeper.class);
+
+	public record SweepReport(int completed, int discarded) {
+	}
+
+	private final TrainingExecutionRepository repo;
+	private final ExecutedExerciseRepository executedRepo;
+	private final TrainingExecutionService executions;
+	private final TrainingActivityService activity;
+	private final Outbox outbox;
+	private final LiveExecutionHub live;
+	private final TransactionTemplate tx;
+	private final Duration abandonAfter;
+	private final int batchSize;
+	private final Counter completedCounter;
+	private final Counter discardedCounter;
+
+	public AbandonedExecutionSweeper(TrainingExecutionRepository repo, ExecutedExerciseRepository executedRepo,
+			TrainingExecutionService executions, TrainingActivityService activity, Outbox outbox,
+			LiveExecutionHub live, PlatformTransactionManager transactionManager,
+			@Value("${app.executions.sweep.abandon-after:PT12H}") Duration abandonAfter,
+			@Value("${app.executions.sweep.batch-size:500}") int batchSize, MeterRegistry meters) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("app.executions.sweep.batch-size must be positive");
+		}
+		this.repo = repo;
+		this.executedRepo = executedRepo;
+		this.executions = executions;
+		this.activity = activity;
+		this.outbox = outbox;
+		this.live = live;
+		this.tx = new TransactionTemplate(transactionManager);
+		this.abandonAfter = abandonAfter;
+		this.batchSize = batchSize;
+		this.completedCounter = Counter.builder("executions.abandoned.completed").register(meters);
+		this.discardedCounter = Counter.builder("executions.abandoned.discarded").register(meters);
+	}
+
+	@Scheduled(initialDelayString = "${app.executions.sweep.interval:PT15M}",
+			fixedDelayString = "${app.executions.sweep.interval:PT15M}")
+	void scheduledSweep() {
+		long started = System.nanoTime();
+		SweepReport report = sweep();
+		if (report.completed() > 0 || report.discarded() > 0) {
+			log.info("closed abandoned trainings: {} completed, {} discarded in {} ms", report.completed(),
+					report.discarded(), (System.nanoTime() - started) / 1_000_000);
+		}
+	}
+
+	public SweepReport sweep() {
+		LocalDateTime cutoff = LocalDateTime.now().minus(abandonAfter);
+		int completed = 0;
+		int discarded = 0;
+		while (true) {
+			SweepReport batch = tx.execute(status -> sweepBatch(cutoff));
+			completed += batch.completed();
+			discarded += batch.discarded();
+			if (batch.completed() + batch.discarded() < batchSize)
+				break;
+		}
+		return new SweepReport(completed, discarded);
+	}
+
+	private SweepReport sweepBatch(LocalDateTime cutoff) {
+		List<TrainingExecution> abandoned = repo.findStartedBeforeForUpdate(TrainingExecution.Status.IN_PROGRESS,
+				cutoff, Limit.of(batchSize));
+		if (abandoned.isEmpty())
+			return new SweepReport(0, 0);
+
+		Set<Long> withDone = new HashSet<>(
+				executedRepo.findExecutionIdsWithDone(abandoned.stream().map(TrainingExecution::getId).toList()));
+
+		List<TrainingExecution> toComplete = new ArrayList<>();
+		List<Long> toDiscard = new ArrayList<>();
+		for (TrainingExecution te : abandoned) {
+			if (withDone.contains(te.getId()))
+				toComplete.add(te);
+			else
+				toDiscard.add(te.getId());
+		}
+
+		if (!toDiscard.isEmpty()) {
+			executedRepo.deleteByExecutionIds(toDiscard);
+			repo.deleteByIds(toDiscard);
+			for (Long id : toDiscard) {
+				live.publishAfterCommit(id, "cancelled", LiveExecutionHub.Cancelled::new);
+			}
+		}
+
+		if (!toComplete.isEmpty()) {
+			repo.completeAtStart(toComplete.stream().map(TrainingExecution::getId).toList(),
+					TrainingExecution.Status.IN_PROGRESS, TrainingExecution.Status.COMPLETED);
+
+			Map<Long, List<TrainingExecution>> byUser = new HashMap<>();
+			for (TrainingExecution te : toComplete) {
+				byUser.computeIfAbsent(te.getUser().getId(), id -> new ArrayList<>()).add(te);
+			}
+			for (var e : byUser.entrySet()) {
+				// the days arrive out of order, so the streak is recomputed rather than advanced
+				executions.refreshStreak(e.getKey());
+				for (TrainingExecution te : e.getValue()) {
+					activity.recordTrainingDay(e.getKey(), te.getStartedAt().toLocalDate());
+					outbox.publish(OutboxEvent.Type.TRAINING_COMPLETED, e.getKey(), te.getId(), null);
+				}
+			}
+			for (TrainingExecution te : toComplete) {
+				// the rows are locked, so completeAtStart raised each version by exactly one
+				long version = te.getVersion() + 1;
+				live.publishAfterCommit(te.getId(), "completed", () -> new LiveExecutionHub.Completed(
+						te.getStartedAt(), ETags.of(version, te.getExecutedExercises())));
+			}
+		}
+
+		completedCounter.increment(toComplete.size());
+		discardedCounter.increment(toDiscard.size());
+		return new SweepReport(toComplete.size(), toDiscard.size());
+	}
+}
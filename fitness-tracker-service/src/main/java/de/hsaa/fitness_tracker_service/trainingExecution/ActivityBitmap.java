@@ -0,0 +1,206 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Immutable set of epoch days. Bit j of words[i] stands for day baseDay + 64 * i + j;
+// baseDay is 64-aligned and only the words between the first and the last active
+// day are kept, so years of history stay at a few hundred bytes.
+public final class ActivityBitmap {
+
+	public static final ActivityBitmap EMPTY = new ActivityBitmap(0, new long[0]);
+
+	// what TrainingActivity.words can hold: 1024 words, about 179 years
+	public static final int MAX_WORDS = 1024;
+
+	private final long baseDay;
+	private final long[] words;
+
+	private ActivityBitmap(long baseDay, long[] words) {
+		this.baseDay = baseDay;
+		this.words = words;
+	}
+
+	public static ActivityBitmap of(long baseDay, long[] words) {
+		int from = 0;
+		int to = words.length;
+		while (from < to && words[from] == 0)
+			from++;
+		while (to > from && words[to - 1] == 0)
+			to--;
+		if (from == to)
+			return EMPTY;
+		return new ActivityBitmap(baseDay + 64L * from, Arrays.copyOfRange(words, from, to));
+	}
+
+	public static ActivityBitmap fromBytes(long baseDay, byte[] bytes) {
+		if (bytes == null || bytes.length == 0)
+			return EMPTY;
+		ByteBuffer buf = ByteBuffer.wrap(bytes);
+		long[] words = new long[bytes.length / Long.BYTES];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = buf.getLong();
+		}
+		return of(baseDay, words);
+	}
+
+	public byte[] toBytes() {
+		ByteBuffer buf = ByteBuffer.allocate(words.length * Long.BYTES);
+		for (long w : words) {
+			buf.putLong(w);
+		}
+		return buf.array();
+	}
+
+	public long baseDay() {
+		return baseDay;
+	}
+
+	public boolean isEmpty() {
+		return words.length == 0;
+	}
+
+	public boolean contains(LocalDate day) {
+		long pos = day.toEpochDay() - baseDay;
+		if (pos < 0 || pos >= 64L * words.length)
+			return false;
+		return (words[(int) (pos >>> 6)] & (1L << pos)) != 0;
+	}
+
+	public ActivityBitmap with(LocalDate day) {
+		long epochDay = day.toEpochDay();
+		if (isEmpty()) {
+			long base = Math.floorDiv(epochDay, 64) * 64;
+			return new ActivityBitmap(base, new long[] { 1L << (epochDay - base) });
+		}
+		if (contains(day))
+			return this;
+
+		long base = Math.min(baseDay, Math.floorDiv(epochDay, 64) * 64);
+		long end = Math.max(baseDay + 64L * words.length, Math.floorDiv(epochDay, 64) * 64 + 64);
+		if (((end - base) >>> 6) > MAX_WORDS) {
+			throw new IllegalArgumentException("training days must not span more than " + MAX_WORDS * 64 + " days");
+		}
+		long[] grown = new long[(int) ((end - base) >>> 6)];
+		System.arraycopy(words, 0, grown, (int) ((baseDay - base) >>> 6), words.length);
+
+		long pos = epochDay - base;
+		grown[(int) (pos >>> 6)] |= 1L << pos;
+		return new ActivityBitmap(base, grown);
+	}
+
+	public LocalDate first() {
+		if (isEmpty())
+			return null;
+		return LocalDate.ofEpochDay(baseDay + Long.numberOfTrailingZeros(words[0]));
+	}
+
+	public LocalDate last() {
+		if (isEmpty())
+			return null;
+		int i = words.length - 1;
+		return LocalDate.ofEpochDay(baseDay + 64L * i + 63 - Long.numberOfLeadingZeros(words[i]));
+	}
+
+	public int count() {
+		int n = 0;
+		for (long w : words) {
+			n += Long.bitCount(w);
+		}
+		return n;
+	}
+
+	// number of active days in [from, to]
+	public int count(LocalDate from, LocalDate to) {
+		long lo = Math.max(from.toEpochDay() - baseDay, 0);
+		long hi = Math.min(to.toEpochDay() - baseDay, 64L * words.length - 1);
+		if (lo > hi)
+			return 0;
+
+		int loWord = (int) (lo >>> 6);
+		int hiWord = (int) (hi >>> 6);
+		int n = 0;
+		for (int i = loWord; i <= hiWord; i++) {
+			long w = words[i];
+			if (i == loWord)
+				w &= -1L << lo;
+			if (i == hiWord)
+				w &= -1L >>> (63 - (hi & 63));
+			n += Long.bitCount(w);
+		}
+		return n;
+	}
+
+	public List<LocalDate> days(LocalDate from, LocalDate to) {
+		long lo = Math.max(from.toEpochDay() - baseDay, 0);
+		long hi = Math.min(to.toEpochDay() - baseDay, 64L * words.length - 1);
+		List<LocalDate> result = new ArrayList<>();
+		if (lo > hi)
+			return result;
+
+		int loWord = (int) (lo >>> 6);
+		int hiWord = (int) (hi >>> 6);
+		for (int i = loWord; i <= hiWord; i++) {
+			long w = words[i];
+			if (i == loWord)
+				w &= -1L << lo;
+			if (i == hiWord)
+				w &= -1L >>> (63 - (hi & 63));
+			while (w != 0) {
+				result.add(LocalDate.ofEpochDay(baseDay + 64L * i + Long.numberOfTrailingZeros(w)));
+				w &= w - 1;
+			}
+		}
+		return result;
+	}
+
+	// consecutive active days ending today, or yesterday if today has no training yet
+	public int currentStreak(LocalDate today) {
+		LocalDate end = contains(today) ? today : today.minusDays(1);
+		if (!contains(end))
+			return 0;
+
+		long pos = end.toEpochDay() - baseDay;
+		int i = (int) (pos >>> 6);
+		long w = words[i] << (63 - (pos & 63));
+		int run = Long.numberOfLeadingZeros(~w);
+		if (run <= (pos & 63))
+			return run;
+
+		while (--i >= 0) {
+			int ones = Long.numberOfLeadingZeros(~words[i]);
+			run += ones;
+			if (ones < 64)
+				break;
+		}
+		return run;
+	}
+
+	public int longestStreak() {
+		int longest = 0;
+		int run = 0;
+		for (long w : words) {
+			if (w == -1L) {
+				run += 64;
+				continue;
+			}
+			run += Long.numberOfTrailingZeros(~w);
+			longest = Math.max(longest, Math.max(run, longestInside(w)));
+			run = Long.numberOfLeadingZeros(~w);
+		}
+		return Math.max(longest, run);
+	}
+
+	// longest run of ones in a single word; each step shortens every run by one
+	private static int longestInside(long w) {
+		int n = 0;
+		while (w != 0) {
+			w &= w << 1;
+			n++;
+		}
+		return n;
+	}
+}
@@ -0,0 +1,84 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// RFC 4180 records: quoted fields may contain commas, doubled quotes and line breaks.
+class CsvRecordReader {
+
+	private final Reader in;
+	private long line = 1;
+	private long recordLine;
+	private int pending = -2;
+
+	CsvRecordReader(Reader in) {
+		this.in = in;
+	}
+
+	// line number the last returned record started on
+	long recordLine() {
+		return recordLine;
+	}
+
+	List<String> next() throws IOException {
+		int c = read();
+		if (c == -1)
+			return null;
+
+		recordLine = line;
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+
+		while (true) {
+			if (quoted) {
+				if (c == -1) {
+					throw new IllegalArgumentException("unterminated quoted field");
+				}
+				if (c == '"') {
+					int n = read();
+					if (n == '"') {
+						field.append('"');
+					} else {
+						quoted = false;
+						c = n;
+						continue;
+					}
+				} else {
+					if (c == '\n')
+						line++;
+					field.append((char) c);
+				}
+			} else if (c == '"' && field.isEmpty()) {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else if (c == '\n' || c == '\r' || c == -1) {
+				if (c == '\r') {
+					int n = read();
+					if (n != '\n')
+						pending = n;
+				}
+				if (c != -1)
+					line++;
+				fields.add(field.toString());
+				return fields;
+			} else {
+				field.append((char) c);
+			}
+			c = read();
+		}
+	}
+
+	private int read() throws IOException {
+		if (pending != -2) {
+			int c = pending;
+			pending = -2;
+			return c;
+		}
+		return in.read();
+	}
+}
@@ -0,0 +1,42 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.util.Collection;
+
+// Strong validators built from the @Version columns. An execution's tag also covers its exercises, whose rows are
+// versioned on their own; their versions only ever grow, so the sum changes with every edit.
+final class ETags {
+
+	private ETags() {
+	}
+
+	static String of(TrainingExecution te) {
+		return of(te.getVersion(), te.getExecutedExercises());
+	}
+
+	// for an execution whose version was raised by a bulk update
+	static String of(long version, Collection<ExecutedExercise> executedExercises) {
+		long exercises = 0;
+		if (executedExercises != null) {
+			for (ExecutedExercise ee : executedExercises) {
+				exercises += ee.getVersion();
+			}
+		}
+		return "\"" + version + "." + exercises + "\"";
+	}
+
+	static String of(ExecutedExercise ee) {
+		return "\"" + ee.getVersion() + "\"";
+	}
+
+	// no If-Match means an unconditional write; weak tags never match
+	static boolean matches(String ifMatch, String etag) {
+		if (ifMatch == null || ifMatch.isBlank())
+			return true;
+		for (String candidate : ifMatch.split(",")) {
+			String c = candidate.trim();
+			if (c.equals("*") || c.equals(etag))
+				return true;
+		}
+		return false;
+	}
+}
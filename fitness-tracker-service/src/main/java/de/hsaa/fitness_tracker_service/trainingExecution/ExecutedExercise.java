@@ -3,13 +3,16 @@ package de.hsaa.fitness_tracker_service.trainingExecution;
 import de.hsaa.fitness_tracker_service.exercise.Exercise;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 
@@ -19,10 +22,11 @@ import jakarta.validation.constraints.NotNull;
 public class ExecutedExercise {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "executed_exercises_seq")
+	@SequenceGenerator(name = "executed_exercises_seq", sequenceName = "executed_exercises_seq", allocationSize = 50)
 	private Long id;
 
-	@ManyToOne(optional = false)
+	@ManyToOne(optional = false, fetch = FetchType.LAZY)
 	@JoinColumn(name = "training_execution_id", nullable = false)
 	private TrainingExecution trainingExecution;
 
@@ -72,6 +76,13 @@ public class ExecutedExercise {
 	@Column(length = 1000)
 	private String notes;
 
+	@Column(name = "set_log", length = SetLog.RECORD_SIZE * SetLog.MAX_SETS)
+	private byte[] setLog;
+
+	@Version
+	@Column(nullable = false)
+	private long version;
+
 	public Long getId() {
 		return id;
 	}
@@ -175,4 +186,20 @@ public class ExecutedExercise {
 	public void setNotes(String notes) {
 		this.notes = notes;
 	}
+
+	public byte[] getSetLog() {
+		return setLog;
+	}
+
+	public void setSetLog(byte[] setLog) {
+		this.setLog = setLog;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
 }
@@ -0,0 +1,79 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.QueryHint;
+
+public interface ExecutedExerciseRepository extends JpaRepository<ExecutedExercise, Long> {
+
+	// not locked: concurrent edits are caught by the @Version check on flush
+	@Query("""
+			    select ee from ExecutedExercise ee
+			    join fetch ee.exercise ex
+			    join ee.trainingExecution te
+			    where te.id = :executionId
+			      and te.user.id = :userId
+			      and te.status = :status
+			      and ex.id = :exerciseId
+			""")
+	Optional<ExecutedExercise> findEditable(@Param("executionId") Long executionId,
+			@Param("exerciseId") Long exerciseId, @Param("userId") Long userId,
+			@Param("status") TrainingExecution.Status status);
+
+	@Query("""
+			    select ee from ExecutedExercise ee
+			    join fetch ee.exercise ex
+			    join ee.trainingExecution te
+			    where te.id = :executionId
+			      and te.user.id = :userId
+			      and ex.id = :exerciseId
+			""")
+	Optional<ExecutedExercise> findOwned(@Param("executionId") Long executionId,
+			@Param("exerciseId") Long exerciseId, @Param("userId") Long userId);
+
+	// rows that count towards personal records: marked done, or part of a completed training
+	@Query("""
+			    select ee from ExecutedExercise ee
+			    join fetch ee.trainingExecution te
+			    join fetch ee.exercise ex
+			    where te.user.id = :userId
+			      and ex.id in :exerciseIds
+			      and (ee.done = true or te.status = :completed)
+			""")
+	List<ExecutedExercise> findRecordCandidates(@Param("userId") Long userId,
+			@Param("exerciseIds") Collection<Long> exerciseIds, @Param("completed") TrainingExecution.Status completed);
+
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+	@Query("""
+			    select ee from ExecutedExercise ee
+			    join fetch ee.trainingExecution te
+			    join fetch ee.exercise ex
+			    where te.user.id = :userId
+			      and (ee.done = true or te.status = :completed)
+			""")
+	Stream<ExecutedExercise> streamRecordCandidates(@Param("userId") Long userId,
+			@Param("completed") TrainingExecution.Status completed);
+
+	@Query("""
+			    select distinct ee.trainingExecution.id from ExecutedExercise ee
+			    where ee.trainingExecution.id in :executionIds
+			      and ee.done = true
+			""")
+	List<Long> findExecutionIdsWithDone(@Param("executionIds") Collection<Long> executionIds);
+
+	@Modifying
+	@Query("delete from ExecutedExercise ee where ee.trainingExecution.id in :executionIds")
+	int deleteByExecutionIds(@Param("executionIds") Collection<Long> executionIds);
+}
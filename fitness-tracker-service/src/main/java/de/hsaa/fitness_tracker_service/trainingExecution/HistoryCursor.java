@@ -0,0 +1,25 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Opaque keyset position (startedAt, id) of the last row of a page.
+public record HistoryCursor(LocalDateTime startedAt, Long id) {
+
+	public String encode() {
+		String raw = startedAt + "|" + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static HistoryCursor decode(String cursor) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			int sep = raw.indexOf('|');
+			return new HistoryCursor(LocalDateTime.parse(raw.substring(0, sep)), Long.valueOf(raw.substring(sep + 1)));
+		} catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+			throw new IllegalArgumentException("invalid cursor");
+		}
+	}
+}
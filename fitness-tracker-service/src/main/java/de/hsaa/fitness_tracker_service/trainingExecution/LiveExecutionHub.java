@@ -0,0 +1,298 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+// Pushes small deltas of running trainings to open Server-Sent Events streams, e.g. a watch following a workout
+// that is edited on the phone. Open streams are async requests and hold no thread; a small pool writes the events.
+// Every subscriber has a bounded buffer: one that cannot keep up is closed and has to reload and reconnect.
+// A client that stops reading blocks its sender in the write until the container gives up on the connection; such
+// a subscriber is closed after send-timeout and a spare sender takes over its thread until the write returns.
+@Component
+public class LiveExecutionHub {
+
+	public record ExerciseChanged(Long exerciseId, Integer actualSets, Integer actualReps, Double actualWeightKg,
+			boolean done, String notes, int loggedSets, String etag) {
+	}
+
+	public record Completed(LocalDateTime completedAt, String etag) {
+	}
+
+	public record Cancelled() {
+	}
+
+	record Event(String name, Object data) {
+	}
+
+	private static final Event END = new Event(null, null);
+
+	// Subscriber.sendingSince when no send is running, and once the running send was given up on
+	private static final long IDLE = Long.MIN_VALUE;
+	private static final long STALLED = Long.MIN_VALUE + 1;
+
+	private final Map<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+	private final ThreadPoolExecutor senders;
+	private final Duration timeout;
+	private final long sendTimeout;
+	private final int bufferSize;
+	private final int maxSubscribers;
+	private final LongSupplier nanoClock;
+	private final Counter dropped;
+	private final Counter stalled;
+
+	@Autowired
+	public LiveExecutionHub(@Value("${app.executions.live.sender-threads:2}") int senderThreads,
+			@Value("${app.executions.live.timeout:PT30M}") Duration timeout,
+			@Value("${app.executions.live.send-timeout:PT10S}") Duration sendTimeout,
+			@Value("${app.executions.live.buffer-size:32}") int bufferSize,
+			@Value("${app.executions.live.max-subscribers:8}") int maxSubscribers, MeterRegistry meters) {
+		this(senderThreads, timeout, sendTimeout, bufferSize, maxSubscribers, meters, System::nanoTime);
+	}
+
+	LiveExecutionHub(int senderThreads, Duration timeout, Duration sendTimeout, int bufferSize, int maxSubscribers,
+			MeterRegistry meters, LongSupplier nanoClock) {
+		if (senderThreads < 1 || bufferSize < 1 || maxSubscribers < 1 || sendTimeout.isNegative()
+				|| sendTimeout.isZero()) {
+			throw new IllegalArgumentException("app.executions.live.sender-threads, send-timeout, buffer-size and "
+					+ "max-subscribers must be positive");
+		}
+		AtomicInteger counter = new AtomicInteger();
+		this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), r -> {
+					Thread t = new Thread(r, "live-execution-" + counter.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				});
+		this.timeout = timeout;
+		this.sendTimeout = sendTimeout.toNanos();
+		this.bufferSize = bufferSize;
+		this.maxSubscribers = maxSubscribers;
+		this.nanoClock = nanoClock;
+		this.dropped = Counter.builder("executions.live.dropped").register(meters);
+		this.stalled = Counter.builder("executions.live.stalled").register(meters);
+		meters.gaugeMapSize("executions.live.streams", List.of(), subscribers);
+	}
+
+	public SseEmitter subscribe(Long executionId, String etag) {
+		return subscribe(executionId, etag, new SseEmitter(timeout.toMillis()));
+	}
+
+	SseEmitter subscribe(Long executionId, String etag, SseEmitter emitter) {
+		Subscriber s = new Subscriber(executionId, emitter);
+
+		List<Subscriber> list = subscribers.compute(executionId, (id, current) -> {
+			List<Subscriber> l = current != null ? current : new CopyOnWriteArrayList<>();
+			if (l.size() < maxSubscribers)
+				l.add(s);
+			return l;
+		});
+		if (!list.contains(s)) {
+			throw new IllegalArgumentException("too many open streams for this training");
+		}
+
+		emitter.onCompletion(() -> remove(s));
+		emitter.onTimeout(() -> remove(s));
+		emitter.onError(e -> remove(s));
+
+		// lets a client tell whether it missed changes between its GET and the subscription
+		s.offer(new Event("ready", Map.of("etag", etag)));
+		return emitter;
+	}
+
+	// Deltas describe committed state only. The payload is built after commit, when the new versions are known.
+	public void publishAfterCommit(Long executionId, String name, Supplier<Object> payload) {
+		if (!subscribers.containsKey(executionId))
+			return;
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			publish(executionId, name, payload.get());
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				publish(executionId, name, payload.get());
+			}
+		});
+	}
+
+	void publish(Long executionId, String name, Object data) {
+		List<Subscriber> list = subscribers.get(executionId);
+		if (list == null)
+			return;
+
+		boolean last = data instanceof Completed || data instanceof Cancelled;
+		for (Subscriber s : list) {
+			s.offer(new Event(name, data));
+			if (last)
+				s.offer(END);
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${app.executions.live.heartbeat:PT15S}")
+	void heartbeat() {
+		for (List<Subscriber> list : subscribers.values()) {
+			for (Subscriber s : list) {
+				// proxies close idle connections; a comment is ignored by EventSource
+				s.offer(new Event(null, "ping"));
+			}
+		}
+	}
+
+	// The blocked sender cannot be freed from here, and the emitter cannot be completed either: the write holds its
+	// lock. The subscriber is dropped so nothing more is queued for it, and the pool grows by one thread until the
+	// write returns, so the other streams keep being served.
+	@Scheduled(fixedDelayString = "${app.executions.live.stall-check:PT2S}")
+	void closeStalled() {
+		long now = nanoClock.getAsLong();
+		for (List<Subscriber> list : subscribers.values()) {
+			for (Subscriber s : list) {
+				long since = s.sendingSince.get();
+				if (since != IDLE && since != STALLED && now - since > sendTimeout
+						&& s.sendingSince.compareAndSet(since, STALLED)) {
+					stalled.increment();
+					resizeSenders(1);
+					s.close();
+				}
+			}
+		}
+	}
+
+	private synchronized void resizeSenders(int delta) {
+		int size = senders.getMaximumPoolSize() + delta;
+		if (delta > 0) {
+			senders.setMaximumPoolSize(size);
+			senders.setCorePoolSize(size);
+		} else {
+			senders.setCorePoolSize(size);
+			senders.setMaximumPoolSize(size);
+		}
+	}
+
+	int subscriberCount(Long executionId) {
+		List<Subscriber> list = subscribers.get(executionId);
+		return list != null ? list.size() : 0;
+	}
+
+	private void remove(Subscriber s) {
+		subscribers.computeIfPresent(s.executionId, (id, list) -> {
+			list.remove(s);
+			return list.isEmpty() ? null : list;
+		});
+	}
+
+	@PreDestroy
+	void shutdown() {
+		senders.shutdownNow();
+		// a stream stuck in a write is left to the container, its emitter is locked
+		subscribers.values().forEach(list -> list.stream().filter(s -> s.sendingSince.get() == IDLE)
+				.forEach(s -> s.emitter.complete()));
+		subscribers.clear();
+	}
+
+	private final class Subscriber {
+
+		final Long executionId;
+		final SseEmitter emitter;
+		final Queue<Event> buffer = new ArrayBlockingQueue<>(bufferSize);
+		final AtomicBoolean scheduled = new AtomicBoolean();
+		final AtomicLong sendingSince = new AtomicLong(IDLE);
+		volatile boolean closed;
+		// only touched by the drain
+		boolean finished;
+
+		Subscriber(Long executionId, SseEmitter emitter) {
+			this.executionId = executionId;
+			this.emitter = emitter;
+		}
+
+		void offer(Event event) {
+			if (closed)
+				return;
+			if (!buffer.offer(event)) {
+				dropped.increment();
+				close();
+				return;
+			}
+			if (scheduled.compareAndSet(false, true))
+				senders.execute(this::drain);
+		}
+
+		// At most one drain per subscriber runs at a time, so events keep their order. Only the drain touches the
+		// emitter, so a write that hangs never blocks the thread publishing or closing.
+		private void drain() {
+			try {
+				Event e;
+				while (!closed && (e = buffer.poll()) != null) {
+					if (e == END) {
+						close();
+					} else {
+						send(e);
+					}
+				}
+				if (closed && !finished) {
+					finished = true;
+					emitter.complete();
+				}
+			} finally {
+				scheduled.set(false);
+			}
+			if ((closed ? !finished : !buffer.isEmpty()) && scheduled.compareAndSet(false, true))
+				senders.execute(this::drain);
+		}
+
+		private void send(Event e) {
+			sendingSince.set(nanoClock.getAsLong());
+			try {
+				if (e.name() == null) {
+					emitter.send(SseEmitter.event().comment((String) e.data()));
+				} else {
+					emitter.send(SseEmitter.event().name(e.name()).data(e.data()));
+				}
+			} catch (IOException | IllegalStateException ex) {
+				// the client went away; the container completes the request
+				finished = true;
+				close();
+			} finally {
+				if (sendingSince.getAndSet(IDLE) == STALLED)
+					resizeSenders(-1);
+			}
+		}
+
+		void close() {
+			if (closed)
+				return;
+			closed = true;
+			buffer.clear();
+			remove(this);
+			if (scheduled.compareAndSet(false, true))
+				senders.execute(this::drain);
+		}
+	}
+}
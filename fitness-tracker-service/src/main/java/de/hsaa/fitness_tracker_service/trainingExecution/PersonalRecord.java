@@ -0,0 +1,160 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+// Best values per user and exercise; a metric of 0 has not been achieved yet.
+@Entity
+@Table(name = "personal_records", uniqueConstraints = {
+		@UniqueConstraint(columnNames = { "user_id", "exercise_id" }) }, indexes = {
+				@Index(name = "idx_personal_records_user_weight_execution",
+						columnList = "user_id, max_weight_execution_id"),
+				@Index(name = "idx_personal_records_user_e1rm_execution",
+						columnList = "user_id, best_e1rm_execution_id"),
+				@Index(name = "idx_personal_records_user_volume_execution",
+						columnList = "user_id, best_volume_execution_id") })
+public class PersonalRecord {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "personal_records_seq")
+	@SequenceGenerator(name = "personal_records_seq", sequenceName = "personal_records_seq", allocationSize = 50)
+	private Long id;
+
+	@Column(name = "user_id", nullable = false, updatable = false)
+	private Long userId;
+
+	@Column(name = "exercise_id", nullable = false, updatable = false)
+	private Long exerciseId;
+
+	@Column(name = "max_weight_kg", nullable = false)
+	private double maxWeightKg;
+
+	@Column(name = "max_weight_at")
+	private LocalDateTime maxWeightAt;
+
+	@Column(name = "max_weight_execution_id")
+	private Long maxWeightExecutionId;
+
+	@Column(name = "best_e1rm_kg", nullable = false)
+	private double bestE1rmKg;
+
+	@Column(name = "best_e1rm_at")
+	private LocalDateTime bestE1rmAt;
+
+	@Column(name = "best_e1rm_execution_id")
+	private Long bestE1rmExecutionId;
+
+	@Column(name = "best_volume_kg", nullable = false)
+	private double bestVolumeKg;
+
+	@Column(name = "best_volume_at")
+	private LocalDateTime bestVolumeAt;
+
+	@Column(name = "best_volume_execution_id")
+	private Long bestVolumeExecutionId;
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public void setUserId(Long userId) {
+		this.userId = userId;
+	}
+
+	public Long getExerciseId() {
+		return exerciseId;
+	}
+
+	public void setExerciseId(Long exerciseId) {
+		this.exerciseId = exerciseId;
+	}
+
+	public double getMaxWeightKg() {
+		return maxWeightKg;
+	}
+
+	public void setMaxWeightKg(double maxWeightKg) {
+		this.maxWeightKg = maxWeightKg;
+	}
+
+	public LocalDateTime getMaxWeightAt() {
+		return maxWeightAt;
+	}
+
+	public void setMaxWeightAt(LocalDateTime maxWeightAt) {
+		this.maxWeightAt = maxWeightAt;
+	}
+
+	public Long getMaxWeightExecutionId() {
+		return maxWeightExecutionId;
+	}
+
+	public void setMaxWeightExecutionId(Long maxWeightExecutionId) {
+		this.maxWeightExecutionId = maxWeightExecutionId;
+	}
+
+	public double getBestE1rmKg() {
+		return bestE1rmKg;
+	}
+
+	public void setBestE1rmKg(double bestE1rmKg) {
+		this.bestE1rmKg = bestE1rmKg;
+	}
+
+	public LocalDateTime getBestE1rmAt() {
+		return bestE1rmAt;
+	}
+
+	public void setBestE1rmAt(LocalDateTime bestE1rmAt) {
+		this.bestE1rmAt = bestE1rmAt;
+	}
+
+	public Long getBestE1rmExecutionId() {
+		return bestE1rmExecutionId;
+	}
+
+	public void setBestE1rmExecutionId(Long bestE1rmExecutionId) {
+		this.bestE1rmExecutionId = bestE1rmExecutionId;
+	}
+
+	public double getBestVolumeKg() {
+		return bestVolumeKg;
+	}
+
+	public void setBestVolumeKg(double bestVolumeKg) {
+		this.bestVolumeKg = bestVolumeKg;
+	}
+
+	public LocalDateTime getBestVolumeAt() {
+		return bestVolumeAt;
+	}
+
+	public void setBestVolumeAt(LocalDateTime bestVolumeAt) {
+		this.bestVolumeAt = bestVolumeAt;
+	}
+
+	public Long getBestVolumeExecutionId() {
+		return bestVolumeExecutionId;
+	}
+
+	public void setBestVolumeExecutionId(Long bestVolumeExecutionId) {
+		this.bestVolumeExecutionId = bestVolumeExecutionId;
+	}
+}
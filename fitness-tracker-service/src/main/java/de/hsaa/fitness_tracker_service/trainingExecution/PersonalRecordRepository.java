@@ -0,0 +1,39 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+
+public interface PersonalRecordRepository extends JpaRepository<PersonalRecord, Long> {
+
+	Optional<PersonalRecord> findByUserIdAndExerciseId(Long userId, Long exerciseId);
+
+	List<PersonalRecord> findByUserIdOrderByExerciseId(Long userId);
+
+	@Query("""
+			    select pr from PersonalRecord pr
+			    where pr.userId = :userId
+			      and (pr.maxWeightExecutionId = :executionId
+			           or pr.bestE1rmExecutionId = :executionId
+			           or pr.bestVolumeExecutionId = :executionId)
+			    order by pr.exerciseId
+			""")
+	List<PersonalRecord> findSetInExecution(@Param("userId") Long userId, @Param("executionId") Long executionId);
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select pr from PersonalRecord pr where pr.userId = :userId and pr.exerciseId in :exerciseIds")
+	List<PersonalRecord> findForUpdate(@Param("userId") Long userId,
+			@Param("exerciseIds") Collection<Long> exerciseIds);
+
+	@Modifying
+	@Query("delete from PersonalRecord pr where pr.userId = :userId")
+	void deleteByUser(@Param("userId") Long userId);
+}
@@ -0,0 +1,296 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import de.hsaa.fitness_tracker_service.outbox.OutboxEvent;
+import de.hsaa.fitness_tracker_service.outbox.OutboxListener;
+import jakarta.persistence.EntityNotFoundException;
+
+// Keeps one PersonalRecord row per user and exercise up to date as executed exercises change. An exercise counts
+// once it is marked done or its training is completed. Changes arrive as outbox events after they are committed.
+@Service
+@Transactional
+public class PersonalRecordService implements OutboxListener {
+
+	public enum Metric {
+		MAX_WEIGHT, BEST_E1RM, BEST_VOLUME
+	}
+
+	public record NewRecord(Long exerciseId, Metric metric, double valueKg, LocalDateTime achievedAt) {
+	}
+
+	// weight and estimated 1RM of the best set, volume summed over all sets
+	record Metrics(double weightKg, double e1rmKg, double volumeKg) {
+
+		static final Metrics NONE = new Metrics(0, 0, 0);
+
+		static Metrics of(ExecutedExercise ee) {
+			byte[] log = ee.getSetLog();
+			int sets = SetLog.count(log);
+			if (sets == 0) {
+				int reps = ee.getActualReps() != null ? ee.getActualReps() : 0;
+				double weight = ee.getActualWeightKg() != null ? ee.getActualWeightKg() : 0;
+				int count = ee.getActualSets() != null ? ee.getActualSets() : 0;
+				if (count == 0 || reps == 0)
+					return NONE;
+				return new Metrics(round(weight), round(e1rm(weight, reps)), round(count * reps * weight));
+			}
+
+			double weight = 0;
+			double e1rm = 0;
+			double volume = 0;
+			for (int i = 0; i < sets; i++) {
+				int reps = SetLog.reps(log, i);
+				if (reps == 0)
+					continue;
+				double w = SetLog.weightKg(log, i);
+				weight = Math.max(weight, w);
+				e1rm = Math.max(e1rm, e1rm(w, reps));
+				volume += reps * w;
+			}
+			return new Metrics(round(weight), round(e1rm), round(volume));
+		}
+
+		// Epley; a single rep is its own 1RM
+		static double e1rm(double weightKg, int reps) {
+			return reps == 1 ? weightKg : weightKg * (1 + reps / 30.0);
+		}
+
+		private static double round(double kg) {
+			return Math.round(kg * 100) / 100.0;
+		}
+	}
+
+	private final PersonalRecordRepository repo;
+	private final ExecutedExerciseRepository executedRepo;
+	private final TrainingExecutionRepository executionRepo;
+
+	public PersonalRecordService(PersonalRecordRepository repo, ExecutedExerciseRepository executedRepo,
+			TrainingExecutionRepository executionRepo) {
+		this.repo = repo;
+		this.executedRepo = executedRepo;
+		this.executionRepo = executionRepo;
+	}
+
+	@Override
+	public String name() {
+		return "personal-records";
+	}
+
+	@Override
+	public Set<OutboxEvent.Type> types() {
+		return EnumSet.of(OutboxEvent.Type.TRAINING_COMPLETED, OutboxEvent.Type.TRAINING_CANCELLED,
+				OutboxEvent.Type.EXECUTED_EXERCISE_UPDATED);
+	}
+
+	// reads the current state, so replaying an event changes nothing
+	@Override
+	public void handle(List<OutboxEvent> events) {
+		for (OutboxEvent e : events) {
+			switch (e.getType()) {
+			case TRAINING_COMPLETED -> executionRepo
+					.findWithExercisesByIdAndUserId(e.getExecutionId(), e.getUserId())
+					.ifPresent(te -> record(e.getUserId(), te.getExecutedExercises(), te.getCompletedAt()));
+			case EXECUTED_EXERCISE_UPDATED -> executedRepo
+					.findOwned(e.getExecutionId(), e.getExerciseId(), e.getUserId())
+					.ifPresent(ee -> record(e.getUserId(), List.of(ee), e.getOccurredAt()));
+			// the deleted training may still hold records
+			case TRAINING_CANCELLED -> rebuild(e.getUserId(), repo.findSetInExecution(e.getUserId(),
+					e.getExecutionId()).stream().map(PersonalRecord::getExerciseId).toList());
+			}
+		}
+	}
+
+	@Transactional(readOnly = true)
+	public List<PersonalRecord> list(Long userId) {
+		requireAuthenticated(userId);
+		return repo.findByUserIdOrderByExerciseId(userId);
+	}
+
+	@Transactional(readOnly = true)
+	public PersonalRecord get(Long userId, Long exerciseId) {
+		requireAuthenticated(userId);
+		return repo.findByUserIdAndExerciseId(userId, exerciseId)
+				.orElseThrow(() -> new EntityNotFoundException("no personal record for this exercise"));
+	}
+
+	@Transactional(readOnly = true)
+	public List<NewRecord> setInExecution(Long userId, Long executionId) {
+		requireAuthenticated(userId);
+
+		List<NewRecord> result = new ArrayList<>();
+		for (PersonalRecord pr : repo.findSetInExecution(userId, executionId)) {
+			if (executionId.equals(pr.getMaxWeightExecutionId()))
+				result.add(new NewRecord(pr.getExerciseId(), Metric.MAX_WEIGHT, pr.getMaxWeightKg(),
+						pr.getMaxWeightAt()));
+			if (executionId.equals(pr.getBestE1rmExecutionId()))
+				result.add(new NewRecord(pr.getExerciseId(), Metric.BEST_E1RM, pr.getBestE1rmKg(),
+						pr.getBestE1rmAt()));
+			if (executionId.equals(pr.getBestVolumeExecutionId()))
+				result.add(new NewRecord(pr.getExerciseId(), Metric.BEST_VOLUME, pr.getBestVolumeKg(),
+						pr.getBestVolumeAt()));
+		}
+		return result;
+	}
+
+	// called with the executed exercises whose values just changed; only their own rows are touched
+	public void record(Long userId, Collection<ExecutedExercise> changed, LocalDateTime at) {
+		Map<Long, ExecutedExercise> byExercise = new HashMap<>();
+		for (ExecutedExercise ee : changed) {
+			if (ee.getExercise() != null)
+				byExercise.put(ee.getExercise().getId(), ee);
+		}
+		if (byExercise.isEmpty())
+			return;
+
+		Map<Long, PersonalRecord> stored = new HashMap<>();
+		for (PersonalRecord pr : repo.findForUpdate(userId, byExercise.keySet())) {
+			stored.put(pr.getExerciseId(), pr);
+		}
+
+		Set<Long> stale = new HashSet<>();
+		for (var e : byExercise.entrySet()) {
+			ExecutedExercise ee = e.getValue();
+			Long executionId = ee.getTrainingExecution().getId();
+			Metrics m = counts(ee) ? Metrics.of(ee) : Metrics.NONE;
+
+			PersonalRecord pr = stored.get(e.getKey());
+			if (pr == null) {
+				if (m.equals(Metrics.NONE))
+					continue;
+				pr = new PersonalRecord();
+				pr.setUserId(userId);
+				pr.setExerciseId(e.getKey());
+				raise(pr, m, executionId, at);
+				repo.save(pr);
+				continue;
+			}
+
+			// the value that set a record was edited down: the previous best has to be found again
+			if (lowersOwnRecord(pr, m, executionId)) {
+				stale.add(e.getKey());
+				continue;
+			}
+			raise(pr, m, executionId, at);
+		}
+
+		if (!stale.isEmpty()) {
+			rebuild(userId, stale);
+		}
+	}
+
+	// slow path: recomputes the given exercises from the user's history
+	public void rebuild(Long userId, Collection<Long> exerciseIds) {
+		if (exerciseIds.isEmpty())
+			return;
+
+		Map<Long, PersonalRecord> stored = new HashMap<>();
+		for (PersonalRecord pr : repo.findForUpdate(userId, exerciseIds)) {
+			clear(pr);
+			stored.put(pr.getExerciseId(), pr);
+		}
+
+		Map<Long, PersonalRecord> rebuilt = new HashMap<>(stored);
+		for (ExecutedExercise ee : executedRepo.findRecordCandidates(userId, exerciseIds,
+				TrainingExecution.Status.COMPLETED)) {
+			accumulate(userId, rebuilt, ee);
+		}
+
+		for (PersonalRecord pr : rebuilt.values()) {
+			if (pr.getMaxWeightExecutionId() == null && pr.getBestE1rmExecutionId() == null
+					&& pr.getBestVolumeExecutionId() == null) {
+				if (pr.getId() != null)
+					repo.delete(pr);
+			} else if (pr.getId() == null) {
+				repo.save(pr);
+			}
+		}
+	}
+
+	public void refresh(Long userId) {
+		requireAuthenticated(userId);
+
+		repo.deleteByUser(userId);
+		Map<Long, PersonalRecord> rebuilt = new HashMap<>();
+		try (Stream<ExecutedExercise> rows = executedRepo.streamRecordCandidates(userId,
+				TrainingExecution.Status.COMPLETED)) {
+			rows.forEach(ee -> accumulate(userId, rebuilt, ee));
+		}
+		repo.saveAll(rebuilt.values());
+	}
+
+	private static void accumulate(Long userId, Map<Long, PersonalRecord> records, ExecutedExercise ee) {
+		Metrics m = Metrics.of(ee);
+		if (m.equals(Metrics.NONE))
+			return;
+
+		TrainingExecution te = ee.getTrainingExecution();
+		PersonalRecord pr = records.computeIfAbsent(ee.getExercise().getId(), id -> {
+			PersonalRecord created = new PersonalRecord();
+			created.setUserId(userId);
+			created.setExerciseId(id);
+			return created;
+		});
+		raise(pr, m, te.getId(), te.getCompletedAt() != null ? te.getCompletedAt() : te.getStartedAt());
+	}
+
+	private static boolean counts(ExecutedExercise ee) {
+		return ee.isDone() || ee.getTrainingExecution().getStatus() == TrainingExecution.Status.COMPLETED;
+	}
+
+	private static boolean lowersOwnRecord(PersonalRecord pr, Metrics m, Long executionId) {
+		return executionId.equals(pr.getMaxWeightExecutionId()) && m.weightKg() < pr.getMaxWeightKg()
+				|| executionId.equals(pr.getBestE1rmExecutionId()) && m.e1rmKg() < pr.getBestE1rmKg()
+				|| executionId.equals(pr.getBestVolumeExecutionId()) && m.volumeKg() < pr.getBestVolumeKg();
+	}
+
+	// ties keep the earlier record
+	private static void raise(PersonalRecord pr, Metrics m, Long executionId, LocalDateTime at) {
+		if (m.weightKg() > pr.getMaxWeightKg()) {
+			pr.setMaxWeightKg(m.weightKg());
+			pr.setMaxWeightAt(at);
+			pr.setMaxWeightExecutionId(executionId);
+		}
+		if (m.e1rmKg() > pr.getBestE1rmKg()) {
+			pr.setBestE1rmKg(m.e1rmKg());
+			pr.setBestE1rmAt(at);
+			pr.setBestE1rmExecutionId(executionId);
+		}
+		if (m.volumeKg() > pr.getBestVolumeKg()) {
+			pr.setBestVolumeKg(m.volumeKg());
+			pr.setBestVolumeAt(at);
+			pr.setBestVolumeExecutionId(executionId);
+		}
+	}
+
+	private static void clear(PersonalRecord pr) {
+		pr.setMaxWeightKg(0);
+		pr.setMaxWeightAt(null);
+		pr.setMaxWeightExecutionId(null);
+		pr.setBestE1rmKg(0);
+		pr.setBestE1rmAt(null);
+		pr.setBestE1rmExecutionId(null);
+		pr.setBestVolumeKg(0);
+		pr.setBestVolumeAt(null);
+		pr.setBestVolumeExecutionId(null);
+	}
+
+	private static void requireAuthenticated(Long userId) {
+		if (userId == null) {
+			throw new AccessDeniedException("Not authenticated");
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Arrays;
+
+// Packed per-set log of an ExecutedExercise, one fixed 12-byte record per set:
+// reps (u16) | weight in 10 g steps (i32) | RPE x10, 0 = none (u8) | reserved (u8) | logged at, epoch seconds (u32).
+// Readers index straight into the bytes, so decoding does not create an object per set.
+public final class SetLog {
+
+	public static final int RECORD_SIZE = 12;
+	public static final int MAX_SETS = 255;
+	public static final int MAX_REPS = 0xFFFF;
+
+	private SetLog() {
+	}
+
+	public static int count(byte[] log) {
+		return log == null ? 0 : log.length / RECORD_SIZE;
+	}
+
+	public static byte[] append(byte[] log, int reps, double weightKg, Double rpe, Instant loggedAt) {
+		int n = count(log);
+		if (n >= MAX_SETS)
+			throw new IllegalArgumentException("at most " + MAX_SETS + " sets per exercise");
+		if (reps < 0 || reps > MAX_REPS)
+			throw new IllegalArgumentException("reps must be between 0 and " + MAX_REPS);
+		if (weightKg < 0 || weightKg * 100 > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("weightKg out of range");
+		if (rpe != null && (rpe < 1 || rpe > 10))
+			throw new IllegalArgumentException("rpe must be between 1 and 10");
+
+		byte[] grown = log == null ? new byte[RECORD_SIZE] : Arrays.copyOf(log, (n + 1) * RECORD_SIZE);
+		ByteBuffer.wrap(grown, n * RECORD_SIZE, RECORD_SIZE).putShort((short) reps)
+				.putInt((int) Math.round(weightKg * 100)).put((byte) (rpe == null ? 0 : Math.round(rpe * 10)))
+				.put((byte) 0).putInt((int) loggedAt.getEpochSecond());
+		return grown;
+	}
+
+	public record Columns(int[] reps, double[] weightKg, double[] rpe, long[] loggedAtEpochSecond) {
+	}
+
+	// one pass into parallel arrays: four allocations regardless of the number of sets
+	public static Columns columns(byte[] log) {
+		int n = count(log);
+		Columns c = new Columns(new int[n], new double[n], new double[n], new long[n]);
+		for (int i = 0; i < n; i++) {
+			c.reps()[i] = reps(log, i);
+			c.weightKg()[i] = weightKg(log, i);
+			c.rpe()[i] = rpe(log, i);
+			c.loggedAtEpochSecond()[i] = loggedAtEpochSecond(log, i);
+		}
+		return c;
+	}
+
+	public static int reps(byte[] log, int i) {
+		int p = i * RECORD_SIZE;
+		return (log[p] & 0xFF) << 8 | log[p + 1] & 0xFF;
+	}
+
+	public static double weightKg(byte[] log, int i) {
+		return readInt(log, i * RECORD_SIZE + 2) / 100.0;
+	}
+
+	// 0 when the set was logged without RPE
+	public static double rpe(byte[] log, int i) {
+		return (log[i * RECORD_SIZE + 6] & 0xFF) / 10.0;
+	}
+
+	public static long loggedAtEpochSecond(byte[] log, int i) {
+		return readInt(log, i * RECORD_SIZE + 8) & 0xFFFFFFFFL;
+	}
+
+	private static int readInt(byte[] b, int p) {
+		return (b[p] & 0xFF) << 24 | (b[p + 1] & 0xFF) << 16 | (b[p + 2] & 0xFF) << 8 | b[p + 3] & 0xFF;
+	}
+}
@@ -0,0 +1,30 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+// An If-Match header did not match; carries the current state so the client can merge without another GET.
+public class StaleVersionException extends RuntimeException {
+
+	private final transient Object current;
+	private final String etag;
+
+	public StaleVersionException(TrainingExecution current) {
+		this((Object) current, ETags.of(current));
+	}
+
+	public StaleVersionException(ExecutedExercise current) {
+		this((Object) current, ETags.of(current));
+	}
+
+	private StaleVersionException(Object current, String etag) {
+		super("resource was modified, current version is " + etag);
+		this.current = current;
+		this.etag = etag;
+	}
+
+	public Object getCurrent() {
+		return current;
+	}
+
+	public String getEtag() {
+		return etag;
+	}
+}
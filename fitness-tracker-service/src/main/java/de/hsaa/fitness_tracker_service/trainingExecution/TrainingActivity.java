@@ -0,0 +1,45 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "training_activity")
+public class TrainingActivity {
+
+	@Id
+	@Column(name = "user_id")
+	private Long userId;
+
+	@Column(name = "base_day", nullable = false)
+	private long baseDay;
+
+	@Column(name = "words", nullable = false, length = ActivityBitmap.MAX_WORDS * Long.BYTES)
+	private byte[] words;
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public void setUserId(Long userId) {
+		this.userId = userId;
+	}
+
+	public long getBaseDay() {
+		return baseDay;
+	}
+
+	public void setBaseDay(long baseDay) {
+		this.baseDay = baseDay;
+	}
+
+	public byte[] getWords() {
+		return words;
+	}
+
+	public void setWords(byte[] words) {
+		this.words = words;
+	}
+}
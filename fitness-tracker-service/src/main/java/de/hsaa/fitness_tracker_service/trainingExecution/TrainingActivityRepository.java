@@ -0,0 +1,17 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+
+public interface TrainingActivityRepository extends JpaRepository<TrainingActivity, Long> {
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select a from TrainingActivity a where a.userId = :userId")
+	Optional<TrainingActivity> findForUpdate(@Param("userId") Long userId);
+}
@@ -0,0 +1,116 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Service
+@Transactional
+public class TrainingActivityService {
+
+	private final TrainingActivityRepository repo;
+	private final TrainingExecutionRepository executionRepo;
+	private final Map<Long, ActivityBitmap> cache;
+
+	public TrainingActivityService(TrainingActivityRepository repo, TrainingExecutionRepository executionRepo,
+			@Value("${app.stats.activity-cache.max-users:10000}") int maxUsers) {
+		this.repo = repo;
+		this.executionRepo = executionRepo;
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, ActivityBitmap> eldest) {
+				return size() > maxUsers;
+			}
+		};
+	}
+
+	@Transactional(readOnly = true)
+	public ActivityBitmap get(Long userId) {
+		synchronized (cache) {
+			ActivityBitmap cached = cache.get(userId);
+			if (cached != null)
+				return cached;
+		}
+
+		ActivityBitmap bitmap = repo.findById(userId).map(TrainingActivityService::toBitmap)
+				.orElseGet(() -> rebuild(userId));
+		synchronized (cache) {
+			cache.putIfAbsent(userId, bitmap);
+		}
+		return bitmap;
+	}
+
+	public void recordTrainingDay(Long userId, LocalDate day) {
+		TrainingActivity row = repo.findForUpdate(userId).orElse(null);
+		ActivityBitmap current = row != null ? toBitmap(row) : rebuild(userId);
+		ActivityBitmap updated = current.with(day);
+		if (row != null && updated == current)
+			return;
+
+		if (row == null) {
+			row = new TrainingActivity();
+			row.setUserId(userId);
+		}
+		row.setBaseDay(updated.baseDay());
+		row.setWords(updated.toBytes());
+		repo.save(row);
+
+		publish(userId, updated);
+	}
+
+	public void refresh(Long userId) {
+		TrainingActivity row = repo.findForUpdate(userId).orElse(null);
+		if (row == null) {
+			row = new TrainingActivity();
+			row.setUserId(userId);
+		}
+
+		ActivityBitmap bitmap = rebuild(userId);
+		row.setBaseDay(bitmap.baseDay());
+		row.setWords(bitmap.toBytes());
+		repo.save(row);
+
+		publish(userId, bitmap);
+	}
+
+	// one-time walk over the history for users that have no activity row yet
+	private ActivityBitmap rebuild(Long userId) {
+		ActivityBitmap bitmap = ActivityBitmap.EMPTY;
+		for (LocalDate day : executionRepo.findCompletedDays(userId, TrainingExecution.Status.COMPLETED)) {
+			bitmap = bitmap.with(day);
+		}
+		return bitmap;
+	}
+
+	// the cache only sees committed state
+	private void publish(Long userId, ActivityBitmap bitmap) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			synchronized (cache) {
+				cache.put(userId, bitmap);
+			}
+			return;
+		}
+
+		synchronized (cache) {
+			cache.remove(userId);
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				synchronized (cache) {
+					cache.put(userId, bitmap);
+				}
+			}
+		});
+	}
+
+	private static ActivityBitmap toBitmap(TrainingActivity row) {
+		return ActivityBitmap.fromBytes(row.getBaseDay(), row.getWords());
+	}
+}
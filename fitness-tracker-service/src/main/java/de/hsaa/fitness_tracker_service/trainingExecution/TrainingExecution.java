@@ -15,17 +15,27 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
-@Table(name = "training_executions")
+@Table(name = "training_executions", indexes = {
+		@Index(name = "idx_training_executions_user_id", columnList = "user_id, id"),
+		@Index(name = "idx_training_executions_user_started", columnList = "user_id, started_at, id"),
+		@Index(name = "idx_training_executions_status_started", columnList = "status, started_at"),
+		@Index(name = "idx_training_executions_effective_session",
+				columnList = "effective_session_id, user_id, started_at, id") })
 public class TrainingExecution {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "training_executions_seq")
+	@SequenceGenerator(name = "training_executions_seq", sequenceName = "training_executions_seq", allocationSize = 50)
 	private Long id;
 
 	@ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -39,6 +49,11 @@ public class TrainingExecution {
 	@Column(name = "session_id_snapshot")
 	private Long sessionIdSnapshot;
 
+	// the session this training belongs to, whether or not the session still exists; one indexed column instead of
+	// "session_id = ? or (session_id is null and session_id_snapshot = ?)"
+	@Column(name = "effective_session_id", updatable = false)
+	private Long effectiveSessionId;
+
 	@Column(name = "session_name_snapshot")
 	private String sessionNameSnapshot;
 
@@ -55,9 +70,17 @@ public class TrainingExecution {
 	@Column(name = "completed_at")
 	private LocalDateTime completedAt;
 
+	// set once the training is counted in the volume rollups; only written by bulk updates
+	@Column(name = "rolled_up", nullable = false, updatable = false)
+	private boolean rolledUp;
+
 	@OneToMany(mappedBy = "trainingExecution", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
 	private List<ExecutedExercise> executedExercises = new ArrayList<>();
 
+	@Version
+	@Column(nullable = false)
+	private long version;
+
 	public enum Status {
 		IN_PROGRESS, COMPLETED
 	}
@@ -96,6 +119,20 @@ public class TrainingExecution {
 		this.sessionIdSnapshot = sessionIdSnapshot;
 	}
 
+	public Long getEffectiveSessionId() {
+		return effectiveSessionId;
+	}
+
+	public void setEffectiveSessionId(Long effectiveSessionId) {
+		this.effectiveSessionId = effectiveSessionId;
+	}
+
+	@PrePersist
+	void fillEffectiveSessionId() {
+		if (effectiveSessionId == null)
+			effectiveSessionId = session != null ? session.getId() : sessionIdSnapshot;
+	}
+
 	public String getSessionNameSnapshot() {
 		return sessionNameSnapshot;
 	}
@@ -143,4 +180,12 @@ public class TrainingExecution {
 	public void setExecutedExercises(List<ExecutedExercise> executedExercises) {
 		this.executedExercises = executedExercises;
 	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
 }
@@ -1,35 +1,67 @@
 package de.hsaa.fitness_tracker_service.trainingExecution;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import de.hsaa.fitness_tracker_service.security.AuthenticatedUser;
+import de.hsaa.fitness_tracker_service.security.CurrentUser;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 @RestController
 @RequestMapping("/api/v1/training-executions")
 public class TrainingExecutionController {
 
 	private final TrainingExecutionService service;
+	private final TrainingActivityService activity;
+	private final TrainingExportService exporter;
+	private final TrainingImportService importer;
+	private final PersonalRecordService records;
+	private final VolumeRollupService rollups;
 
-	public TrainingExecutionController(TrainingExecutionService service) {
+	public TrainingExecutionController(TrainingExecutionService service, TrainingActivityService activity,
+			TrainingExportService exporter, TrainingImportService importer, PersonalRecordService records,
+			VolumeRollupService rollups) {
 		this.service = service;
+		this.activity = activity;
+		this.exporter = exporter;
+		this.importer = importer;
+		this.records = records;
+		this.rollups = rollups;
 	}
 
 	public record StartTrainingRequest(@NotNull Long sessionId) {
@@ -39,6 +71,23 @@ public class TrainingExecutionController {
 			@NotNull @Min(0) Integer actualReps, @NotNull @Min(0) Double actualWeightKg, boolean done, String notes) {
 	}
 
+	public record BatchUpdateExecutedExercisesRequest(
+			@NotEmpty @Size(max = 100) List<@Valid @NotNull UpdateExecutedExerciseRequest> updates, boolean complete) {
+	}
+
+	public record UpdateExerciseValuesRequest(@NotNull @Min(0) Integer actualSets, @NotNull @Min(0) Integer actualReps,
+			@NotNull @Min(0) Double actualWeightKg, boolean done, String notes) {
+	}
+
+	public record LogSetRequest(@NotNull @Min(0) @Max(SetLog.MAX_REPS) Integer reps, @NotNull @Min(0) Double weightKg,
+			@DecimalMin("1.0") @DecimalMax("10.0") Double rpe) {
+	}
+
+	// columnar: index i of every array describes set i; rpe 0 = not recorded
+	public record SetLogResponse(Long executedExerciseId, Long exerciseId, int sets, int[] reps, double[] weightKg,
+			double[] rpe, long[] loggedAtEpochSecond) {
+	}
+
 	public record ExecutedExerciseResponse(Long id, Long exerciseId, String exerciseName, String exerciseCategory,
 			Integer plannedSets, Integer plannedReps, Double plannedWeightKg, Integer actualSets, Integer actualReps,
 			Double actualWeightKg, boolean done, String notes) {
@@ -48,7 +97,51 @@ public class TrainingExecutionController {
 			LocalDateTime startedAt, LocalDateTime completedAt, List<ExecutedExerciseResponse> executedExercises) {
 	}
 
-	public record StreakResponse(int streakDays, LocalDate lastTrainingDay) {
+	public record TrainingExecutionSummaryResponse(Long id, Long sessionId, String sessionName, String planName,
+			String status, LocalDateTime startedAt, LocalDateTime completedAt, long exerciseCount, long doneCount,
+			double completionRatio) {
+	}
+
+	public record HistoryPageResponse(List<TrainingExecutionSummaryResponse> items, String nextCursor) {
+	}
+
+	public record ImportErrorResponse(long line, String message) {
+	}
+
+	public record ImportReportResponse(long recordsRead, int executionsImported, int exercisesImported,
+			int executionsRejected, int chunksCommitted, List<ImportErrorResponse> errors) {
+	}
+
+	public record StreakResponse(int streakDays, LocalDate lastTrainingDay, int longestStreakDays) {
+	}
+
+	public record CalendarResponse(LocalDate from, LocalDate to, List<LocalDate> activeDays) {
+	}
+
+	public record MonthActivityResponse(int month, int activeDays) {
+	}
+
+	public record ActiveDaysResponse(int year, int activeDays, List<MonthActivityResponse> months) {
+	}
+
+	public record ActivitySummaryResponse(int activeDays, int currentStreakDays, int longestStreakDays,
+			LocalDate firstTrainingDay, LocalDate lastTrainingDay) {
+	}
+
+	public record PersonalRecordResponse(Long exerciseId, double maxWeightKg, LocalDateTime maxWeightAt,
+			Long maxWeightExecutionId, double bestE1rmKg, LocalDateTime bestE1rmAt, Long bestE1rmExecutionId,
+			double bestVolumeKg, LocalDateTime bestVolumeAt, Long bestVolumeExecutionId) {
+	}
+
+	public record NewPersonalRecordResponse(Long exerciseId, String metric, double valueKg,
+			LocalDateTime achievedAt) {
+	}
+
+	public record VolumePointResponse(LocalDate periodStart, double tonnageKg, int sets, long reps, int sessions) {
+	}
+
+	public record VolumeResponse(String period, String dimension, String key, LocalDate from, LocalDate to,
+			List<VolumePointResponse> points) {
 	}
 
 	private static TrainingExecutionResponse toDto(TrainingExecution te) {
@@ -80,49 +173,247 @@ public class TrainingExecutionController {
 				e.isDone(), e.getNotes());
 	}
 
+	private static TrainingExecutionSummaryResponse toDto(TrainingExecutionSummary s) {
+		return new TrainingExecutionSummaryResponse(s.id(), s.sessionId(), s.sessionName(), s.planName(),
+				s.status() != null ? s.status().name() : null, s.startedAt(), s.completedAt(), s.exerciseCount(),
+				s.doneCount(), s.completionRatio());
+	}
+
+	private static PersonalRecordResponse toDto(PersonalRecord pr) {
+		return new PersonalRecordResponse(pr.getExerciseId(), pr.getMaxWeightKg(), pr.getMaxWeightAt(),
+				pr.getMaxWeightExecutionId(), pr.getBestE1rmKg(), pr.getBestE1rmAt(), pr.getBestE1rmExecutionId(),
+				pr.getBestVolumeKg(), pr.getBestVolumeAt(), pr.getBestVolumeExecutionId());
+	}
+
+	private static SetLogResponse toSetLogDto(ExecutedExercise e) {
+		SetLog.Columns c = SetLog.columns(e.getSetLog());
+		return new SetLogResponse(e.getId(), e.getExercise() != null ? e.getExercise().getId() : null,
+				c.reps().length, c.reps(), c.weightKg(), c.rpe(), c.loggedAtEpochSecond());
+	}
+
+	// versions are bumped on commit, so the tags are read after the service call has returned
+	private static ResponseEntity<TrainingExecutionResponse> withETag(TrainingExecution te) {
+		return ResponseEntity.ok().eTag(ETags.of(te)).body(toDto(te));
+	}
+
+	@ExceptionHandler(StaleVersionException.class)
+	public ResponseEntity<Object> handleStaleVersion(StaleVersionException ex) {
+		Object current = ex.getCurrent() instanceof TrainingExecution te ? toDto(te)
+				: toDto((ExecutedExercise) ex.getCurrent());
+		return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(ex.getEtag()).body(current);
+	}
+
 	@PostMapping
-	public ResponseEntity<TrainingExecutionResponse> start(@Valid @RequestBody StartTrainingRequest body,
-			UriComponentsBuilder uri) {
-		var saved = service.start(body.sessionId());
+	public ResponseEntity<TrainingExecutionResponse> start(@CurrentUser AuthenticatedUser me,
+			@Valid @RequestBody StartTrainingRequest body, UriComponentsBuilder uri) {
+		var saved = service.start(me.getId(), body.sessionId());
 		var location = uri.path("/api/v1/training-executions/{id}").buildAndExpand(saved.getId()).toUri();
-		return ResponseEntity.created(location).body(toDto(saved));
+		return ResponseEntity.created(location).eTag(ETags.of(saved)).body(toDto(saved));
 	}
 
 	@GetMapping("/{id}")
-	public TrainingExecutionResponse get(@PathVariable Long id) {
-		return toDto(service.get(id));
+	public ResponseEntity<TrainingExecutionResponse> get(@CurrentUser AuthenticatedUser me, @PathVariable Long id) {
+		return withETag(service.get(me.getId(), id));
+	}
+
+	// closes after the training is completed or cancelled
+	@GetMapping(path = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter events(@CurrentUser AuthenticatedUser me, @PathVariable Long id) {
+		return service.follow(me.getId(), id);
 	}
 
 	@PutMapping("/{id}/exercises")
-	public TrainingExecutionResponse upsertExercise(@PathVariable Long id,
+	public ResponseEntity<TrainingExecutionResponse> upsertExercise(@CurrentUser AuthenticatedUser me,
+			@PathVariable Long id, @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
 			@Valid @RequestBody UpdateExecutedExerciseRequest body) {
-		return toDto(service.upsertExecutedExercise(id, body.exerciseId(), body.actualSets(), body.actualReps(),
-				body.actualWeightKg(), body.done(), body.notes()));
+		return withETag(service.upsertExecutedExercise(me.getId(), id, body.exerciseId(), body.actualSets(),
+				body.actualReps(), body.actualWeightKg(), body.done(), body.notes(), ifMatch));
+	}
+
+	@PutMapping("/{id}/exercises/{exerciseId}")
+	public ResponseEntity<ExecutedExerciseResponse> updateExercise(@CurrentUser AuthenticatedUser me,
+			@PathVariable Long id, @PathVariable Long exerciseId,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@Valid @RequestBody UpdateExerciseValuesRequest body) {
+		var updated = service.updateExecutedExercise(me.getId(), id, exerciseId, body.actualSets(),
+				body.actualReps(), body.actualWeightKg(), body.done(), body.notes(), ifMatch);
+		return ResponseEntity.ok().eTag(ETags.of(updated)).body(toDto(updated));
+	}
+
+	@PostMapping("/{id}/exercises/{exerciseId}/sets")
+	public ResponseEntity<SetLogResponse> logSet(@CurrentUser AuthenticatedUser me, @PathVariable Long id,
+			@PathVariable Long exerciseId, @Valid @RequestBody LogSetRequest body) {
+		var updated = service.logSet(me.getId(), id, exerciseId, body.reps(), body.weightKg(), body.rpe());
+		return ResponseEntity.status(HttpStatus.CREATED).eTag(ETags.of(updated)).body(toSetLogDto(updated));
+	}
+
+	@GetMapping("/{id}/exercises/{exerciseId}/sets")
+	public ResponseEntity<SetLogResponse> sets(@CurrentUser AuthenticatedUser me, @PathVariable Long id,
+			@PathVariable Long exerciseId) {
+		var ee = service.getExecutedExercise(me.getId(), id, exerciseId);
+		return ResponseEntity.ok().eTag(ETags.of(ee)).body(toSetLogDto(ee));
+	}
+
+	@PutMapping("/{id}/exercises/batch")
+	public ResponseEntity<TrainingExecutionResponse> batchUpdateExercises(@CurrentUser AuthenticatedUser me,
+			@PathVariable Long id, @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@Valid @RequestBody BatchUpdateExecutedExercisesRequest body) {
+		return withETag(
+				service.batchUpdateExecutedExercises(me.getId(), id, body.updates(), body.complete(), ifMatch));
 	}
 
-	@GetMapping(params = "sessionId")
-	public List<TrainingExecutionResponse> listBySession(@RequestParam Long sessionId) {
-		return service.listBySession(sessionId).stream().map(TrainingExecutionController::toDto).toList();
+	@GetMapping(params = "limit")
+	public HistoryPageResponse page(@CurrentUser AuthenticatedUser me, @RequestParam(required = false) Long sessionId,
+			@RequestParam(required = false) String cursor, @RequestParam int limit) {
+		var page = service.pageSummaries(me.getId(), sessionId, cursor, limit);
+		return new HistoryPageResponse(page.items().stream().map(TrainingExecutionController::toDto).toList(),
+				page.nextCursor());
+	}
+
+	@GetMapping(params = { "sessionId", "!limit" })
+	public List<TrainingExecutionResponse> listBySession(@CurrentUser AuthenticatedUser me,
+			@RequestParam Long sessionId) {
+		return service.listBySession(me.getId(), sessionId).stream().map(TrainingExecutionController::toDto).toList();
 	}
 
 	@GetMapping
-	public List<TrainingExecutionResponse> listAll() {
-		return service.listAll().stream().map(TrainingExecutionController::toDto).toList();
+	public List<TrainingExecutionResponse> listAll(@CurrentUser AuthenticatedUser me) {
+		return service.listAll(me.getId()).stream().map(TrainingExecutionController::toDto).toList();
+	}
+
+	@GetMapping("/export")
+	public ResponseEntity<StreamingResponseBody> export(@CurrentUser AuthenticatedUser me,
+			@RequestParam(defaultValue = "ndjson") String format) {
+		TrainingExportService.Format f = TrainingExportService.Format.parse(format);
+		Long userId = me.getId();
+
+		boolean csv = f == TrainingExportService.Format.CSV;
+		StreamingResponseBody body = out -> exporter.export(userId, f, out);
+		return ResponseEntity.ok()
+				.contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+				.header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+						.filename(csv ? "training-history.csv" : "training-history.ndjson").build().toString())
+				.body(body);
+	}
+
+	@PostMapping(path = "/import", consumes = { MediaType.APPLICATION_NDJSON_VALUE, "text/csv",
+			MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE })
+	public ImportReportResponse importHistory(@CurrentUser AuthenticatedUser me,
+			@RequestParam(defaultValue = "ndjson") String format, InputStream body) {
+		var report = importer.importHistory(me.getId(), TrainingExportService.Format.parse(format), body);
+		return new ImportReportResponse(report.recordsRead(), report.executionsImported(), report.exercisesImported(),
+				report.executionsRejected(), report.chunksCommitted(), report.errors().stream()
+						.map(e -> new ImportErrorResponse(e.line(), e.message())).toList());
 	}
 
 	@GetMapping("/stats/streak")
-	public StreakResponse streak() {
-		return new StreakResponse(service.calculateCompletedStreakDays(), null);
+	public StreakResponse streak(@CurrentUser AuthenticatedUser me) {
+		TrainingStreak streak = service.getStreak(me.getId());
+		return new StreakResponse(streak.getCurrentStreak(), streak.getLastTrainingDay(), streak.getLongestStreak());
+	}
+
+	@GetMapping("/stats/calendar")
+	public CalendarResponse calendar(@CurrentUser AuthenticatedUser me,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+		LocalDate end = to != null ? to : LocalDate.now();
+		LocalDate start = from != null ? from : end.minusYears(1).plusDays(1);
+		if (start.isAfter(end)) {
+			throw new IllegalArgumentException("from must not be after to");
+		}
+		if (start.plusYears(5).isBefore(end)) {
+			throw new IllegalArgumentException("range must not exceed 5 years");
+		}
+		return new CalendarResponse(start, end, activity.get(me.getId()).days(start, end));
+	}
+
+	@GetMapping("/stats/active-days")
+	public ActiveDaysResponse activeDays(@CurrentUser AuthenticatedUser me,
+			@RequestParam(required = false) Integer year) {
+		int y = year != null ? year : LocalDate.now().getYear();
+		if (y < 1900 || y > 9999) {
+			throw new IllegalArgumentException("year out of range");
+		}
+		ActivityBitmap bitmap = activity.get(me.getId());
+
+		List<MonthActivityResponse> months = new ArrayList<>(12);
+		for (int m = 1; m <= 12; m++) {
+			YearMonth month = YearMonth.of(y, m);
+			months.add(new MonthActivityResponse(m, bitmap.count(month.atDay(1), month.atEndOfMonth())));
+		}
+		int total = months.stream().mapToInt(MonthActivityResponse::activeDays).sum();
+		return new ActiveDaysResponse(y, total, months);
+	}
+
+	@GetMapping("/stats/activity")
+	public ActivitySummaryResponse activitySummary(@CurrentUser AuthenticatedUser me) {
+		ActivityBitmap bitmap = activity.get(me.getId());
+		return new ActivitySummaryResponse(bitmap.count(), bitmap.currentStreak(LocalDate.now()),
+				bitmap.longestStreak(), bitmap.first(), bitmap.last());
+	}
+
+	// periods without completed trainings are left out
+	@GetMapping("/stats/volume")
+	public VolumeResponse volume(@CurrentUser AuthenticatedUser me, @RequestParam(defaultValue = "week") String period,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(required = false) Long exerciseId, @RequestParam(required = false) String category) {
+		VolumeRollup.Period p = switch (period.trim().toLowerCase(Locale.ROOT)) {
+		case "week" -> VolumeRollup.Period.WEEK;
+		case "month" -> VolumeRollup.Period.MONTH;
+		default -> throw new IllegalArgumentException("period must be week or month");
+		};
+		if (exerciseId != null && category != null) {
+			throw new IllegalArgumentException("exerciseId and category cannot be combined");
+		}
+		LocalDate end = to != null ? to : LocalDate.now();
+		LocalDate start = from != null ? from
+				: p == VolumeRollup.Period.WEEK ? end.minusWeeks(11) : end.minusMonths(11);
+		if (start.plusYears(5).isBefore(end)) {
+			throw new IllegalArgumentException("range must not exceed 5 years");
+		}
+
+		VolumeRollup.Dimension dimension = exerciseId != null ? VolumeRollup.Dimension.EXERCISE
+				: category != null ? VolumeRollup.Dimension.CATEGORY : VolumeRollup.Dimension.TOTAL;
+		String key = exerciseId != null ? exerciseId.toString() : category != null ? category.trim() : null;
+
+		List<VolumePointResponse> points = rollups.range(me.getId(), p, dimension, key, start, end).stream()
+				.map(r -> new VolumePointResponse(r.getPeriodStart(), r.getTonnageKg(), r.getSets(), r.getReps(),
+						r.getSessions()))
+				.toList();
+		return new VolumeResponse(p.name(), dimension.name(), key, VolumeRollupService.periodStart(p, start), end,
+				points);
+	}
+
+	@GetMapping("/stats/records")
+	public List<PersonalRecordResponse> personalRecords(@CurrentUser AuthenticatedUser me) {
+		return records.list(me.getId()).stream().map(TrainingExecutionController::toDto).toList();
+	}
+
+	@GetMapping("/stats/records/{exerciseId}")
+	public PersonalRecordResponse personalRecord(@CurrentUser AuthenticatedUser me, @PathVariable Long exerciseId) {
+		return toDto(records.get(me.getId(), exerciseId));
+	}
+
+	@GetMapping("/{id}/records")
+	public List<NewPersonalRecordResponse> newPersonalRecords(@CurrentUser AuthenticatedUser me,
+			@PathVariable Long id) {
+		return records.setInExecution(me.getId(), id).stream()
+				.map(r -> new NewPersonalRecordResponse(r.exerciseId(), r.metric().name(), r.valueKg(),
+						r.achievedAt()))
+				.toList();
 	}
 
 	@PostMapping("/{id}/complete")
-	public TrainingExecutionResponse complete(@PathVariable Long id) {
-		return toDto(service.complete(id));
+	public ResponseEntity<TrainingExecutionResponse> complete(@CurrentUser AuthenticatedUser me,
+			@PathVariable Long id, @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		return withETag(service.complete(me.getId(), id, ifMatch));
 	}
 
 	@DeleteMapping("/{id}")
 	@ResponseStatus(HttpStatus.NO_CONTENT)
-	public void cancel(@PathVariable Long id) {
-		service.cancel(id);
+	public void cancel(@CurrentUser AuthenticatedUser me, @PathVariable Long id,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		service.cancel(me.getId(), id, ifMatch);
 	}
 }
@@ -1,53 +1,48 @@
 package de.hsaa.fitness_tracker_service.trainingExecution;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
-import de.hsaa.fitness_tracker_service.user.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 public interface TrainingExecutionRepository extends JpaRepository<TrainingExecution, Long> {
 
 	@EntityGraph(attributePaths = { "session", "executedExercises", "executedExercises.exercise" })
-	Optional<TrainingExecution> findWithExercisesById(Long id);
+	Optional<TrainingExecution> findWithExercisesByIdAndUserId(Long id, Long userId);
 
 	long countBySessionId(Long sessionId);
 
-	List<TrainingExecution> findBySessionId(Long sessionId);
-
 	long countBySessionIdSnapshot(Long sessionIdSnapshot);
 
 	List<TrainingExecution> findBySessionIdSnapshot(Long sessionIdSnapshot);
 
-	@Query("""
-			    select count(te) from TrainingExecution te
-			    where (te.session.id = :id)
-			       or (te.session is null and te.sessionIdSnapshot = :id)
-			""")
-	long countBySessionOrSnapshot(@Param("id") Long id);
+	long countByEffectiveSessionId(Long sessionId);
 
-	@Query("""
-			    select count(te) from TrainingExecution te
-			    where te.user = :user
-			      and (
-			            (te.session.id = :id)
-			         or (te.session is null and te.sessionIdSnapshot = :id)
-			      )
-			""")
-	long countBySessionOrSnapshotAndUser(@Param("id") Long id, @Param("user") User user);
+	long countByEffectiveSessionIdAndUserId(Long sessionId, Long userId);
 
 	@EntityGraph(attributePaths = { "session", "executedExercises", "executedExercises.exercise" })
 	@Query("""
 			    select te from TrainingExecution te
-			    where (te.session.id = :id)
-			       or (te.session is null and te.sessionIdSnapshot = :id)
+			    where te.effectiveSessionId = :id
 			    order by te.startedAt desc
 			""")
-	List<TrainingExecution> findWithExercisesBySessionOrSnapshot(@Param("id") Long id);
+	List<TrainingExecution> findWithExercisesByEffectiveSession(@Param("id") Long id);
 
 	@EntityGraph(attributePaths = { "session", "executedExercises", "executedExercises.exercise" })
 	@Query("select te from TrainingExecution te")
@@ -56,20 +51,12 @@ public interface TrainingExecutionRepository extends JpaRepository<TrainingExecu
 	List<TrainingExecution> findByStatusOrderByCompletedAtDesc(TrainingExecution.Status status);
 
 	@Query("""
-			    select te.session.id, count(te)
+			    select te.effectiveSessionId, count(te)
 			    from TrainingExecution te
-			    where te.session.id in :ids
-			    group by te.session.id
+			    where te.effectiveSessionId in :ids
+			    group by te.effectiveSessionId
 			""")
-	List<Object[]> countBySessionIds(@Param("ids") List<Long> ids);
-
-	@Query("""
-			    select te.sessionIdSnapshot, count(te)
-			    from TrainingExecution te
-			    where te.session is null and te.sessionIdSnapshot in :ids
-			    group by te.sessionIdSnapshot
-			""")
-	List<Object[]> countBySessionIdSnapshots(@Param("ids") List<Long> ids);
+	List<Object[]> countByEffectiveSessionIds(@Param("ids") List<Long> ids);
 
 	@EntityGraph(attributePaths = { "session", "executedExercises", "executedExercises.exercise" })
 	List<TrainingExecution> findWithExercisesBySessionId(Long sessionId);
@@ -77,43 +64,213 @@ public interface TrainingExecutionRepository extends JpaRepository<TrainingExecu
 	@EntityGraph(attributePaths = { "session", "executedExercises", "executedExercises.exercise" })
 	@Query("""
 			    select te from TrainingExecution te
-			    where te.user = :user
+			    where te.user.id = :userId
 			    order by te.startedAt desc
 			""")
-	List<TrainingExecution> findAllWithExercisesByUser(@Param("user") User user);
+	List<TrainingExecution> findAllWithExercisesByUser(@Param("userId") Long userId);
 
 	@EntityGraph(attributePaths = { "session", "executedExercises", "executedExercises.exercise" })
 	@Query("""
 			    select te from TrainingExecution te
-			    where te.user = :user
-			      and (
-			            (te.session.id = :id)
-			         or (te.session is null and te.sessionIdSnapshot = :id)
-			      )
+			    where te.effectiveSessionId = :id
+			      and te.user.id = :userId
 			    order by te.startedAt desc
 			""")
-	List<TrainingExecution> findWithExercisesBySessionOrSnapshotAndUser(@Param("id") Long id, @Param("user") User user);
+	List<TrainingExecution> findWithExercisesByEffectiveSessionAndUser(@Param("id") Long id,
+			@Param("userId") Long userId);
+
+	@Query("""
+			    select new de.hsaa.fitness_tracker_service.trainingExecution.TrainingExecutionSummary(
+			        te.id, te.effectiveSessionId, coalesce(s.name, te.sessionNameSnapshot),
+			        coalesce(p.name, te.planNameSnapshot), te.status, te.startedAt, te.completedAt,
+			        (select count(ee) from ExecutedExercise ee where ee.trainingExecution = te),
+			        (select count(ee) from ExecutedExercise ee where ee.trainingExecution = te and ee.done = true))
+			    from TrainingExecution te
+			    left join te.session s
+			    left join s.plan p
+			    where te.user.id = :userId
+			    order by te.startedAt desc, te.id desc
+			""")
+	List<TrainingExecutionSummary> findSummariesByUser(@Param("userId") Long userId, Limit limit);
+
+	@Query("""
+			    select new de.hsaa.fitness_tracker_service.trainingExecution.TrainingExecutionSummary(
+			        te.id, te.effectiveSessionId, coalesce(s.name, te.sessionNameSnapshot),
+			        coalesce(p.name, te.planNameSnapshot), te.status, te.startedAt, te.completedAt,
+			        (select count(ee) from ExecutedExercise ee where ee.trainingExecution = te),
+			        (select count(ee) from ExecutedExercise ee where ee.trainingExecution = te and ee.done = true))
+			    from TrainingExecution te
+			    left join te.session s
+			    left join s.plan p
+			    where te.user.id = :userId
+			      and (te.startedAt < :startedAt or (te.startedAt = :startedAt and te.id < :id))
+			    order by te.startedAt desc, te.id desc
+			""")
+	List<TrainingExecutionSummary> findSummariesByUserAfter(@Param("userId") Long userId,
+			@Param("startedAt") LocalDateTime startedAt, @Param("id") Long id, Limit limit);
+
+	@Query("""
+			    select new de.hsaa.fitness_tracker_service.trainingExecution.TrainingExecutionSummary(
+			        te.id, te.effectiveSessionId, coalesce(s.name, te.sessionNameSnapshot),
+			        coalesce(p.name, te.planNameSnapshot), te.status, te.startedAt, te.completedAt,
+			        (select count(ee) from ExecutedExercise ee where ee.trainingExecution = te),
+			        (select count(ee) from ExecutedExercise ee where ee.trainingExecution = te and ee.done = true))
+			    from TrainingExecution te
+			    left join te.session s
+			    left join s.plan p
+			    where te.user.id = :userId
+			      and te.effectiveSessionId = :sessionId
+			    order by te.startedAt desc, te.id desc
+			""")
+	List<TrainingExecutionSummary> findSummariesBySessionAndUser(@Param("sessionId") Long sessionId,
+			@Param("userId") Long userId, Limit limit);
+
+	@Query("""
+			    select new de.hsaa.fitness_tracker_service.trainingExecution.TrainingExecutionSummary(
+			        te.id, te.effectiveSessionId, coalesce(s.name, te.sessionNameSnapshot),
+			        coalesce(p.name, te.planNameSnapshot), te.status, te.startedAt, te.completedAt,
+			        (select count(ee) from ExecutedExercise ee where ee.trainingExecution = te),
+			        (select count(ee) from ExecutedExercise ee where ee.trainingExecution = te and ee.done = true))
+			    from TrainingExecution te
+			    left join te.session s
+			    left join s.plan p
+			    where te.user.id = :userId
+			      and te.effectiveSessionId = :sessionId
+			      and (te.startedAt < :startedAt or (te.startedAt = :startedAt and te.id < :id))
+			    order by te.startedAt desc, te.id desc
+			""")
+	List<TrainingExecutionSummary> findSummariesBySessionAndUserAfter(@Param("sessionId") Long sessionId,
+			@Param("userId") Long userId, @Param("startedAt") LocalDateTime startedAt, @Param("id") Long id,
+			Limit limit);
 
-	List<TrainingExecution> findByUserAndStatusAndCompletedAtIsNotNullOrderByCompletedAtDesc(User user,
-			TrainingExecution.Status status);
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+	@Query("""
+			    select new de.hsaa.fitness_tracker_service.trainingExecution.TrainingExportRow(
+			        te.id, te.effectiveSessionId, coalesce(s.name, te.sessionNameSnapshot),
+			        coalesce(p.name, te.planNameSnapshot), te.status, te.startedAt, te.completedAt,
+			        ee.id, ex.id, coalesce(ex.name, ee.exerciseNameSnapshot),
+			        coalesce(ex.category, ee.exerciseCategorySnapshot), ee.plannedSets, ee.plannedReps,
+			        ee.plannedWeightKg, ee.actualSets, ee.actualReps, ee.actualWeightKg, ee.done, ee.notes)
+			    from TrainingExecution te
+			    left join te.session s
+			    left join s.plan p
+			    left join te.executedExercises ee
+			    left join ee.exercise ex
+			    where te.user.id = :userId
+			    order by te.startedAt, te.id, ee.id
+			""")
+	Stream<TrainingExportRow> streamExportRows(@Param("userId") Long userId);
 
 	@Query("""
-			    select te.session.id, count(te)
+			    select distinct cast(te.completedAt as LocalDate)
 			    from TrainingExecution te
-			    where te.user = :user
-			      and te.session.id in :ids
-			    group by te.session.id
+			    where te.user.id = :userId
+			      and te.status = :status
+			      and te.completedAt is not null
+			    order by 1
 			""")
-	List<Object[]> countBySessionIdsAndUser(@Param("ids") List<Long> ids, @Param("user") User user);
+	List<LocalDate> findCompletedDays(@Param("userId") Long userId,
+			@Param("status") TrainingExecution.Status status);
 
 	@Query("""
-			    select te.sessionIdSnapshot, count(te)
+			    select te.effectiveSessionId, count(te)
 			    from TrainingExecution te
-			    where te.user = :user
-			      and te.session is null
-			      and te.sessionIdSnapshot in :ids
-			    group by te.sessionIdSnapshot
+			    where te.effectiveSessionId in :ids
+			      and te.user.id = :userId
+			    group by te.effectiveSessionId
+			""")
+	List<Object[]> countByEffectiveSessionIdsAndUser(@Param("ids") List<Long> ids, @Param("userId") Long userId);
+
+	@Query("""
+			    select distinct te.user.id from TrainingExecution te
+			    where te.status = :status
+			    order by 1
+			""")
+	List<Long> findUserIdsWithStatus(@Param("status") TrainingExecution.Status status);
+
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+	@Query("""
+			    select new de.hsaa.fitness_tracker_service.trainingExecution.VolumeRollupRow(
+			        te.id, te.user.id, te.completedAt, ee)
+			    from TrainingExecution te
+			    left join te.executedExercises ee
+			    left join fetch ee.exercise
+			    where te.user.id in :userIds
+			      and te.status = :status
+			    order by te.id, ee.id
+			""")
+	Stream<VolumeRollupRow> streamRollupRows(@Param("userIds") Collection<Long> userIds,
+			@Param("status") TrainingExecution.Status status);
+
+	// 0 when the training is already counted in the volume rollups; the row lock orders it against a rebuild
+	@Modifying
+	@Query("update TrainingExecution te set te.rolledUp = true where te.id = :id and te.rolledUp = false")
+	int markRolledUp(@Param("id") Long id);
+
+	@Modifying
+	@Query("update TrainingExecution te set te.rolledUp = true where te.user.id in :userIds and te.status = :status")
+	int markRolledUpByUsers(@Param("userIds") Collection<Long> userIds,
+			@Param("status") TrainingExecution.Status status);
+
+	// oldest first, served by idx_training_executions_status_started; locked so two sweeps never close one twice
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("""
+			    select te from TrainingExecution te
+			    where te.status = :status
+			      and te.startedAt < :startedBefore
+			    order by te.startedAt, te.id
 			""")
-	List<Object[]> countBySessionIdSnapshotsAndUser(@Param("ids") List<Long> ids, @Param("user") User user);
+	List<TrainingExecution> findStartedBeforeForUpdate(@Param("status") TrainingExecution.Status status,
+			@Param("startedBefore") LocalDateTime startedBefore, Limit limit);
+
+	// the training day of an abandoned training is the day it was started
+	@Modifying
+	@Query("""
+			    update versioned TrainingExecution te
+			    set te.status = :completed, te.completedAt = te.startedAt
+			    where te.id in :ids
+			      and te.status = :inProgress
+			""")
+	int completeAtStart(@Param("ids") Collection<Long> ids, @Param("inProgress") TrainingExecution.Status inProgress,
+			@Param("completed") TrainingExecution.Status completed);
+
+	@Modifying
+	@Query("delete from TrainingExecution te where te.id in :ids")
+	int deleteByIds(@Param("ids") Collection<Long> ids);
 
+	// the next chunk of trainings that still point at a session that is being deleted
+	@Query("select te.id from TrainingExecution te where te.session.id = :sessionId order by te.id")
+	List<Long> findIdsBySessionId(@Param("sessionId") Long sessionId, Limit limit);
+
+	// snapshots taken when the training was started win over the names the session has now
+	@Modifying
+	@Query("""
+			    update versioned TrainingExecution te
+			    set te.session = null,
+			        te.sessionIdSnapshot = coalesce(te.sessionIdSnapshot, :sessionId),
+			        te.sessionNameSnapshot = case when trim(coalesce(te.sessionNameSnapshot, '')) = ''
+			            then :sessionName else te.sessionNameSnapshot end,
+			        te.planNameSnapshot = case when trim(coalesce(te.planNameSnapshot, '')) = ''
+			            then :planName else te.planNameSnapshot end
+			    where te.id in :ids
+			""")
+	int detachFromSession(@Param("ids") Collection<Long> ids, @Param("sessionId") Long sessionId,
+			@Param("sessionName") String sessionName, @Param("planName") String planName);
+
+	// detachFromSession for every session of a plan in one statement; the set clause sees the old session id
+	@Modifying
+	@Query("""
+			    update versioned TrainingExecution te
+			    set te.session = null,
+			        te.sessionIdSnapshot = coalesce(te.sessionIdSnapshot, te.session.id),
+			        te.sessionNameSnapshot = case when trim(coalesce(te.sessionNameSnapshot, '')) = ''
+			            then (select s.name from TrainingSession s where s.id = te.session.id)
+			            else te.sessionNameSnapshot end,
+			        te.planNameSnapshot = case when trim(coalesce(te.planNameSnapshot, '')) = ''
+			            then :planName else te.planNameSnapshot end
+			    where te.session.id in (select s.id from TrainingSession s where s.plan.id = :planId)
+			""")
+	int detachFromPlan(@Param("planId") Long planId, @Param("planName") String planName);
 }
@@ -1,21 +1,27 @@
 package de.hsaa.fitness_tracker_service.trainingExecution;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import de.hsaa.fitness_tracker_service.execution.ExerciseExecution;
 import de.hsaa.fitness_tracker_service.exercise.Exercise;
 import de.hsaa.fitness_tracker_service.exercise.ExerciseRepository;
+import de.hsaa.fitness_tracker_service.outbox.Outbox;
+import de.hsaa.fitness_tracker_service.outbox.OutboxEvent;
 import de.hsaa.fitness_tracker_service.trainingsSession.TrainingSession;
 import de.hsaa.fitness_tracker_service.trainingsSession.TrainingSessionRepository;
-import de.hsaa.fitness_tracker_service.user.User;
 import de.hsaa.fitness_tracker_service.user.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
 
@@ -23,30 +29,45 @@ import jakarta.persistence.EntityNotFoundException;
 @Transactional
 public class TrainingExecutionService {
 
+	private static final int MAX_BATCH_SIZE = 100;
+	private static final int MAX_PAGE_SIZE = 100;
+
 	private final TrainingExecutionRepository repo;
+	private final ExecutedExerciseRepository executedRepo;
 	private final TrainingSessionRepository sessionRepo;
 	private final ExerciseRepository exerciseRepo;
 	private final UserRepository userRepo;
-
-	public TrainingExecutionService(TrainingExecutionRepository repo, TrainingSessionRepository sessionRepo,
-			ExerciseRepository exerciseRepo, UserRepository userRepo) {
+	private final TrainingStreakRepository streakRepo;
+	private final TrainingActivityService activity;
+	private final Outbox outbox;
+	private final LiveExecutionHub live;
+
+	public TrainingExecutionService(TrainingExecutionRepository repo, ExecutedExerciseRepository executedRepo,
+			TrainingSessionRepository sessionRepo,
+			ExerciseRepository exerciseRepo, UserRepository userRepo, TrainingStreakRepository streakRepo,
+			TrainingActivityService activity, Outbox outbox, LiveExecutionHub live) {
 		this.repo = repo;
+		this.executedRepo = executedRepo;
 		this.sessionRepo = sessionRepo;
 		this.exerciseRepo = exerciseRepo;
 		this.userRepo = userRepo;
+		this.streakRepo = streakRepo;
+		this.activity = activity;
+		this.outbox = outbox;
+		this.live = live;
 	}
 
-	public TrainingExecution start(Long sessionId) {
+	public TrainingExecution start(Long userId, Long sessionId) {
 		TrainingSession session = requireSessionWithPlannedExercises(sessionId);
 
 		if (session.getExerciseExecutions() == null || session.getExerciseExecutions().isEmpty()) {
 			throw new IllegalArgumentException("session must contain at least one exercise");
 		}
 
-		User currentUser = getCurrentUser();
+		requireAuthenticated(userId);
 
 		TrainingExecution te = new TrainingExecution();
-		te.setUser(currentUser);
+		te.setUser(userRepo.getReferenceById(userId));
 		te.setSession(session);
 
 		te.setSessionIdSnapshot(session.getId());
@@ -83,38 +104,121 @@ public class TrainingExecutionService {
 		return repo.save(te);
 	}
 
+	// live deltas for a second device following the training
+	@Transactional(readOnly = true)
+	public SseEmitter follow(Long userId, Long id) {
+		TrainingExecution te = get(userId, id);
+		if (te.getStatus() != TrainingExecution.Status.IN_PROGRESS) {
+			throw new IllegalArgumentException("training is not in progress");
+		}
+		return live.subscribe(id, ETags.of(te));
+	}
+
 	@Transactional(readOnly = true)
-	public TrainingExecution get(Long id) {
-		TrainingExecution te = repo.findWithExercisesById(id)
+	public TrainingExecution get(Long userId, Long id) {
+		requireAuthenticated(userId);
+		return repo.findWithExercisesByIdAndUserId(id, userId)
 				.orElseThrow(() -> new EntityNotFoundException("training execution not found"));
+	}
+
+	public TrainingExecution upsertExecutedExercise(Long userId, Long executionId, Long exerciseId,
+			Integer actualSets, Integer actualReps, Double actualWeightKg, boolean done, String notes, String ifMatch) {
+		TrainingExecution te = get(userId, executionId);
+		requireMatch(te, ifMatch);
+
+		if (te.getStatus() != TrainingExecution.Status.IN_PROGRESS) {
+			throw new IllegalArgumentException("training is not editable");
+		}
+
+		validateActuals(actualSets, actualReps, actualWeightKg);
+
+		Exercise ex = requireExercise(exerciseId);
+
+		ExecutedExercise target = te.getExecutedExercises().stream()
+				.filter(e -> e.getExercise() != null && e.getExercise().getId().equals(exerciseId)).findFirst()
+				.orElseThrow(() -> new EntityNotFoundException("exercise not part of this execution"));
+
+		target.setExercise(ex);
+		applyActuals(target, actualSets, actualReps, actualWeightKg, done, notes);
+		outbox.publish(OutboxEvent.Type.EXECUTED_EXERCISE_UPDATED, userId, executionId, exerciseId);
+		live.publishAfterCommit(executionId, "exercise", () -> changed(target));
 
-		assertOwner(te);
 		return te;
 	}
 
-	public TrainingExecution upsertExecutedExercise(Long executionId, Long exerciseId, Integer actualSets,
-			Integer actualReps, Double actualWeightKg, boolean done, String notes) {
-		TrainingExecution te = get(executionId);
+	public ExecutedExercise updateExecutedExercise(Long userId, Long executionId, Long exerciseId,
+			Integer actualSets, Integer actualReps, Double actualWeightKg, boolean done, String notes, String ifMatch) {
+		requireAuthenticated(userId);
+		validateActuals(actualSets, actualReps, actualWeightKg);
+
+		ExecutedExercise target = requireEditableExecutedExercise(userId, executionId, exerciseId);
+		if (!ETags.matches(ifMatch, ETags.of(target))) {
+			throw new StaleVersionException(target);
+		}
+		applyActuals(target, actualSets, actualReps, actualWeightKg, done, notes);
+		outbox.publish(OutboxEvent.Type.EXECUTED_EXERCISE_UPDATED, userId, executionId, exerciseId);
+		live.publishAfterCommit(executionId, "exercise", () -> changed(target));
+		return target;
+	}
+
+	public ExecutedExercise logSet(Long userId, Long executionId, Long exerciseId, Integer reps, Double weightKg,
+			Double rpe) {
+		requireAuthenticated(userId);
+		if (reps == null || weightKg == null)
+			throw new IllegalArgumentException("reps and weightKg are required");
+
+		ExecutedExercise target = requireEditableExecutedExercise(userId, executionId, exerciseId);
+		target.setSetLog(SetLog.append(target.getSetLog(), reps, weightKg, rpe, Instant.now()));
+
+		// keep the aggregate columns in step for clients that only read those
+		target.setActualSets(SetLog.count(target.getSetLog()));
+		target.setActualReps(reps);
+		target.setActualWeightKg(weightKg);
+		outbox.publish(OutboxEvent.Type.EXECUTED_EXERCISE_UPDATED, userId, executionId, exerciseId);
+		live.publishAfterCommit(executionId, "exercise", () -> changed(target));
+		return target;
+	}
+
+	@Transactional(readOnly = true)
+	public ExecutedExercise getExecutedExercise(Long userId, Long executionId, Long exerciseId) {
+		requireAuthenticated(userId);
+		return executedRepo.findOwned(executionId, exerciseId, userId)
+				.orElseThrow(() -> new EntityNotFoundException("executed exercise not found"));
+	}
+
+	private ExecutedExercise requireEditableExecutedExercise(Long userId, Long executionId, Long exerciseId) {
+		ExecutedExercise target = executedRepo
+				.findEditable(executionId, exerciseId, userId, TrainingExecution.Status.IN_PROGRESS)
+				.orElse(null);
+		if (target != null)
+			return target;
 
+		// slow path only to report the precise reason
+		TrainingExecution te = get(userId, executionId);
 		if (te.getStatus() != TrainingExecution.Status.IN_PROGRESS) {
 			throw new IllegalArgumentException("training is not editable");
 		}
+		throw new EntityNotFoundException("exercise not part of this execution");
+	}
 
+	private static void validateActuals(Integer actualSets, Integer actualReps, Double actualWeightKg) {
 		if (actualSets == null || actualSets < 0)
 			throw new IllegalArgumentException("actualSets must be >= 0");
 		if (actualReps == null || actualReps < 0)
 			throw new IllegalArgumentException("actualReps must be >= 0");
 		if (actualWeightKg == null || actualWeightKg < 0)
 			throw new IllegalArgumentException("actualWeightKg must be >= 0");
+	}
 
-		Exercise ex = requireExercise(exerciseId);
-
-		ExecutedExercise target = te.getExecutedExercises().stream()
-				.filter(e -> e.getExercise() != null && e.getExercise().getId().equals(exerciseId)).findFirst()
-				.orElseThrow(() -> new EntityNotFoundException("exercise not part of this execution"));
-
-		target.setExercise(ex);
+	private static LiveExecutionHub.ExerciseChanged changed(ExecutedExercise ee) {
+		return new LiveExecutionHub.ExerciseChanged(ee.getExercise() != null ? ee.getExercise().getId() : null,
+				ee.getActualSets(), ee.getActualReps(), ee.getActualWeightKg(), ee.isDone(), ee.getNotes(),
+				SetLog.count(ee.getSetLog()), ETags.of(ee));
+	}
 
+	private static void applyActuals(ExecutedExercise target, Integer actualSets, Integer actualReps,
+			Double actualWeightKg, boolean done, String notes) {
+		Exercise ex = target.getExercise();
 		if (target.getExerciseNameSnapshot() == null || target.getExerciseNameSnapshot().isBlank()) {
 			target.setExerciseNameSnapshot(ex.getName());
 		}
@@ -127,73 +231,204 @@ public class TrainingExecutionService {
 		target.setActualWeightKg(actualWeightKg);
 		target.setDone(done);
 		target.setNotes(notes != null ? notes.trim() : null);
+	}
 
+	public TrainingExecution complete(Long userId, Long id, String ifMatch) {
+		TrainingExecution te = get(userId, id);
+		requireMatch(te, ifMatch);
+
+		if (te.getStatus() != TrainingExecution.Status.IN_PROGRESS) {
+			throw new IllegalArgumentException("training already completed");
+		}
+
+		markCompleted(userId, te);
 		return te;
 	}
 
-	public TrainingExecution complete(Long id) {
-		TrainingExecution te = get(id);
+	public TrainingExecution batchUpdateExecutedExercises(Long userId, Long executionId,
+			List<TrainingExecutionController.UpdateExecutedExerciseRequest> updates, boolean complete, String ifMatch) {
+		requireAuthenticated(userId);
+		if (updates == null || updates.isEmpty()) {
+			throw new IllegalArgumentException("updates must not be empty");
+		}
+		if (updates.size() > MAX_BATCH_SIZE) {
+			throw new IllegalArgumentException("at most " + MAX_BATCH_SIZE + " updates per batch");
+		}
+
+		Set<Long> seen = new HashSet<>();
+		for (var u : updates) {
+			if (u.exerciseId() == null)
+				throw new IllegalArgumentException("exerciseId is required");
+			if (!seen.add(u.exerciseId()))
+				throw new IllegalArgumentException("duplicate exerciseId " + u.exerciseId());
+			validateActuals(u.actualSets(), u.actualReps(), u.actualWeightKg());
+		}
 
+		TrainingExecution te = get(userId, executionId);
+		requireMatch(te, ifMatch);
 		if (te.getStatus() != TrainingExecution.Status.IN_PROGRESS) {
-			throw new IllegalArgumentException("training already completed");
+			throw new IllegalArgumentException("training is not editable");
+		}
+
+		Map<Long, ExecutedExercise> byExercise = new HashMap<>();
+		for (ExecutedExercise ee : te.getExecutedExercises()) {
+			if (ee.getExercise() != null)
+				byExercise.put(ee.getExercise().getId(), ee);
+		}
+
+		List<Long> unknown = seen.stream().filter(id -> !byExercise.containsKey(id)).sorted().toList();
+		if (!unknown.isEmpty()) {
+			throw new EntityNotFoundException("exercises not part of this execution: " + unknown);
+		}
+
+		for (var u : updates) {
+			ExecutedExercise target = byExercise.get(u.exerciseId());
+			applyActuals(target, u.actualSets(), u.actualReps(), u.actualWeightKg(), u.done(), u.notes());
+			live.publishAfterCommit(executionId, "exercise", () -> changed(target));
+		}
+
+		// the completion event covers every exercise of the training
+		if (complete) {
+			markCompleted(userId, te);
+		} else {
+			for (var u : updates) {
+				outbox.publish(OutboxEvent.Type.EXECUTED_EXERCISE_UPDATED, userId, executionId, u.exerciseId());
+			}
 		}
+		return te;
+	}
 
+	private void markCompleted(Long userId, TrainingExecution te) {
 		te.setStatus(TrainingExecution.Status.COMPLETED);
 		te.setCompletedAt(LocalDateTime.now());
-		return te;
+		recordTrainingDay(userId, te.getCompletedAt().toLocalDate());
+		activity.recordTrainingDay(userId, te.getCompletedAt().toLocalDate());
+		outbox.publish(OutboxEvent.Type.TRAINING_COMPLETED, userId, te.getId(), null);
+		live.publishAfterCommit(te.getId(), "completed",
+				() -> new LiveExecutionHub.Completed(te.getCompletedAt(), ETags.of(te)));
 	}
 
-	public void cancel(Long id) {
-		TrainingExecution te = get(id);
+	public void cancel(Long userId, Long id, String ifMatch) {
+		TrainingExecution te = get(userId, id);
+		requireMatch(te, ifMatch);
 
 		if (te.getStatus() == TrainingExecution.Status.COMPLETED) {
 			throw new IllegalArgumentException("completed trainings cannot be deleted");
 		}
 
 		repo.delete(te);
+		outbox.publish(OutboxEvent.Type.TRAINING_CANCELLED, userId, id, null);
+		live.publishAfterCommit(id, "cancelled", LiveExecutionHub.Cancelled::new);
 	}
 
 	@Transactional(readOnly = true)
-	public List<TrainingExecution> listBySession(Long sessionId) {
-		User currentUser = getCurrentUser();
-		return repo.findWithExercisesBySessionOrSnapshotAndUser(sessionId, currentUser);
+	public List<TrainingExecution> listBySession(Long userId, Long sessionId) {
+		requireAuthenticated(userId);
+		return repo.findWithExercisesByEffectiveSessionAndUser(sessionId, userId);
 	}
 
 	@Transactional(readOnly = true)
-	public List<TrainingExecution> listAll() {
-		User currentUser = getCurrentUser();
-		return repo.findAllWithExercisesByUser(currentUser);
+	public List<TrainingExecution> listAll(Long userId) {
+		requireAuthenticated(userId);
+		return repo.findAllWithExercisesByUser(userId);
+	}
+
+	public record SummaryPage(List<TrainingExecutionSummary> items, String nextCursor) {
 	}
 
 	@Transactional(readOnly = true)
-	public int calculateCompletedStreakDays() {
-		User currentUser = getCurrentUser();
+	public SummaryPage pageSummaries(Long userId, Long sessionId, String cursor, int limit) {
+		requireAuthenticated(userId);
+		if (limit < 1 || limit > MAX_PAGE_SIZE) {
+			throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+		}
 
-		List<TrainingExecution> list = repo.findByUserAndStatusAndCompletedAtIsNotNullOrderByCompletedAtDesc(
-				currentUser, TrainingExecution.Status.COMPLETED);
+		HistoryCursor after = cursor == null || cursor.isBlank() ? null : HistoryCursor.decode(cursor);
+		Limit fetch = Limit.of(limit + 1);
+
+		List<TrainingExecutionSummary> rows;
+		if (sessionId == null) {
+			rows = after == null ? repo.findSummariesByUser(userId, fetch)
+					: repo.findSummariesByUserAfter(userId, after.startedAt(), after.id(), fetch);
+		} else {
+			rows = after == null ? repo.findSummariesBySessionAndUser(sessionId, userId, fetch)
+					: repo.findSummariesBySessionAndUserAfter(sessionId, userId, after.startedAt(), after.id(),
+							fetch);
+		}
 
-		if (list.isEmpty())
-			return 0;
+		if (rows.size() <= limit)
+			return new SummaryPage(rows, null);
 
-		List<LocalDate> daysDesc = list.stream().map(te -> te.getCompletedAt().toLocalDate()).distinct().toList();
+		List<TrainingExecutionSummary> page = rows.subList(0, limit);
+		TrainingExecutionSummary last = page.get(limit - 1);
+		return new SummaryPage(List.copyOf(page), new HistoryCursor(last.startedAt(), last.id()).encode());
+	}
 
-		LocalDate today = LocalDate.now();
-		LocalDate lastDay = daysDesc.get(0);
+	@Transactional(readOnly = true)
+	public TrainingStreak getStreak(Long userId) {
+		requireAuthenticated(userId);
 
-		if (lastDay.isBefore(today.minusDays(1)))
-			return 0;
+		TrainingStreak stored = streakRepo.findById(userId).orElse(null);
 
-		int streak = 1;
-		for (int i = 1; i < daysDesc.size(); i++) {
-			if (daysDesc.get(i).equals(daysDesc.get(i - 1).minusDays(1))) {
-				streak++;
-			} else {
-				break;
-			}
+		TrainingStreak streak = new TrainingStreak();
+		streak.setUserId(userId);
+		if (stored == null)
+			return streak;
+
+		streak.setLongestStreak(stored.getLongestStreak());
+		streak.setLastTrainingDay(stored.getLastTrainingDay());
+
+		// a streak is still alive on the day after the last training
+		boolean alive = !stored.getLastTrainingDay().isBefore(LocalDate.now().minusDays(1));
+		streak.setCurrentStreak(alive ? stored.getCurrentStreak() : 0);
+		return streak;
+	}
+
+	// recomputed from all completed days rather than advanced, since they may arrive out of order
+	public void refreshStreak(Long userId) {
+		requireAuthenticated(userId);
+
+		TrainingStreak rebuilt = rebuildStreak(userId);
+		TrainingStreak streak = streakRepo.findForUpdate(userId).orElse(rebuilt);
+		streak.setCurrentStreak(rebuilt.getCurrentStreak());
+		streak.setLongestStreak(rebuilt.getLongestStreak());
+		streak.setLastTrainingDay(rebuilt.getLastTrainingDay());
+		streakRepo.save(streak);
+	}
+
+	private void recordTrainingDay(Long userId, LocalDate day) {
+		TrainingStreak streak = streakRepo.findForUpdate(userId).orElse(null);
+		if (streak == null) {
+			streak = streakRepo.save(rebuildStreak(userId));
 		}
+		advance(streak, day);
+	}
+
+	// one-time walk over the history for users that have no streak row yet
+	private TrainingStreak rebuildStreak(Long userId) {
+		TrainingStreak streak = new TrainingStreak();
+		streak.setUserId(userId);
+
+		repo.findCompletedDays(userId, TrainingExecution.Status.COMPLETED).forEach(day -> advance(streak, day));
 		return streak;
 	}
 
+	private static void advance(TrainingStreak streak, LocalDate day) {
+		LocalDate last = streak.getLastTrainingDay();
+		if (last != null && !day.isAfter(last))
+			return;
+
+		streak.setCurrentStreak(last != null && day.equals(last.plusDays(1)) ? streak.getCurrentStreak() + 1 : 1);
+		streak.setLongestStreak(Math.max(streak.getLongestStreak(), streak.getCurrentStreak()));
+		streak.setLastTrainingDay(day);
+	}
+
+	private static void requireMatch(TrainingExecution te, String ifMatch) {
+		if (!ETags.matches(ifMatch, ETags.of(te))) {
+			throw new StaleVersionException(te);
+		}
+	}
+
 	private TrainingSession requireSessionWithPlannedExercises(Long id) {
 		return sessionRepo.findWithExecutionsById(id)
 				.orElseThrow(() -> new EntityNotFoundException("session not found"));
@@ -203,25 +438,9 @@ public class TrainingExecutionService {
 		return exerciseRepo.findById(id).orElseThrow(() -> new EntityNotFoundException("exercise not found"));
 	}
 
-	private User getCurrentUser() {
-		Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-		String username = auth != null ? auth.getName() : null;
-
-		if (username == null || username.isBlank()) {
+	private static void requireAuthenticated(Long userId) {
+		if (userId == null) {
 			throw new AccessDeniedException("Not authenticated");
 		}
-
-		return userRepo.findByUsername(username)
-				.orElseThrow(() -> new IllegalStateException("User not found: " + username));
-	}
-
-	private void assertOwner(TrainingExecution te) {
-		User currentUser = getCurrentUser();
-		if (te.getUser() == null || te.getUser().getId() == null) {
-			throw new AccessDeniedException("Owner missing");
-		}
-		if (!te.getUser().getId().equals(currentUser.getId())) {
-			throw new AccessDeniedException("Forbidden");
-		}
 	}
 }
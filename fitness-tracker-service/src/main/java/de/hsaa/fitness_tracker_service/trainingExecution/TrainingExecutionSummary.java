@@ -0,0 +1,12 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.time.LocalDateTime;
+
+public record TrainingExecutionSummary(Long id, Long sessionId, String sessionName, String planName,
+		TrainingExecution.Status status, LocalDateTime startedAt, LocalDateTime completedAt, long exerciseCount,
+		long doneCount) {
+
+	public double completionRatio() {
+		return exerciseCount == 0 ? 0.0 : (double) doneCount / exerciseCount;
+	}
+}
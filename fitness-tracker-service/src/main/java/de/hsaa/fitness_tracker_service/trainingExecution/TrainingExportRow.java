@@ -0,0 +1,11 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.time.LocalDateTime;
+
+// One executed exercise joined with its execution header; the export stream is ordered by execution.
+public record TrainingExportRow(Long executionId, Long sessionId, String sessionName, String planName,
+		TrainingExecution.Status status, LocalDateTime startedAt, LocalDateTime completedAt, Long executedExerciseId,
+		Long exerciseId, String exerciseName, String exerciseCategory, Integer plannedSets, Integer plannedReps,
+		Double plannedWeightKg, Integer actualSets, Integer actualReps, Double actualWeightKg, Boolean done,
+		String notes) {
+}
@@ -0,0 +1,141 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+@Service
+@Transactional(readOnly = true)
+public class TrainingExportService {
+
+	public enum Format {
+		NDJSON, CSV;
+
+		public static Format parse(String value) {
+			try {
+				return valueOf(value.trim().toUpperCase(Locale.ROOT));
+			} catch (IllegalArgumentException | NullPointerException e) {
+				throw new IllegalArgumentException("format must be ndjson or csv");
+			}
+		}
+	}
+
+	public record ExportedExercise(Long id, Long exerciseId, String exerciseName, String exerciseCategory,
+			Integer plannedSets, Integer plannedReps, Double plannedWeightKg, Integer actualSets, Integer actualReps,
+			Double actualWeightKg, Boolean done, String notes) {
+	}
+
+	public record ExportedExecution(Long id, Long sessionId, String sessionName, String planName, String status,
+			LocalDateTime startedAt, LocalDateTime completedAt, List<ExportedExercise> executedExercises) {
+	}
+
+	static final String CSV_HEADER = "executionId,sessionId,sessionName,planName,status,startedAt,completedAt,"
+			+ "executedExerciseId,exerciseId,exerciseName,exerciseCategory,plannedSets,plannedReps,plannedWeightKg,"
+			+ "actualSets,actualReps,actualWeightKg,done,notes";
+
+	private final TrainingExecutionRepository repo;
+	private final ObjectMapper mapper;
+
+	public TrainingExportService(TrainingExecutionRepository repo, ObjectMapper mapper) {
+		this.repo = repo;
+		this.mapper = mapper;
+	}
+
+	public void export(Long userId, Format format, OutputStream out) {
+		if (userId == null) {
+			throw new IllegalArgumentException("userId is required");
+		}
+
+		try (Stream<TrainingExportRow> rows = repo.streamExportRows(userId)) {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+			if (format == Format.CSV) {
+				writeCsv(rows.iterator(), writer);
+			} else {
+				writeNdjson(rows.iterator(), writer);
+			}
+			writer.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// rows arrive ordered by execution, so only the execution being written is held in memory
+	private void writeNdjson(Iterator<TrainingExportRow> rows, Writer writer) throws IOException {
+		SequenceWriter out = mapper.writer().withRootValueSeparator("\n").writeValues(writer);
+		TrainingExportRow head = null;
+		List<ExportedExercise> exercises = new ArrayList<>();
+
+		while (rows.hasNext()) {
+			TrainingExportRow row = rows.next();
+			if (head != null && !head.executionId().equals(row.executionId())) {
+				out.write(toExecution(head, exercises));
+				exercises = new ArrayList<>();
+			}
+			head = row;
+			if (row.executedExerciseId() != null) {
+				exercises.add(toExercise(row));
+			}
+		}
+		if (head != null) {
+			out.write(toExecution(head, exercises));
+		}
+		out.flush();
+		if (head != null) {
+			writer.write('\n');
+		}
+	}
+
+	private static void writeCsv(Iterator<TrainingExportRow> rows, Writer writer) throws IOException {
+		writer.write(CSV_HEADER);
+		writer.write('\n');
+		while (rows.hasNext()) {
+			TrainingExportRow r = rows.next();
+			Object[] values = { r.executionId(), r.sessionId(), r.sessionName(), r.planName(), r.status(),
+					r.startedAt(), r.completedAt(), r.executedExerciseId(), r.exerciseId(), r.exerciseName(),
+					r.exerciseCategory(), r.plannedSets(), r.plannedReps(), r.plannedWeightKg(), r.actualSets(),
+					r.actualReps(), r.actualWeightKg(), r.done(), r.notes() };
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0)
+					writer.write(',');
+				writer.write(csv(values[i]));
+			}
+			writer.write('\n');
+		}
+	}
+
+	static String csv(Object value) {
+		if (value == null)
+			return "";
+		String s = value.toString();
+		if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0)
+			return s;
+		return '"' + s.replace("\"", "\"\"") + '"';
+	}
+
+	private static ExportedExecution toExecution(TrainingExportRow r, List<ExportedExercise> exercises) {
+		return new ExportedExecution(r.executionId(), r.sessionId(), r.sessionName(), r.planName(),
+				r.status() != null ? r.status().name() : null, r.startedAt(), r.completedAt(), exercises);
+	}
+
+	private static ExportedExercise toExercise(TrainingExportRow r) {
+		return new ExportedExercise(r.executedExerciseId(), r.exerciseId(), r.exerciseName(), r.exerciseCategory(),
+				r.plannedSets(), r.plannedReps(), r.plannedWeightKg(), r.actualSets(), r.actualReps(),
+				r.actualWeightKg(), r.done(), r.notes());
+	}
+}
@@ -0,0 +1,497 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.hsaa.fitness_tracker_service.exercise.Exercise;
+import de.hsaa.fitness_tracker_service.exercise.ExerciseRepository;
+import de.hsaa.fitness_tracker_service.trainingExecution.TrainingExportService.ExportedExecution;
+import de.hsaa.fitness_tracker_service.trainingExecution.TrainingExportService.ExportedExercise;
+import de.hsaa.fitness_tracker_service.trainingExecution.TrainingExportService.Format;
+import de.hsaa.fitness_tracker_service.user.User;
+import de.hsaa.fitness_tracker_service.user.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+
+// Reads the export formats back in. Transactions are opened per chunk, so this service is not @Transactional.
+@Service
+public class TrainingImportService {
+
+	static final int MAX_REPORTED_ERRORS = 100;
+	private static final int MAX_EXERCISES_PER_EXECUTION = 100;
+	private static final int MAX_NAME_LENGTH = 255;
+	private static final int MAX_NOTES_LENGTH = 1000;
+	// keeps a user's training days within what the activity bitmap can store
+	private static final LocalDateTime MIN_STARTED_AT = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+	public record LineError(long line, String message) {
+	}
+
+	public record ImportReport(long recordsRead, int executionsImported, int exercisesImported, int executionsRejected,
+			int chunksCommitted, List<LineError> errors) {
+	}
+
+	private record ExerciseRef(Long id, String name, String category) {
+	}
+
+	private record PendingExercise(ExerciseRef exercise, ExportedExercise values) {
+	}
+
+	private record PendingExecution(long line, ExportedExecution values, LocalDateTime completedAt,
+			List<PendingExercise> exercises) {
+	}
+
+	private final TrainingExecutionRepository repo;
+	private final ExerciseRepository exerciseRepo;
+	private final UserRepository userRepo;
+	private final TrainingExecutionService executions;
+	private final TrainingActivityService activity;
+	private final PersonalRecordService records;
+	private final VolumeRollupService rollups;
+	private final ObjectMapper mapper;
+	private final EntityManager em;
+	private final TransactionTemplate tx;
+	private final int chunkSize;
+	private final Counter importedRows;
+
+	public TrainingImportService(TrainingExecutionRepository repo, ExerciseRepository exerciseRepo,
+			UserRepository userRepo, TrainingExecutionService executions, TrainingActivityService activity,
+			PersonalRecordService records, VolumeRollupService rollups, ObjectMapper mapper, EntityManager em,
+			PlatformTransactionManager transactionManager,
+			@Value("${app.import.chunk-size:1000}") int chunkSize, MeterRegistry meters) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("app.import.chunk-size must be positive");
+		}
+		this.repo = repo;
+		this.exerciseRepo = exerciseRepo;
+		this.userRepo = userRepo;
+		this.executions = executions;
+		this.activity = activity;
+		this.records = records;
+		this.rollups = rollups;
+		this.mapper = mapper;
+		this.em = em;
+		this.tx = new TransactionTemplate(transactionManager);
+		this.chunkSize = chunkSize;
+		this.importedRows = Counter.builder("training.import.rows").register(meters);
+	}
+
+	public ImportReport importHistory(Long userId, Format format, InputStream in) {
+		if (userId == null) {
+			throw new AccessDeniedException("Not authenticated");
+		}
+
+		Run run = new Run(userId, exerciseCatalog());
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8),
+				64 * 1024)) {
+			if (format == Format.CSV) {
+				readCsv(reader, run);
+			} else {
+				readNdjson(reader, run);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		run.flush();
+
+		// The refresh methods serve history written outside of the execution endpoints: imported trainings bypass
+		// their incremental updates and may be older than what is stored, so everything derived from the trainings
+		// is recomputed once all chunks have committed.
+		if (run.executionsImported > 0) {
+			executions.refreshStreak(userId);
+			activity.refresh(userId);
+			records.refresh(userId);
+			rollups.refresh(userId);
+		}
+		return new ImportReport(run.recordsRead, run.executionsImported, run.exercisesImported, run.rejected,
+				run.chunks, List.copyOf(run.errors));
+	}
+
+	private Map<String, ExerciseRef> exerciseCatalog() {
+		Map<String, ExerciseRef> byName = new HashMap<>();
+		for (Exercise e : exerciseRepo.findAll()) {
+			byName.put(key(e.getName()), new ExerciseRef(e.getId(), e.getName(), e.getCategory()));
+		}
+		return byName;
+	}
+
+	private static String key(String name) {
+		return name.trim().toLowerCase(Locale.ROOT);
+	}
+
+	private void readNdjson(BufferedReader reader, Run run) throws IOException {
+		String line;
+		long number = 0;
+		while ((line = reader.readLine()) != null) {
+			number++;
+			if (number == 1 && line.startsWith("\uFEFF"))
+				line = line.substring(1);
+			if (line.isBlank())
+				continue;
+			run.recordsRead++;
+
+			ExportedExecution execution;
+			try {
+				execution = mapper.readValue(line, ExportedExecution.class);
+			} catch (JsonProcessingException e) {
+				run.reject(number, "invalid JSON: " + e.getOriginalMessage());
+				continue;
+			}
+			run.accept(number, execution);
+		}
+	}
+
+	// consecutive rows with the same executionId (or startedAt, if there is no such column) form one execution
+	private void readCsv(BufferedReader reader, Run run) throws IOException {
+		CsvRecordReader csv = new CsvRecordReader(reader);
+		List<String> header = csv.next();
+		if (header == null) {
+			return;
+		}
+		if (!header.isEmpty() && header.get(0).startsWith("\uFEFF"))
+			header.set(0, header.get(0).substring(1));
+		CsvColumns columns = new CsvColumns(header);
+
+		String groupKey = null;
+		long groupLine = 0;
+		ExportedExecution group = null;
+		String groupError = null;
+
+		List<String> fields;
+		while (true) {
+			try {
+				fields = csv.next();
+			} catch (IllegalArgumentException e) {
+				// an unterminated quote swallows the rest of the input
+				run.reject(csv.recordLine(), e.getMessage());
+				break;
+			}
+			if (fields == null)
+				break;
+			if (fields.size() == 1 && fields.get(0).isBlank())
+				continue;
+			run.recordsRead++;
+
+			String rowKey = columns.groupKey(fields);
+			if (group == null && groupError == null || !rowKey.equals(groupKey)) {
+				finishGroup(run, groupLine, group, groupError);
+				groupKey = rowKey;
+				groupLine = csv.recordLine();
+				group = null;
+				groupError = null;
+				try {
+					group = columns.execution(fields);
+				} catch (IllegalArgumentException | DateTimeParseException e) {
+					groupError = e.getMessage();
+				}
+			}
+			if (groupError != null)
+				continue;
+
+			try {
+				ExportedExercise exercise = columns.exercise(fields);
+				if (exercise != null)
+					group.executedExercises().add(exercise);
+			} catch (IllegalArgumentException e) {
+				// report the offending row rather than the first row of its execution
+				groupLine = csv.recordLine();
+				groupError = e.getMessage();
+			}
+		}
+		finishGroup(run, groupLine, group, groupError);
+	}
+
+	private static void finishGroup(Run run, long line, ExportedExecution group, String error) {
+		if (error != null) {
+			run.reject(line, error);
+		} else if (group != null) {
+			run.accept(line, group);
+		}
+	}
+
+	private final class Run {
+
+		final Long userId;
+		final Map<String, ExerciseRef> catalog;
+		final List<PendingExecution> buffer = new ArrayList<>();
+		final List<LineError> errors = new ArrayList<>();
+		int bufferedRows;
+		long recordsRead;
+		int executionsImported;
+		int exercisesImported;
+		int rejected;
+		int chunks;
+
+		Run(Long userId, Map<String, ExerciseRef> catalog) {
+			this.userId = userId;
+			this.catalog = catalog;
+		}
+
+		void reject(long line, String message) {
+			rejected++;
+			if (errors.size() < MAX_REPORTED_ERRORS) {
+				errors.add(new LineError(line, message));
+			}
+		}
+
+		void accept(long line, ExportedExecution execution) {
+			PendingExecution pending;
+			try {
+				pending = validate(line, execution, catalog);
+			} catch (IllegalArgumentException e) {
+				reject(line, e.getMessage());
+				return;
+			}
+			buffer.add(pending);
+			bufferedRows += 1 + pending.exercises().size();
+			if (bufferedRows >= chunkSize) {
+				flush();
+			}
+		}
+
+		void flush() {
+			if (buffer.isEmpty())
+				return;
+
+			try {
+				tx.executeWithoutResult(status -> {
+					User user = userRepo.getReferenceById(userId);
+					List<TrainingExecution> entities = new ArrayList<>(buffer.size());
+					for (PendingExecution p : buffer) {
+						entities.add(toEntity(user, p));
+					}
+					repo.saveAll(entities);
+					// open-in-view keeps one persistence context for the whole request; without this every
+					// commit would dirty-check all previously imported chunks again
+					em.flush();
+					em.clear();
+				});
+				chunks++;
+				executionsImported += buffer.size();
+				int exercises = bufferedRows - buffer.size();
+				exercisesImported += exercises;
+				importedRows.increment(bufferedRows);
+			} catch (DataAccessException | TransactionException e) {
+				for (PendingExecution p : buffer) {
+					reject(p.line(), "not stored: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+				}
+			}
+			buffer.clear();
+			bufferedRows = 0;
+		}
+
+		private TrainingExecution toEntity(User user, PendingExecution p) {
+			ExportedExecution v = p.values();
+			TrainingExecution te = new TrainingExecution();
+			te.setUser(user);
+			te.setSessionNameSnapshot(blankToNull(v.sessionName()));
+			te.setPlanNameSnapshot(blankToNull(v.planName()));
+			te.setStatus(TrainingExecution.Status.COMPLETED);
+			te.setStartedAt(v.startedAt());
+			te.setCompletedAt(p.completedAt());
+
+			for (PendingExercise pe : p.exercises()) {
+				ExportedExercise x = pe.values();
+				int actualSets = x.actualSets() != null ? x.actualSets() : 0;
+				int actualReps = x.actualReps() != null ? x.actualReps() : 0;
+				double actualWeight = x.actualWeightKg() != null ? x.actualWeightKg() : 0.0;
+
+				ExecutedExercise ee = new ExecutedExercise();
+				ee.setTrainingExecution(te);
+				ee.setExercise(exerciseRepo.getReferenceById(pe.exercise().id()));
+				ee.setExerciseNameSnapshot(pe.exercise().name());
+				ee.setExerciseCategorySnapshot(pe.exercise().category());
+				ee.setPlannedSets(x.plannedSets() != null ? x.plannedSets() : Math.max(actualSets, 1));
+				ee.setPlannedReps(x.plannedReps() != null ? x.plannedReps() : Math.max(actualReps, 1));
+				ee.setPlannedWeightKg(x.plannedWeightKg() != null ? x.plannedWeightKg() : actualWeight);
+				ee.setActualSets(actualSets);
+				ee.setActualReps(actualReps);
+				ee.setActualWeightKg(actualWeight);
+				ee.setDone(x.done() != null ? x.done() : actualSets > 0);
+				ee.setNotes(blankToNull(x.notes()));
+				te.getExecutedExercises().add(ee);
+			}
+			return te;
+		}
+	}
+
+	// everything the database would reject is caught here, so a chunk only fails on infrastructure errors
+	private static PendingExecution validate(long line, ExportedExecution v, Map<String, ExerciseRef> catalog) {
+		if (v.startedAt() == null) {
+			throw new IllegalArgumentException("startedAt is required");
+		}
+		if (v.startedAt().isAfter(LocalDateTime.now())) {
+			throw new IllegalArgumentException("startedAt must not be in the future");
+		}
+		if (v.startedAt().isBefore(MIN_STARTED_AT)) {
+			throw new IllegalArgumentException("startedAt must not be before 1970-01-01");
+		}
+		if (v.status() != null && !v.status().isBlank()
+				&& !TrainingExecution.Status.COMPLETED.name().equalsIgnoreCase(v.status().trim())) {
+			throw new IllegalArgumentException("only completed trainings can be imported");
+		}
+		LocalDateTime completedAt = v.completedAt() != null ? v.completedAt() : v.startedAt();
+		if (completedAt.isBefore(v.startedAt())) {
+			throw new IllegalArgumentException("completedAt must not be before startedAt");
+		}
+		if (completedAt.isAfter(LocalDateTime.now())) {
+			throw new IllegalArgumentException("completedAt must not be in the future");
+		}
+		requireMaxLength("sessionName", v.sessionName(), MAX_NAME_LENGTH);
+		requireMaxLength("planName", v.planName(), MAX_NAME_LENGTH);
+
+		List<ExportedExercise> values = v.executedExercises() != null ? v.executedExercises() : List.of();
+		if (values.size() > MAX_EXERCISES_PER_EXECUTION) {
+			throw new IllegalArgumentException(
+					"at most " + MAX_EXERCISES_PER_EXECUTION + " exercises per training are allowed");
+		}
+
+		List<PendingExercise> exercises = new ArrayList<>(values.size());
+		Set<Long> seen = new HashSet<>();
+		for (ExportedExercise x : values) {
+			if (x == null || x.exerciseName() == null || x.exerciseName().isBlank()) {
+				throw new IllegalArgumentException("exerciseName is required");
+			}
+			ExerciseRef ref = catalog.get(key(x.exerciseName()));
+			if (ref == null) {
+				throw new IllegalArgumentException("unknown exercise '" + x.exerciseName().trim() + "'");
+			}
+			if (!seen.add(ref.id())) {
+				throw new IllegalArgumentException("exercise '" + ref.name() + "' appears more than once");
+			}
+			requireMin("plannedSets", x.plannedSets(), 1);
+			requireMin("plannedReps", x.plannedReps(), 1);
+			requireMin("plannedWeightKg", x.plannedWeightKg(), 0);
+			requireMin("actualSets", x.actualSets(), 0);
+			requireMin("actualReps", x.actualReps(), 0);
+			requireMin("actualWeightKg", x.actualWeightKg(), 0);
+			requireMaxLength("notes", x.notes(), MAX_NOTES_LENGTH);
+			exercises.add(new PendingExercise(ref, x));
+		}
+		return new PendingExecution(line, v, completedAt, exercises);
+	}
+
+	private static void requireMin(String field, Number value, int min) {
+		if (value != null && value.doubleValue() < min) {
+			throw new IllegalArgumentException(field + " must be >= " + min);
+		}
+	}
+
+	private static void requireMaxLength(String field, String value, int max) {
+		if (value != null && value.length() > max) {
+			throw new IllegalArgumentException(field + " must be at most " + max + " characters");
+		}
+	}
+
+	private static String blankToNull(String s) {
+		return s == null || s.isBlank() ? null : s.trim();
+	}
+
+	// maps the export header (in any column order) back onto the NDJSON records
+	private static final class CsvColumns {
+
+		private final Map<String, Integer> index = new HashMap<>();
+
+		CsvColumns(List<String> header) {
+			for (int i = 0; i < header.size(); i++) {
+				index.put(header.get(i).trim(), i);
+			}
+			if (!index.containsKey("startedAt")) {
+				throw new IllegalArgumentException("CSV header must contain a startedAt column");
+			}
+		}
+
+		String groupKey(List<String> row) {
+			String key = value(row, "executionId");
+			return key != null ? key : String.valueOf(value(row, "startedAt"));
+		}
+
+		ExportedExecution execution(List<String> row) {
+			return new ExportedExecution(null, null, value(row, "sessionName"), value(row, "planName"),
+					value(row, "status"), dateTime(row, "startedAt"), dateTime(row, "completedAt"),
+					new ArrayList<>());
+		}
+
+		ExportedExercise exercise(List<String> row) {
+			String name = value(row, "exerciseName");
+			if (name == null)
+				return null;
+			return new ExportedExercise(null, null, name, null, integer(row, "plannedSets"),
+					integer(row, "plannedReps"), decimal(row, "plannedWeightKg"), integer(row, "actualSets"),
+					integer(row, "actualReps"), decimal(row, "actualWeightKg"), bool(row, "done"),
+					value(row, "notes"));
+		}
+
+		private String value(List<String> row, String column) {
+			Integer i = index.get(column);
+			if (i == null || i >= row.size())
+				return null;
+			String v = row.get(i);
+			return v.isBlank() ? null : v;
+		}
+
+		private LocalDateTime dateTime(List<String> row, String column) {
+			String v = value(row, column);
+			try {
+				return v != null ? LocalDateTime.parse(v.trim()) : null;
+			} catch (DateTimeParseException e) {
+				throw new IllegalArgumentException(column + " must be an ISO date-time");
+			}
+		}
+
+		private Integer integer(List<String> row, String column) {
+			String v = value(row, column);
+			try {
+				return v != null ? Integer.valueOf(v.trim()) : null;
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException(column + " must be a whole number");
+			}
+		}
+
+		private Double decimal(List<String> row, String column) {
+			String v = value(row, column);
+			try {
+				return v != null ? Double.valueOf(v.trim()) : null;
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException(column + " must be a number");
+			}
+		}
+
+		private Boolean bool(List<String> row, String column) {
+			String v = value(row, column);
+			if (v == null)
+				return null;
+			if (v.trim().equalsIgnoreCase("true"))
+				return Boolean.TRUE;
+			if (v.trim().equalsIgnoreCase("false"))
+				return Boolean.FALSE;
+			throw new IllegalArgumentException(column + " must be true or false");
+		}
+	}
+}
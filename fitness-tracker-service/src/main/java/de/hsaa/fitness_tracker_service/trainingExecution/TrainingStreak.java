@@ -0,0 +1,58 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "training_streaks")
+public class TrainingStreak {
+
+	@Id
+	@Column(name = "user_id")
+	private Long userId;
+
+	@Column(name = "current_streak", nullable = false)
+	private int currentStreak;
+
+	@Column(name = "longest_streak", nullable = false)
+	private int longestStreak;
+
+	@Column(name = "last_training_day")
+	private LocalDate lastTrainingDay;
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public void setUserId(Long userId) {
+		this.userId = userId;
+	}
+
+	public int getCurrentStreak() {
+		return currentStreak;
+	}
+
+	public void setCurrentStreak(int currentStreak) {
+		this.currentStreak = currentStreak;
+	}
+
+	public int getLongestStreak() {
+		return longestStreak;
+	}
+
+	public void setLongestStreak(int longestStreak) {
+		this.longestStreak = longestStreak;
+	}
+
+	public LocalDate getLastTrainingDay() {
+		return lastTrainingDay;
+	}
+
+	public void setLastTrainingDay(LocalDate lastTrainingDay) {
+		this.lastTrainingDay = lastTrainingDay;
+	}
+}
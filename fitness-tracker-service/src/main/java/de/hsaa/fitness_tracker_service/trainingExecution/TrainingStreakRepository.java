@@ -0,0 +1,17 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+
+public interface TrainingStreakRepository extends JpaRepository<TrainingStreak, Long> {
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select s from TrainingStreak s where s.userId = :userId")
+	Optional<TrainingStreak> findForUpdate(@Param("userId") Long userId);
+}
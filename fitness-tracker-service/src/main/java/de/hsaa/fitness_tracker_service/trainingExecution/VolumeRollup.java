@@ -0,0 +1,144 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+// Completed-training totals per user and calendar week (starting Monday) or month. The dimension key is empty for
+// the TOTAL row, the exercise id for EXERCISE rows and the category name for CATEGORY rows.
+@Entity
+@Table(name = "volume_rollups", uniqueConstraints = { @UniqueConstraint(columnNames = { "user_id", "period",
+		"dimension", "dimension_key", "period_start" }) })
+public class VolumeRollup {
+
+	public enum Period {
+		WEEK, MONTH
+	}
+
+	public enum Dimension {
+		TOTAL, EXERCISE, CATEGORY
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "volume_rollups_seq")
+	@SequenceGenerator(name = "volume_rollups_seq", sequenceName = "volume_rollups_seq", allocationSize = 50)
+	private Long id;
+
+	@Column(name = "user_id", nullable = false, updatable = false)
+	private Long userId;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, updatable = false, length = 8)
+	private Period period;
+
+	@Column(name = "period_start", nullable = false, updatable = false)
+	private LocalDate periodStart;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, updatable = false, length = 8)
+	private Dimension dimension;
+
+	@Column(name = "dimension_key", nullable = false, updatable = false)
+	private String dimensionKey;
+
+	@Column(name = "tonnage_kg", nullable = false)
+	private double tonnageKg;
+
+	@Column(nullable = false)
+	private int sets;
+
+	@Column(nullable = false)
+	private long reps;
+
+	@Column(nullable = false)
+	private int sessions;
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public void setUserId(Long userId) {
+		this.userId = userId;
+	}
+
+	public Period getPeriod() {
+		return period;
+	}
+
+	public void setPeriod(Period period) {
+		this.period = period;
+	}
+
+	public LocalDate getPeriodStart() {
+		return periodStart;
+	}
+
+	public void setPeriodStart(LocalDate periodStart) {
+		this.periodStart = periodStart;
+	}
+
+	public Dimension getDimension() {
+		return dimension;
+	}
+
+	public void setDimension(Dimension dimension) {
+		this.dimension = dimension;
+	}
+
+	public String getDimensionKey() {
+		return dimensionKey;
+	}
+
+	public void setDimensionKey(String dimensionKey) {
+		this.dimensionKey = dimensionKey;
+	}
+
+	public double getTonnageKg() {
+		return tonnageKg;
+	}
+
+	public void setTonnageKg(double tonnageKg) {
+		this.tonnageKg = tonnageKg;
+	}
+
+	public int getSets() {
+		return sets;
+	}
+
+	public void setSets(int sets) {
+		this.sets = sets;
+	}
+
+	public long getReps() {
+		return reps;
+	}
+
+	public void setReps(long reps) {
+		this.reps = reps;
+	}
+
+	public int getSessions() {
+		return sessions;
+	}
+
+	public void setSessions(int sessions) {
+		this.sessions = sessions;
+	}
+}
@@ -0,0 +1,31 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Start with --app.stats.rollups.rebuild=true to recompute all volume rollups, e.g. after changing how they are
+// derived. Best run while no trainings are being completed.
+@Component
+@ConditionalOnProperty(name = "app.stats.rollups.rebuild", havingValue = "true")
+public class VolumeRollupRebuildRunner implements ApplicationRunner {
+
+	private static final Logger log = LoggerFactory.getLogger(VolumeRollupRebuildRunner.class);
+
+	private final VolumeRollupService rollups;
+
+	public VolumeRollupRebuildRunner(VolumeRollupService rollups) {
+		this.rollups = rollups;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		long started = System.nanoTime();
+		VolumeRollupService.RebuildReport report = rollups.rebuildAll();
+		log.info("rebuilt volume rollups of {} users in {} chunks in {} ms", report.users(), report.chunks(),
+				(System.nanoTime() - started) / 1_000_000);
+	}
+}
@@ -0,0 +1,45 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+
+public interface VolumeRollupRepository extends JpaRepository<VolumeRollup, Long> {
+
+	@Query("""
+			    select r from VolumeRollup r
+			    where r.userId = :userId
+			      and r.period = :period
+			      and r.dimension = :dimension
+			      and r.dimensionKey = :dimensionKey
+			      and r.periodStart between :from and :to
+			    order by r.periodStart
+			""")
+	List<VolumeRollup> findRange(@Param("userId") Long userId, @Param("period") VolumeRollup.Period period,
+			@Param("dimension") VolumeRollup.Dimension dimension, @Param("dimensionKey") String dimensionKey,
+			@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+	// every row one completed training can touch: its week and its month
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("""
+			    select r from VolumeRollup r
+			    where r.userId = :userId
+			      and ((r.period = :weekly and r.periodStart = :week)
+			        or (r.period = :monthly and r.periodStart = :month))
+			""")
+	List<VolumeRollup> findForUpdate(@Param("userId") Long userId, @Param("weekly") VolumeRollup.Period weekly,
+			@Param("week") LocalDate week, @Param("monthly") VolumeRollup.Period monthly,
+			@Param("month") LocalDate month);
+
+	@Modifying
+	@Query("delete from VolumeRollup r where r.userId in :userIds")
+	void deleteByUsers(@Param("userIds") Collection<Long> userIds);
+}
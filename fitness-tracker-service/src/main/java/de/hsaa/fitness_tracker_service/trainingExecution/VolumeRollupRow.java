@@ -0,0 +1,9 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.time.LocalDateTime;
+
+// One executed exercise of a completed training, or none for a training without any; the stream is ordered by
+// training so a rebuild can group the exercises of one training.
+public record VolumeRollupRow(Long executionId, Long userId, LocalDateTime completedAt,
+		ExecutedExercise executedExercise) {
+}
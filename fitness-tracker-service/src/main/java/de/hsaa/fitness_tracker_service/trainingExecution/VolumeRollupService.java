@@ -0,0 +1,297 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.hsaa.fitness_tracker_service.outbox.OutboxEvent;
+import de.hsaa.fitness_tracker_service.outbox.OutboxListener;
+import de.hsaa.fitness_tracker_service.trainingExecution.VolumeRollup.Dimension;
+import de.hsaa.fitness_tracker_service.trainingExecution.VolumeRollup.Period;
+
+// Weekly and monthly totals of completed trainings. Each completion event adds one training to its week and month;
+// rebuildAll() recomputes everything from the history.
+@Service
+@Transactional
+public class VolumeRollupService implements OutboxListener {
+
+	private static final String TOTAL_KEY = "";
+
+	public record RebuildReport(int users, int chunks) {
+	}
+
+	private record Key(Long userId, Period period, LocalDate periodStart, Dimension dimension, String dimensionKey) {
+	}
+
+	private final VolumeRollupRepository repo;
+	private final TrainingExecutionRepository executionRepo;
+	private final TransactionTemplate tx;
+	private final int rebuildThreads;
+	private final int rebuildChunkSize;
+
+	public VolumeRollupService(VolumeRollupRepository repo, TrainingExecutionRepository executionRepo,
+			PlatformTransactionManager transactionManager,
+			@Value("${app.stats.rollups.rebuild-threads:0}") int rebuildThreads,
+			@Value("${app.stats.rollups.rebuild-chunk-size:100}") int rebuildChunkSize) {
+		if (rebuildChunkSize < 1) {
+			throw new IllegalArgumentException("app.stats.rollups.rebuild-chunk-size must be positive");
+		}
+		this.repo = repo;
+		this.executionRepo = executionRepo;
+		this.tx = new TransactionTemplate(transactionManager);
+		this.rebuildThreads = rebuildThreads > 0 ? rebuildThreads : Runtime.getRuntime().availableProcessors();
+		this.rebuildChunkSize = rebuildChunkSize;
+	}
+
+	@Override
+	public String name() {
+		return "volume-rollups";
+	}
+
+	@Override
+	public Set<OutboxEvent.Type> types() {
+		return EnumSet.of(OutboxEvent.Type.TRAINING_COMPLETED);
+	}
+
+	// receipts dedupe redelivery, the rolled-up flag dedupes an event against a rebuild
+	@Override
+	public void handle(List<OutboxEvent> events) {
+		for (OutboxEvent e : events) {
+			executionRepo.findWithExercisesByIdAndUserId(e.getExecutionId(), e.getUserId())
+					.filter(te -> te.getStatus() == TrainingExecution.Status.COMPLETED)
+					.ifPresent(te -> record(e.getUserId(), te));
+		}
+	}
+
+	public static LocalDate periodStart(Period period, LocalDate day) {
+		return period == Period.WEEK ? day.with(DayOfWeek.MONDAY) : day.withDayOfMonth(1);
+	}
+
+	@Transactional(readOnly = true)
+	public List<VolumeRollup> range(Long userId, Period period, Dimension dimension, String dimensionKey,
+			LocalDate from, LocalDate to) {
+		requireAuthenticated(userId);
+		if (from.isAfter(to)) {
+			throw new IllegalArgumentException("from must not be after to");
+		}
+		String key = dimension == Dimension.TOTAL ? TOTAL_KEY : dimensionKey;
+		if (key == null) {
+			throw new IllegalArgumentException(
+					"a key is required for " + dimension.name().toLowerCase(Locale.ROOT) + " rollups");
+		}
+		return repo.findRange(userId, period, dimension, key, periodStart(period, from), to);
+	}
+
+	// adds a training that has just been completed, unless a rebuild has counted it already
+	public void record(Long userId, TrainingExecution te) {
+		if (executionRepo.markRolledUp(te.getId()) == 0)
+			return;
+		LocalDate day = te.getCompletedAt().toLocalDate();
+
+		Map<Key, VolumeRollup> rows = new HashMap<>();
+		for (VolumeRollup r : repo.findForUpdate(userId, Period.WEEK, periodStart(Period.WEEK, day),
+				Period.MONTH, periodStart(Period.MONTH, day))) {
+			rows.put(key(r), r);
+		}
+
+		accumulate(rows, userId, day, te.getExecutedExercises());
+		for (VolumeRollup r : rows.values()) {
+			if (r.getId() == null)
+				repo.save(r);
+		}
+	}
+
+	public void refresh(Long userId) {
+		requireAuthenticated(userId);
+		rebuild(List.of(userId));
+	}
+
+	// Recomputes the rollups of every user. Users are split into chunks that run in parallel, each in its own
+	// transaction, so a failure only rolls back its own chunk.
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public RebuildReport rebuildAll() {
+		List<Long> userIds = executionRepo.findUserIdsWithStatus(TrainingExecution.Status.COMPLETED);
+
+		List<List<Long>> chunks = new ArrayList<>();
+		for (int i = 0; i < userIds.size(); i += rebuildChunkSize) {
+			chunks.add(userIds.subList(i, Math.min(i + rebuildChunkSize, userIds.size())));
+		}
+
+		AtomicInteger counter = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(rebuildThreads, chunks.size())),
+				r -> {
+					Thread t = new Thread(r, "rollup-rebuild-" + counter.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				});
+		try {
+			List<Future<?>> futures = new ArrayList<>(chunks.size());
+			for (List<Long> chunk : chunks) {
+				futures.add(pool.submit(() -> tx.executeWithoutResult(status -> rebuild(chunk))));
+			}
+			for (Future<?> f : futures) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while rebuilding rollups", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		return new RebuildReport(userIds.size(), chunks.size());
+	}
+
+	// Claims the trainings first: a completion event that is still pending then finds them counted and is skipped,
+	// and one being recorded right now holds the row locks until it has committed.
+	private void rebuild(Collection<Long> userIds) {
+		executionRepo.markRolledUpByUsers(userIds, TrainingExecution.Status.COMPLETED);
+		repo.deleteByUsers(userIds);
+
+		// rows arrive ordered by training, so only the exercises of the training being counted are held in memory
+		Map<Key, VolumeRollup> rows = new HashMap<>();
+		try (Stream<VolumeRollupRow> stream = executionRepo.streamRollupRows(userIds,
+				TrainingExecution.Status.COMPLETED)) {
+			Iterator<VolumeRollupRow> it = stream.iterator();
+			VolumeRollupRow head = null;
+			List<ExecutedExercise> exercises = new ArrayList<>();
+			while (it.hasNext()) {
+				VolumeRollupRow row = it.next();
+				if (head != null && !head.executionId().equals(row.executionId())) {
+					accumulate(rows, head, exercises);
+					exercises = new ArrayList<>();
+				}
+				head = row;
+				if (row.executedExercise() != null)
+					exercises.add(row.executedExercise());
+			}
+			if (head != null)
+				accumulate(rows, head, exercises);
+		}
+		repo.saveAll(rows.values());
+	}
+
+	private static void accumulate(Map<Key, VolumeRollup> rows, VolumeRollupRow training,
+			Collection<ExecutedExercise> exercises) {
+		if (training.completedAt() != null)
+			accumulate(rows, training.userId(), training.completedAt().toLocalDate(), exercises);
+	}
+
+	private static void accumulate(Map<Key, VolumeRollup> rows, Long userId, LocalDate day,
+			Collection<ExecutedExercise> exercises) {
+		for (Period period : Period.values()) {
+			LocalDate start = periodStart(period, day);
+			VolumeRollup total = row(rows, new Key(userId, period, start, Dimension.TOTAL, TOTAL_KEY));
+			total.setSessions(total.getSessions() + 1);
+
+			Set<String> categories = new HashSet<>();
+			for (ExecutedExercise ee : exercises) {
+				int sets = sets(ee);
+				if (sets == 0)
+					continue;
+				long reps = reps(ee);
+				double tonnage = PersonalRecordService.Metrics.of(ee).volumeKg();
+
+				add(total, sets, reps, tonnage);
+
+				if (ee.getExercise() != null) {
+					VolumeRollup exercise = row(rows,
+							new Key(userId, period, start, Dimension.EXERCISE, ee.getExercise().getId().toString()));
+					add(exercise, sets, reps, tonnage);
+					exercise.setSessions(exercise.getSessions() + 1);
+				}
+
+				String category = category(ee);
+				if (category != null) {
+					VolumeRollup byCategory = row(rows, new Key(userId, period, start, Dimension.CATEGORY, category));
+					add(byCategory, sets, reps, tonnage);
+					if (categories.add(category))
+						byCategory.setSessions(byCategory.getSessions() + 1);
+				}
+			}
+		}
+	}
+
+	private static VolumeRollup row(Map<Key, VolumeRollup> rows, Key key) {
+		return rows.computeIfAbsent(key, k -> {
+			VolumeRollup r = new VolumeRollup();
+			r.setUserId(k.userId());
+			r.setPeriod(k.period());
+			r.setPeriodStart(k.periodStart());
+			r.setDimension(k.dimension());
+			r.setDimensionKey(k.dimensionKey());
+			return r;
+		});
+	}
+
+	private static Key key(VolumeRollup r) {
+		return new Key(r.getUserId(), r.getPeriod(), r.getPeriodStart(), r.getDimension(), r.getDimensionKey());
+	}
+
+	private static void add(VolumeRollup r, int sets, long reps, double tonnageKg) {
+		r.setSets(r.getSets() + sets);
+		r.setReps(r.getReps() + reps);
+		r.setTonnageKg(Math.round((r.getTonnageKg() + tonnageKg) * 100) / 100.0);
+	}
+
+	private static int sets(ExecutedExercise ee) {
+		int logged = SetLog.count(ee.getSetLog());
+		if (logged > 0)
+			return logged;
+		return ee.getActualSets() != null ? ee.getActualSets() : 0;
+	}
+
+	private static long reps(ExecutedExercise ee) {
+		byte[] log = ee.getSetLog();
+		int logged = SetLog.count(log);
+		if (logged == 0)
+			return ee.getActualReps() != null ? (long) ee.getActualReps() * sets(ee) : 0;
+
+		long reps = 0;
+		for (int i = 0; i < logged; i++) {
+			reps += SetLog.reps(log, i);
+		}
+		return reps;
+	}
+
+	// the category at the time of the training
+	private static String category(ExecutedExercise ee) {
+		String category = ee.getExerciseCategorySnapshot();
+		if ((category == null || category.isBlank()) && ee.getExercise() != null)
+			category = ee.getExercise().getCategory();
+		return category == null || category.isBlank() ? null : category.trim();
+	}
+
+	private static void requireAuthenticated(Long userId) {
+		if (userId == null) {
+			throw new AccessDeniedException("Not authenticated");
+		}
+	}
+}
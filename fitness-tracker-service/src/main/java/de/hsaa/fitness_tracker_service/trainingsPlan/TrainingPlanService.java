@@ -1,11 +1,17 @@
 package de.hsaa.fitness_tracker_service.trainingsPlan;
 
+import java.util.List;
+
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import de.hsaa.fitness_tracker_service.execution.ExerciseExecutionRepository;
+import de.hsaa.fitness_tracker_service.trainingExecution.TrainingExecutionRepository;
+import de.hsaa.fitness_tracker_service.trainingsSession.TrainingSessionRepository;
+import de.hsaa.fitness_tracker_service.trainingsSessionDay.SessionDayRepository;
 import jakarta.persistence.EntityNotFoundException;
 
 @Service
@@ -13,9 +19,19 @@ import jakarta.persistence.EntityNotFoundException;
 public class TrainingPlanService {
 
 	private final TrainingPlanRepository repo;
+	private final TrainingSessionRepository sessionRepo;
+	private final SessionDayRepository sessionDayRepo;
+	private final ExerciseExecutionRepository exerciseExecutionRepo;
+	private final TrainingExecutionRepository trainingExecutionRepo;
 
-	public TrainingPlanService(TrainingPlanRepository repo) {
+	public TrainingPlanService(TrainingPlanRepository repo, TrainingSessionRepository sessionRepo,
+			SessionDayRepository sessionDayRepo, ExerciseExecutionRepository exerciseExecutionRepo,
+			TrainingExecutionRepository trainingExecutionRepo) {
 		this.repo = repo;
+		this.sessionRepo = sessionRepo;
+		this.sessionDayRepo = sessionDayRepo;
+		this.exerciseExecutionRepo = exerciseExecutionRepo;
+		this.trainingExecutionRepo = trainingExecutionRepo;
 	}
 
 	public TrainingPlan create(TrainingPlan p) {
@@ -49,10 +65,16 @@ public class TrainingPlanService {
 		return current;
 	}
 
+	// A fixed number of bulk statements however large the plan is: the trainings of all its sessions are detached
+	// with their snapshots filled in, like a session delete does, then days, planned exercises, sessions and the
+	// plan are deleted. Nothing is loaded, so nothing cascades entity by entity.
 	public void delete(Long id) {
-		if (!repo.existsById(id))
-			throw new EntityNotFoundException("plan not found");
-		repo.deleteById(id);
+		TrainingPlan plan = get(id);
+		trainingExecutionRepo.detachFromPlan(id, plan.getName());
+		sessionDayRepo.deleteByPlanId(id);
+		exerciseExecutionRepo.deleteByPlanId(id);
+		sessionRepo.deleteByPlanId(id);
+		repo.deleteAllByIdInBatch(List.of(id));
 	}
 
 	private static void normalize(TrainingPlan p) {
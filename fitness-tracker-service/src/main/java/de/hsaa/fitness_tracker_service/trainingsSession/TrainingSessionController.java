@@ -1,6 +1,5 @@
 package de.hsaa.fitness_tracker_service.trainingsSession;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -9,11 +8,7 @@ import java.util.stream.Collectors;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AnonymousAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -23,16 +18,15 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import de.hsaa.fitness_tracker_service.execution.ExerciseExecution;
 import de.hsaa.fitness_tracker_service.execution.ExerciseExecutionRepository;
+import de.hsaa.fitness_tracker_service.security.AuthenticatedUser;
+import de.hsaa.fitness_tracker_service.security.CurrentUser;
 import de.hsaa.fitness_tracker_service.trainingExecution.TrainingExecutionRepository;
 import de.hsaa.fitness_tracker_service.trainingsSessionDay.SessionDay;
-import de.hsaa.fitness_tracker_service.user.User;
-import de.hsaa.fitness_tracker_service.user.UserRepository;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
@@ -46,14 +40,12 @@ public class TrainingSessionController {
 	private final TrainingSessionService service;
 	private final TrainingExecutionRepository trainingExecutionRepo;
 	private final ExerciseExecutionRepository exerciseExecutionRepo;
-	private final UserRepository userRepo;
 
 	public TrainingSessionController(TrainingSessionService service, TrainingExecutionRepository trainingExecutionRepo,
-			ExerciseExecutionRepository exerciseExecutionRepo, UserRepository userRepo) {
+			ExerciseExecutionRepository exerciseExecutionRepo) {
 		this.service = service;
 		this.trainingExecutionRepo = trainingExecutionRepo;
 		this.exerciseExecutionRepo = exerciseExecutionRepo;
-		this.userRepo = userRepo;
 	}
 
 	public record CreateSessionRequest(@NotNull Long planId, @NotBlank String name,
@@ -97,11 +89,11 @@ public class TrainingSessionController {
 	}
 
 	@GetMapping
-	public Page<TrainingSessionResponse> list(@PageableDefault(size = 20) Pageable pageable) {
+	public Page<TrainingSessionResponse> list(@CurrentUser(required = false) AuthenticatedUser me,
+			@PageableDefault(size = 20) Pageable pageable) {
 		Page<TrainingSession> page = service.list(pageable);
 
-		User currentUser = resolveCurrentUserOrNull();
-		Map<Long, Long> performed = loadPerformedCounts(page.getContent(), currentUser);
+		Map<Long, Long> performed = loadPerformedCounts(page.getContent(), me);
 		Map<Long, Long> exerciseCounts = loadExerciseCounts(page.getContent());
 
 		return page.map(s -> toDto(s, false, exerciseCounts.getOrDefault(s.getId(), 0L),
@@ -109,12 +101,11 @@ public class TrainingSessionController {
 	}
 
 	@GetMapping(params = "planId")
-	public Page<TrainingSessionResponse> listByPlan(@RequestParam Long planId,
-			@PageableDefault(size = 20) Pageable pageable) {
+	public Page<TrainingSessionResponse> listByPlan(@CurrentUser(required = false) AuthenticatedUser me,
+			@RequestParam Long planId, @PageableDefault(size = 20) Pageable pageable) {
 		Page<TrainingSession> page = service.listByPlan(planId, pageable);
 
-		User currentUser = resolveCurrentUserOrNull();
-		Map<Long, Long> performed = loadPerformedCounts(page.getContent(), currentUser);
+		Map<Long, Long> performed = loadPerformedCounts(page.getContent(), me);
 		Map<Long, Long> exerciseCounts = loadExerciseCounts(page.getContent());
 
 		return page.map(s -> toDto(s, false, exerciseCounts.getOrDefault(s.getId(), 0L),
@@ -122,14 +113,12 @@ public class TrainingSessionController {
 	}
 
 	@GetMapping("/{id}")
-	public TrainingSessionResponse get(@PathVariable Long id) {
+	public TrainingSessionResponse get(@CurrentUser(required = false) AuthenticatedUser me, @PathVariable Long id) {
 		TrainingSession s = service.get(id);
 
-		User currentUser = resolveCurrentUserOrNull();
-
 		long performedCount = 0L;
-		if (currentUser != null) {
-			performedCount = trainingExecutionRepo.countBySessionOrSnapshotAndUser(id, currentUser);
+		if (me != null) {
+			performedCount = trainingExecutionRepo.countByEffectiveSessionIdAndUserId(id, me.getId());
 		}
 
 		long exerciseCount = s.getExerciseExecutions() != null ? s.getExerciseExecutions().size() : 0L;
@@ -145,13 +134,13 @@ public class TrainingSessionController {
 	}
 
 	@PutMapping("/{id}")
-	public TrainingSessionResponse put(@PathVariable Long id, @Valid @RequestBody UpdateSessionRequest req) {
+	public TrainingSessionResponse put(@CurrentUser(required = false) AuthenticatedUser me, @PathVariable Long id,
+			@Valid @RequestBody UpdateSessionRequest req) {
 		var updated = service.update(id, req.planId(), req.name(), req.days());
 
-		User currentUser = resolveCurrentUserOrNull();
 		long performedCount = 0L;
-		if (currentUser != null) {
-			performedCount = trainingExecutionRepo.countBySessionOrSnapshotAndUser(id, currentUser);
+		if (me != null) {
+			performedCount = trainingExecutionRepo.countByEffectiveSessionIdAndUserId(id, me.getId());
 		}
 
 		long exerciseCount = updated.getExerciseExecutions() != null ? updated.getExerciseExecutions().size() : 0L;
@@ -160,13 +149,13 @@ public class TrainingSessionController {
 	}
 
 	@PatchMapping("/{id}")
-	public TrainingSessionResponse patch(@PathVariable Long id, @RequestBody UpdateSessionRequest req) {
+	public TrainingSessionResponse patch(@CurrentUser(required = false) AuthenticatedUser me, @PathVariable Long id,
+			@RequestBody UpdateSessionRequest req) {
 		var updated = service.update(id, req.planId(), req.name(), req.days());
 
-		User currentUser = resolveCurrentUserOrNull();
 		long performedCount = 0L;
-		if (currentUser != null) {
-			performedCount = trainingExecutionRepo.countBySessionOrSnapshotAndUser(id, currentUser);
+		if (me != null) {
+			performedCount = trainingExecutionRepo.countByEffectiveSessionIdAndUserId(id, me.getId());
 		}
 
 		long exerciseCount = updated.getExerciseExecutions() != null ? updated.getExerciseExecutions().size() : 0L;
@@ -174,13 +163,14 @@ public class TrainingSessionController {
 		return toDto(updated, true, exerciseCount, performedCount);
 	}
 
+	// 202 when the session has too long a history to be deleted within the request
 	@DeleteMapping("/{id}")
-	@ResponseStatus(HttpStatus.NO_CONTENT)
-	public void delete(@PathVariable Long id) {
-		service.delete(id);
+	public ResponseEntity<Void> delete(@PathVariable Long id) {
+		return service.delete(id) == TrainingSessionService.Deletion.SCHEDULED ? ResponseEntity.accepted().build()
+				: ResponseEntity.noContent().build();
 	}
 
-	private Map<Long, Long> loadPerformedCounts(List<TrainingSession> sessions, User currentUser) {
+	private Map<Long, Long> loadPerformedCounts(List<TrainingSession> sessions, AuthenticatedUser currentUser) {
 		List<Long> ids = sessions.stream().map(TrainingSession::getId).filter(Objects::nonNull).toList();
 		if (ids.isEmpty())
 			return Map.of();
@@ -189,23 +179,8 @@ public class TrainingSessionController {
 			return Map.of();
 		}
 
-		Map<Long, Long> out = new HashMap<>();
-
-		List<Object[]> rows1 = trainingExecutionRepo.countBySessionIdsAndUser(ids, currentUser);
-		for (Object[] r : rows1) {
-			Long id = (Long) r[0];
-			Long cnt = (Long) r[1];
-			out.merge(id, cnt, Long::sum);
-		}
-
-		List<Object[]> rows2 = trainingExecutionRepo.countBySessionIdSnapshotsAndUser(ids, currentUser);
-		for (Object[] r : rows2) {
-			Long id = (Long) r[0];
-			Long cnt = (Long) r[1];
-			out.merge(id, cnt, Long::sum);
-		}
-
-		return out;
+		List<Object[]> rows = trainingExecutionRepo.countByEffectiveSessionIdsAndUser(ids, currentUser.getId());
+		return rows.stream().collect(Collectors.toMap(r -> (Long) r[0], r -> (Long) r[1]));
 	}
 
 	private Map<Long, Long> loadExerciseCounts(List<TrainingSession> sessions) {
@@ -216,20 +191,4 @@ public class TrainingSessionController {
 		List<Object[]> rows = exerciseExecutionRepo.countBySessionIds(ids);
 		return rows.stream().collect(Collectors.toMap(r -> (Long) r[0], r -> (Long) r[1]));
 	}
-
-	private User resolveCurrentUserOrNull() {
-		Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-		if (auth == null)
-			return null;
-		if (!auth.isAuthenticated())
-			return null;
-		if (auth instanceof AnonymousAuthenticationToken)
-			return null;
-
-		String username = auth.getName();
-		if (username == null || username.isBlank() || "anonymousUser".equalsIgnoreCase(username))
-			return null;
-
-		return userRepo.findByUsername(username).orElse(null);
-	}
 }
@@ -6,6 +6,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface TrainingSessionRepository extends JpaRepository<TrainingSession, Long> {
 
@@ -19,4 +22,9 @@ public interface TrainingSessionRepository extends JpaRepository<TrainingSession
 
 	@EntityGraph(attributePaths = { "plan", "days", "exerciseExecutions", "exerciseExecutions.exercise" })
 	Optional<TrainingSession> findWithExecutionsById(Long id);
+
+	// bulk: days and planned exercises of these sessions have to be deleted first
+	@Modifying
+	@Query("delete from TrainingSession s where s.plan.id = :planId")
+	int deleteByPlanId(@Param("planId") Long planId);
 }
@@ -2,36 +2,74 @@ package de.hsaa.fitness_tracker_service.trainingsSession;
 
 import java.util.List;
 import java.util.Objects;
-
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import de.hsaa.fitness_tracker_service.trainingExecution.TrainingExecution;
 import de.hsaa.fitness_tracker_service.trainingExecution.TrainingExecutionRepository;
 import de.hsaa.fitness_tracker_service.trainingsPlan.TrainingPlan;
 import de.hsaa.fitness_tracker_service.trainingsPlan.TrainingPlanRepository;
 import de.hsaa.fitness_tracker_service.trainingsSessionDay.SessionDay;
 import de.hsaa.fitness_tracker_service.trainingsSessionDay.SessionDayRepository;
+import jakarta.annotation.PreDestroy;
 import jakarta.persistence.EntityNotFoundException;
 
 @Service
 @Transactional
 public class TrainingSessionService {
 
+	private static final Logger log = LoggerFactory.getLogger(TrainingSessionService.class);
+
+	public enum Deletion {
+		DELETED, SCHEDULED
+	}
+
+	private record Names(String session, String plan, long executions) {
+	}
+
 	private final TrainingSessionRepository repo;
 	private final TrainingPlanRepository planRepo;
 	private final TrainingExecutionRepository trainingExecutionRepo;
 	private final SessionDayRepository sessionDayRepo;
+	private final TransactionTemplate tx;
+	private final int deleteChunkSize;
+	private final long deleteInBackgroundAfter;
+	private final Set<Long> deleting = ConcurrentHashMap.newKeySet();
+	private final ExecutorService deleter = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "session-delete");
+		t.setDaemon(true);
+		return t;
+	});
 
 	public TrainingSessionService(TrainingSessionRepository repo, TrainingPlanRepository planRepo,
-			TrainingExecutionRepository trainingExecutionRepo, SessionDayRepository sessionDayRepo) {
+			TrainingExecutionRepository trainingExecutionRepo, SessionDayRepository sessionDayRepo,
+			PlatformTransactionManager transactionManager,
+			@Value("${app.sessions.delete.chunk-size:500}") int deleteChunkSize,
+			@Value("${app.sessions.delete.background-after:5000}") long deleteInBackgroundAfter) {
+		if (deleteChunkSize < 1) {
+			throw new IllegalArgumentException("app.sessions.delete.chunk-size must be positive");
+		}
 		this.repo = repo;
 		this.planRepo = planRepo;
 		this.trainingExecutionRepo = trainingExecutionRepo;
 		this.sessionDayRepo = sessionDayRepo;
+		this.tx = new TransactionTemplate(transactionManager);
+		this.deleteChunkSize = deleteChunkSize;
+		this.deleteInBackgroundAfter = deleteInBackgroundAfter;
 	}
 
 	public TrainingSession create(Long planId, String name, List<Integer> days) {
@@ -108,31 +146,60 @@ public class TrainingSessionService {
 		return current;
 	}
 
-	public void delete(Long id) {
-		TrainingSession s = repo.findById(id).orElseThrow(() -> new EntityNotFoundException("session not found"));
-
-		String sessionName = s.getName();
-		String planName = (s.getPlan() != null ? s.getPlan().getName() : null);
-		List<TrainingExecution> executions = trainingExecutionRepo.findBySessionId(id);
-
-		if (executions != null && !executions.isEmpty()) {
-			for (TrainingExecution te : executions) {
-				if (te.getSessionIdSnapshot() == null)
-					te.setSessionIdSnapshot(id);
+	// Trainings outlive their session: they are detached and keep the names they were shown with. The detach runs
+	// as bulk updates in chunks, each in its own transaction; the last chunk and the delete share one, so a training
+	// started meanwhile is either detached or makes the delete fail. Sessions with a long history are deleted in the
+	// background. A failed delete leaves the chunks already detached and the session in place, so repeating the
+	// DELETE resumes it.
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public Deletion delete(Long id) {
+		Names names = tx.execute(status -> {
+			TrainingSession s = repo.findById(id).orElseThrow(() -> new EntityNotFoundException("session not found"));
+			return new Names(s.getName(), s.getPlan() != null ? s.getPlan().getName() : null,
+					trainingExecutionRepo.countBySessionId(id));
+		});
+
+		if (names.executions() <= deleteInBackgroundAfter) {
+			deleteDetached(id, names);
+			return Deletion.DELETED;
+		}
 
-				if (te.getSessionNameSnapshot() == null || te.getSessionNameSnapshot().isBlank()) {
-					te.setSessionNameSnapshot(sessionName);
+		// a repeated request while the delete is running does not queue a second one
+		if (deleting.add(id)) {
+			deleter.execute(() -> {
+				long started = System.nanoTime();
+				try {
+					deleteDetached(id, names);
+					log.info("deleted session {} with {} trainings in {} ms", id, names.executions(),
+							(System.nanoTime() - started) / 1_000_000);
+				} catch (RuntimeException e) {
+					log.error("deleting session {} failed, a repeated DELETE resumes it", id, e);
+				} finally {
+					deleting.remove(id);
 				}
+			});
+		}
+		return Deletion.SCHEDULED;
+	}
 
-				if (te.getPlanNameSnapshot() == null || te.getPlanNameSnapshot().isBlank()) {
-					te.setPlanNameSnapshot(planName);
-				}
-				te.setSession(null);
-			}
-			trainingExecutionRepo.saveAll(executions);
+	private void deleteDetached(Long id, Names names) {
+		boolean more = true;
+		while (more) {
+			more = Boolean.TRUE.equals(tx.execute(status -> {
+				List<Long> chunk = trainingExecutionRepo.findIdsBySessionId(id, Limit.of(deleteChunkSize));
+				if (!chunk.isEmpty())
+					trainingExecutionRepo.detachFromSession(chunk, id, names.session(), names.plan());
+				if (chunk.size() == deleteChunkSize)
+					return true;
+				repo.findById(id).ifPresent(repo::delete);
+				return false;
+			}));
 		}
+	}
 
-		repo.delete(s);
+	@PreDestroy
+	void shutdown() {
+		deleter.shutdownNow();
 	}
 
 	private TrainingPlan requirePlan(Long planId) {
@@ -10,6 +10,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.Max;
@@ -21,7 +22,8 @@ import jakarta.validation.constraints.NotNull;
 public class SessionDay {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "session_days_seq")
+	@SequenceGenerator(name = "session_days_seq", sequenceName = "session_days_seq", allocationSize = 50)
 	private Long id;
 
 	@NotNull
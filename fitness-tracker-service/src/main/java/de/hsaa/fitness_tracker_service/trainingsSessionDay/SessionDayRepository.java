@@ -1,6 +1,7 @@
 package de.hsaa.fitness_tracker_service.trainingsSessionDay;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -23,4 +24,11 @@ public interface SessionDayRepository extends JpaRepository<SessionDay, Long> {
 			""")
 	boolean existsByPlanIdAndDayAndSessionIdNot(@Param("planId") Long planId, @Param("day") Integer day,
 			@Param("sessionId") Long sessionId);
+
+	@Modifying
+	@Query("""
+			  delete from SessionDay sd
+			  where sd.session.id in (select s.id from TrainingSession s where s.plan.id = :planId)
+			""")
+	int deleteByPlanId(@Param("planId") Long planId);
 }
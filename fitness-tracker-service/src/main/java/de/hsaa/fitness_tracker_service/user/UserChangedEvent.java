@@ -0,0 +1,4 @@
+package de.hsaa.fitness_tracker_service.user;
+
+public record UserChangedEvent(Long userId, String username) {
+}
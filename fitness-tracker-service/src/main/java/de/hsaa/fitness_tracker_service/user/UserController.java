@@ -2,6 +2,7 @@ package de.hsaa.fitness_tracker_service.user;
 
 import java.util.List;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -9,9 +10,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import de.hsaa.fitness_tracker_service.security.AuthenticatedUser;
+import de.hsaa.fitness_tracker_service.security.CurrentUser;
+import de.hsaa.fitness_tracker_service.security.TokenService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Min;
@@ -32,6 +37,18 @@ public class UserController {
 			@NotBlank String password, @NotNull @Min(12) Integer age, String gender) {
 	}
 
+	public record LoginRequest(@NotBlank @Email String email, @NotBlank String password) {
+	}
+
+	public record RefreshRequest(@NotBlank String refreshToken) {
+	}
+
+	public record LogoutRequest(String refreshToken) {
+	}
+
+	public record TokenResponse(String accessToken, String refreshToken, String tokenType, long expiresIn) {
+	}
+
 	public record UpdateMeRequest(String firstName, String lastName, Integer age, String gender) {
 	}
 
@@ -46,14 +63,30 @@ public class UserController {
 		return ResponseEntity.created(location).body(toDto(saved));
 	}
 
+	@PostMapping("/login")
+	public TokenResponse login(@Valid @RequestBody LoginRequest body) {
+		return toDto(service.login(body));
+	}
+
+	@PostMapping("/token/refresh")
+	public TokenResponse refresh(@Valid @RequestBody RefreshRequest body) {
+		return toDto(service.refresh(body.refreshToken()));
+	}
+
+	@PostMapping("/logout")
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public void logout(@RequestBody(required = false) LogoutRequest body) {
+		service.logout(body != null ? body.refreshToken() : null);
+	}
+
 	@GetMapping("/me")
-	public UserResponse me() {
-		return toDto(service.getMe());
+	public UserResponse me(@CurrentUser AuthenticatedUser me) {
+		return toDto(service.getMe(me.getId()));
 	}
 
 	@PutMapping("/me")
-	public UserResponse updateMe(@RequestBody UpdateMeRequest body) {
-		return toDto(service.updateMe(body));
+	public UserResponse updateMe(@CurrentUser AuthenticatedUser me, @RequestBody UpdateMeRequest body) {
+		return toDto(service.updateMe(me.getId(), body));
 	}
 
 	private static UserResponse toDto(User u) {
@@ -61,6 +94,10 @@ public class UserController {
 				u.getAge(), u.getGender());
 	}
 
+	private static TokenResponse toDto(TokenService.IssuedTokens t) {
+		return new TokenResponse(t.accessToken(), t.refreshToken(), "Bearer", t.expiresInSeconds());
+	}
+
 	@PreAuthorize("hasRole('ADMIN')")
 	@GetMapping
 	public List<UserResponse> listAll() {
@@ -2,14 +2,20 @@ package de.hsaa.fitness_tracker_service.user;
 
 import java.util.List;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import de.hsaa.fitness_tracker_service.security.AuthenticatedUser;
+import de.hsaa.fitness_tracker_service.security.TokenService;
+
 import jakarta.persistence.EntityNotFoundException;
 
 @Service
@@ -18,10 +24,17 @@ public class UserService {
 
 	private final UserRepository repo;
 	private final BCryptPasswordEncoder encoder;
+	private final ApplicationEventPublisher events;
+	private final AuthenticationManager authenticationManager;
+	private final TokenService tokens;
 
-	public UserService(UserRepository repo, BCryptPasswordEncoder encoder) {
+	public UserService(UserRepository repo, BCryptPasswordEncoder encoder, ApplicationEventPublisher events,
+			AuthenticationManager authenticationManager, TokenService tokens) {
 		this.repo = repo;
 		this.encoder = encoder;
+		this.events = events;
+		this.authenticationManager = authenticationManager;
+		this.tokens = tokens;
 	}
 
 	public User register(UserController.RegisterRequest req) {
@@ -43,13 +56,45 @@ public class UserService {
 	}
 
 	@Transactional(readOnly = true)
-	public User getMe() {
-		return repo.findByUsername(getCurrentUsername())
-				.orElseThrow(() -> new EntityNotFoundException("user not found"));
+	public TokenService.IssuedTokens login(UserController.LoginRequest req) {
+		String email = normalize(req.email()).toLowerCase();
+
+		Authentication auth = authenticationManager
+				.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(email, req.password()));
+
+		Long userId = auth.getPrincipal() instanceof AuthenticatedUser principal ? principal.getId()
+				: repo.findByUsername(auth.getName()).map(User::getId)
+						.orElseThrow(() -> new EntityNotFoundException("user not found"));
+		String role = auth.getAuthorities().stream().anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority())) ? "ADMIN"
+				: "USER";
+
+		return tokens.issue(userId, auth.getName(), role);
+	}
+
+	public TokenService.IssuedTokens refresh(String refreshToken) {
+		return tokens.refresh(refreshToken);
+	}
+
+	public void logout(String refreshToken) {
+		Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+		if (auth != null && auth.getDetails() instanceof TokenService.TokenClaims claims) {
+			tokens.revoke(claims);
+		}
+		if (refreshToken != null && !refreshToken.isBlank()) {
+			tokens.revoke(tokens.verify(refreshToken, TokenService.TokenType.REFRESH));
+		}
+	}
+
+	@Transactional(readOnly = true)
+	public User getMe(Long userId) {
+		if (userId == null) {
+			throw new AccessDeniedException("Not authenticated");
+		}
+		return repo.findById(userId).orElseThrow(() -> new EntityNotFoundException("user not found"));
 	}
 
-	public User updateMe(UserController.UpdateMeRequest patch) {
-		User u = getMe();
+	public User updateMe(Long userId, UserController.UpdateMeRequest patch) {
+		User u = getMe(userId);
 
 		if (patch.firstName() != null)
 			u.setFirstName(normalize(patch.firstName()));
@@ -60,21 +105,10 @@ public class UserService {
 		if (patch.gender() != null)
 			u.setGender(normalize(patch.gender()));
 
+		events.publishEvent(new UserChangedEvent(u.getId(), u.getUsername()));
 		return u;
 	}
 
-	private String getCurrentUsername() {
-		Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-		if (auth == null || !auth.isAuthenticated()) {
-			throw new AccessDeniedException("Not authenticated");
-		}
-		String name = auth.getName();
-		if (name == null || name.isBlank() || "anonymousUser".equalsIgnoreCase(name)) {
-			throw new AccessDeniedException("Not authenticated");
-		}
-		return name;
-	}
-
 	private static String normalize(String s) {
 		return s == null ? null : s.trim();
 	}
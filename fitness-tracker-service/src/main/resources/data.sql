@@ -10,4 +10,6 @@ INSERT INTO users (id, username, password, first_name, last_name, age, gender) V
  (2, 'alice.klein@gmail.com', '$2a$10$7wQyqfW5Z8uY3c3R8Y4nEe8p9w1pV2g5EJc8pW2yKZp6kL3sXoZ0e', 'Alice', 'Klein', 21 , 'w'),
  (3, 'bob.troll@gmail.com', '$2a$10$7wQyqfW5Z8uY3c3R8Y4nEe8p9w1pV2g5EJc8pW2yKZp6kL3sXoZ0e','Bob', 'Troll',  45 , 'm' );
 
-
+-- backfill for training executions written before effective_session_id existed; a no-op on a fresh schema
+UPDATE training_executions SET effective_session_id = COALESCE(session_id, session_id_snapshot)
+WHERE effective_session_id IS NULL AND (session_id IS NOT NULL OR session_id_snapshot IS NOT NULL);
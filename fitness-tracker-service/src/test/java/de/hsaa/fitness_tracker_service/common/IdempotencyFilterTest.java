@@ -0,0 +1,176 @@
+package de.hsaa.fitness_tracker_service.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+
+class IdempotencyFilterTest {
+
+	IdempotencyFilter filter;
+	AtomicInteger calls;
+	int status;
+	Runnable during = () -> {
+	};
+
+	@BeforeEach
+	void setUp() {
+		filter = new IdempotencyFilter(100, Duration.ofHours(1), 1024, new SimpleMeterRegistry());
+		calls = new AtomicInteger();
+		status = 201;
+		login("alice");
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	private static void login(String name) {
+		SecurityContextHolder.getContext()
+				.setAuthentication(new UsernamePasswordAuthenticationToken(name, null, List.of()));
+	}
+
+	private MockHttpServletResponse post(String uri, String key) throws Exception {
+		return post(uri, key, "{}");
+	}
+
+	private MockHttpServletResponse post(String uri, String key, String body) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+		if (key != null)
+			request.addHeader(IdempotencyFilter.HEADER, key);
+		request.setContent(body.getBytes(StandardCharsets.UTF_8));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		FilterChain chain = (req, res) -> {
+			int n = calls.incrementAndGet();
+			req.getInputStream().read();
+			during.run();
+			HttpServletResponse http = (HttpServletResponse) res;
+			http.setStatus(status);
+			http.setHeader("Location", "/api/v1/training-executions/" + n);
+			http.setContentType("application/json");
+			http.getWriter().write("{\"id\":" + n + "}");
+		};
+		filter.doFilter(request, response, chain);
+		return response;
+	}
+
+	@Test
+	void shouldReplayStoredResponseForSameKey() throws Exception {
+		MockHttpServletResponse first = post("/api/v1/training-executions", "k1");
+		MockHttpServletResponse retry = post("/api/v1/training-executions", "k1");
+
+		assertEquals(1, calls.get());
+		assertEquals(201, retry.getStatus());
+		assertEquals("{\"id\":1}", retry.getContentAsString());
+		assertEquals(first.getHeader("Location"), retry.getHeader("Location"));
+		assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+	}
+
+	@Test
+	void shouldScopeKeysByUserAndEndpoint() throws Exception {
+		post("/api/v1/training-executions", "k1");
+		post("/api/v1/training-executions/1/complete", "k1");
+		login("bob");
+		post("/api/v1/training-executions", "k1");
+
+		assertEquals(3, calls.get());
+	}
+
+	@Test
+	void shouldNotKeepFailedResponses() throws Exception {
+		status = 400;
+		post("/api/v1/training-executions", "k1");
+		status = 201;
+		MockHttpServletResponse retry = post("/api/v1/training-executions", "k1");
+
+		assertEquals(2, calls.get());
+		assertEquals("{\"id\":2}", retry.getContentAsString());
+	}
+
+	@Test
+	void shouldPassThroughWithoutKeyOrUser() throws Exception {
+		post("/api/v1/training-executions", null);
+		post("/api/v1/training-executions", null);
+		SecurityContextHolder.clearContext();
+		post("/api/v1/users/login", "k1");
+		post("/api/v1/users/login", "k1");
+
+		assertEquals(4, calls.get());
+	}
+
+	@Test
+	void shouldRejectOverlongKey() throws Exception {
+		MockHttpServletResponse response = post("/api/v1/training-executions", "x".repeat(256));
+
+		assertEquals(400, response.getStatus());
+		assertEquals(0, calls.get());
+	}
+
+	@Test
+	void shouldRejectSameKeyWithDifferentBody() throws Exception {
+		post("/api/v1/training-executions", "k1", "{\"sessionId\":1}");
+		MockHttpServletResponse same = post("/api/v1/training-executions", "k1", "{\"sessionId\":1}");
+		MockHttpServletResponse other = post("/api/v1/training-executions", "k1", "{\"sessionId\":2}");
+
+		assertEquals(1, calls.get());
+		assertEquals(201, same.getStatus());
+		assertEquals(422, other.getStatus());
+	}
+
+	@Test
+	void shouldEvictOnlyOwnOldestCompletedKeyWhenFull() throws Exception {
+		filter = new IdempotencyFilter(2, Duration.ofHours(1), 1024, new SimpleMeterRegistry());
+		login("bob");
+		post("/api/v1/training-executions", "b1");
+		login("alice");
+		post("/api/v1/training-executions", "a1");
+		post("/api/v1/training-executions", "a2");
+		post("/api/v1/training-executions", "a3");
+
+		post("/api/v1/training-executions", "a1");
+		assertEquals(5, calls.get());
+		login("bob");
+		MockHttpServletResponse retry = post("/api/v1/training-executions", "b1");
+		assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertEquals(5, calls.get());
+	}
+
+	@Test
+	void shouldNeverEvictKeysInFlight() throws Exception {
+		filter = new IdempotencyFilter(1, Duration.ofHours(1), 1024, new SimpleMeterRegistry());
+		MockHttpServletResponse[] nested = new MockHttpServletResponse[2];
+		during = () -> {
+			during = () -> {
+			};
+			try {
+				nested[0] = post("/api/v1/training-executions", "k1");
+				nested[1] = post("/api/v1/training-executions", "k2");
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		};
+
+		post("/api/v1/training-executions", "k1");
+
+		assertEquals(409, nested[0].getStatus());
+		assertEquals(429, nested[1].getStatus());
+		assertEquals(1, calls.get());
+	}
+}
@@ -0,0 +1,173 @@
+package de.hsaa.fitness_tracker_service.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxDispatcherTest {
+
+	@Mock
+	OutboxEventRepository repo;
+	@Mock
+	OutboxReceiptRepository receipts;
+	@Mock
+	PlatformTransactionManager transactionManager;
+
+	RecordingListener completions;
+	RecordingListener updates;
+
+	@BeforeEach
+	void setUp() {
+		completions = new RecordingListener("completions", EnumSet.of(OutboxEvent.Type.TRAINING_COMPLETED));
+		updates = new RecordingListener("updates", EnumSet.of(OutboxEvent.Type.EXECUTED_EXERCISE_UPDATED));
+		lenient().when(receipts.findReceivedEventIds(any(), any())).thenReturn(List.of());
+	}
+
+	static final class RecordingListener implements OutboxListener {
+
+		final String name;
+		final Set<OutboxEvent.Type> types;
+		final List<Long> handled = new ArrayList<>();
+		Long poison;
+
+		RecordingListener(String name, Set<OutboxEvent.Type> types) {
+			this.name = name;
+			this.types = types;
+		}
+
+		@Override
+		public String name() {
+			return name;
+		}
+
+		@Override
+		public Set<OutboxEvent.Type> types() {
+			return types;
+		}
+
+		@Override
+		public void handle(List<OutboxEvent> events) {
+			for (OutboxEvent e : events) {
+				if (e.getId().equals(poison))
+					throw new IllegalStateException("boom");
+			}
+			events.forEach(e -> handled.add(e.getId()));
+		}
+	}
+
+	private OutboxDispatcher dispatcher(int maxAttempts) {
+		return new OutboxDispatcher(repo, receipts, List.of(completions, updates), transactionManager, 100,
+				maxAttempts, Duration.ofSeconds(2), Duration.ofDays(7), new SimpleMeterRegistry());
+	}
+
+	private static OutboxEvent event(long id, OutboxEvent.Type type) {
+		OutboxEvent e = new OutboxEvent();
+		e.setId(id);
+		e.setType(type);
+		e.setUserId(10L);
+		e.setExecutionId(5L);
+		e.setOccurredAt(LocalDateTime.now());
+		e.setNextAttemptAt(LocalDateTime.now());
+		return e;
+	}
+
+	@Test
+	void shouldDeliverEventsByTypeAndMarkThemProcessed() {
+		when(repo.findDue(any(), any())).thenReturn(List.of(event(1, OutboxEvent.Type.EXECUTED_EXERCISE_UPDATED),
+				event(2, OutboxEvent.Type.TRAINING_COMPLETED), event(3, OutboxEvent.Type.EXECUTED_EXERCISE_UPDATED)));
+
+		assertEquals(3, dispatcher(3).dispatchBatch());
+
+		assertEquals(List.of(2L), completions.handled);
+		assertEquals(List.of(1L, 3L), updates.handled);
+		verify(repo).markProcessed(eq(List.of(1L, 2L, 3L)), any());
+		verify(receipts).deleteByEventIds(List.of(1L, 2L, 3L));
+		verify(receipts, times(2)).saveAll(anyList());
+	}
+
+	@Test
+	void shouldSkipEventsTheListenerAlreadyReceived() {
+		when(repo.findDue(any(), any())).thenReturn(List.of(event(1, OutboxEvent.Type.TRAINING_COMPLETED),
+				event(2, OutboxEvent.Type.TRAINING_COMPLETED)));
+		when(receipts.findReceivedEventIds("completions", List.of(1L, 2L))).thenReturn(List.of(1L));
+
+		dispatcher(3).dispatchBatch();
+
+		assertEquals(List.of(2L), completions.handled);
+		verify(repo).markProcessed(eq(List.of(1L, 2L)), any());
+	}
+
+	@Test
+	void shouldRetryOnlyTheFailingEventWithBackoff() {
+		OutboxEvent poisoned = event(2, OutboxEvent.Type.TRAINING_COMPLETED);
+		when(repo.findDue(any(), any()))
+				.thenReturn(List.of(event(1, OutboxEvent.Type.TRAINING_COMPLETED), poisoned));
+		when(repo.findById(2L)).thenReturn(Optional.of(poisoned));
+		completions.poison = 2L;
+
+		LocalDateTime before = LocalDateTime.now();
+		dispatcher(3).dispatchBatch();
+
+		assertEquals(List.of(1L), completions.handled);
+		verify(repo).markProcessed(eq(List.of(1L)), any());
+		assertEquals(1, poisoned.getAttempts());
+		assertTrue(poisoned.getLastError().contains("completions: boom"));
+		assertTrue(poisoned.getNextAttemptAt().isAfter(before.plusSeconds(1)));
+		assertNull(poisoned.getProcessedAt());
+		assertFalse(poisoned.isFailed());
+	}
+
+	@Test
+	void shouldGiveUpAfterMaxAttempts() {
+		OutboxEvent poisoned = event(2, OutboxEvent.Type.TRAINING_COMPLETED);
+		poisoned.setAttempts(1);
+		when(repo.findDue(any(), any())).thenReturn(List.of(poisoned));
+		when(repo.findById(2L)).thenReturn(Optional.of(poisoned));
+		completions.poison = 2L;
+
+		dispatcher(2).dispatchBatch();
+
+		assertTrue(poisoned.isFailed());
+		assertEquals(2, poisoned.getAttempts());
+		assertNotNull(poisoned.getProcessedAt());
+		verify(repo, never()).markProcessed(any(), any());
+	}
+
+	@Test
+	void shouldReturnZeroWhenNothingIsDue() {
+		when(repo.findDue(any(), any())).thenReturn(List.of());
+
+		assertEquals(0, dispatcher(3).dispatchBatch());
+
+		verify(receipts, never()).saveAll(anyList());
+		verify(repo, never()).markProcessed(any(), any());
+	}
+}
@@ -0,0 +1,69 @@
+package de.hsaa.fitness_tracker_service.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import de.hsaa.fitness_tracker_service.user.UserChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CredentialCacheTest {
+
+	SimpleMeterRegistry meters;
+	CredentialCache cache;
+
+	@BeforeEach
+	void setUp() {
+		meters = new SimpleMeterRegistry();
+		cache = new CredentialCache(2, Duration.ofMinutes(5), meters);
+	}
+
+	private static UserDetails user(String name) {
+		return User.withUsername(name).password("HASH").roles("USER").build();
+	}
+
+	private double count(String result) {
+		return meters.get("auth.credential.cache").tag("result", result).counter().count();
+	}
+
+	@Test
+	void shouldReturnStoredDetailsOnlyForSamePassword() {
+		UserDetails alice = user("alice@test.de");
+		cache.store("alice@test.de", "pw", alice);
+
+		assertSame(alice, cache.lookup("alice@test.de", "pw"));
+		assertNull(cache.lookup("alice@test.de", "wrong"));
+		assertNull(cache.lookup("bob@test.de", "pw"));
+
+		assertEquals(1.0, count("hit"));
+		assertEquals(2.0, count("miss"));
+	}
+
+	@Test
+	void shouldEvictAllEntriesOfChangedUser() {
+		cache.store("alice@test.de", "pw", user("alice@test.de"));
+		cache.store("bob@test.de", "pw", user("bob@test.de"));
+
+		cache.onUserChanged(new UserChangedEvent(1L, "alice@test.de"));
+
+		assertNull(cache.lookup("alice@test.de", "pw"));
+		assertEquals("bob@test.de", cache.lookup("bob@test.de", "pw").getUsername());
+	}
+
+	@Test
+	void shouldStayWithinMaxSize() {
+		cache.store("a@test.de", "pw", user("a@test.de"));
+		cache.store("b@test.de", "pw", user("b@test.de"));
+		cache.store("c@test.de", "pw", user("c@test.de"));
+
+		assertEquals(2.0, meters.get("auth.credential.cache.size").gauge().value());
+		assertEquals("c@test.de", cache.lookup("c@test.de", "pw").getUsername());
+	}
+}
@@ -0,0 +1,122 @@
+package de.hsaa.fitness_tracker_service.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import de.hsaa.fitness_tracker_service.user.User;
+import de.hsaa.fitness_tracker_service.user.UserRepository;
+
+@ExtendWith(MockitoExtension.class)
+class CurrentUserArgumentResolverTest {
+
+	@Mock
+	UserRepository users;
+
+	@InjectMocks
+	CurrentUserArgumentResolver resolver;
+
+	NativeWebRequest request = new ServletWebRequest(new MockHttpServletRequest());
+
+	@SuppressWarnings("unused")
+	void handler(@CurrentUser AuthenticatedUser required, @CurrentUser(required = false) AuthenticatedUser optional,
+			AuthenticatedUser plain) {
+	}
+
+	static MethodParameter param(int index) throws NoSuchMethodException {
+		Method m = CurrentUserArgumentResolverTest.class.getDeclaredMethod("handler", AuthenticatedUser.class,
+				AuthenticatedUser.class, AuthenticatedUser.class);
+		return new MethodParameter(m, index);
+	}
+
+	@AfterEach
+	void cleanupSecurityContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void shouldSupportOnlyAnnotatedParameters() throws Exception {
+		assertTrue(resolver.supportsParameter(param(0)));
+		assertTrue(resolver.supportsParameter(param(1)));
+		assertEquals(false, resolver.supportsParameter(param(2)));
+	}
+
+	@Test
+	void shouldReturnPrincipalWithoutLookup() throws Exception {
+		var authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+		AuthenticatedUser principal = new AuthenticatedUser(7L, "alice@test.de", "", authorities);
+		SecurityContextHolder.getContext()
+				.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(principal, null, authorities));
+
+		assertSame(principal, resolver.resolveArgument(param(0), null, request, null));
+		verify(users, never()).findByUsername(anyString());
+	}
+
+	@Test
+	void shouldLookUpForeignPrincipalAtMostOncePerRequest() throws Exception {
+		SecurityContextHolder.getContext()
+				.setAuthentication(UsernamePasswordAuthenticationToken.authenticated("alice@test.de", null, List.of()));
+
+		User u = new User();
+		u.setId(7L);
+		u.setUsername("alice@test.de");
+		when(users.findByUsername("alice@test.de")).thenReturn(Optional.of(u));
+
+		AuthenticatedUser first = (AuthenticatedUser) resolver.resolveArgument(param(0), null, request, null);
+		AuthenticatedUser second = (AuthenticatedUser) resolver.resolveArgument(param(1), null, request, null);
+
+		assertEquals(7L, first.getId());
+		assertSame(first, second);
+		verify(users, times(1)).findByUsername("alice@test.de");
+	}
+
+	@Test
+	void shouldThrowAccessDeniedWhenRequiredAndNotAuthenticated() {
+		assertThrows(AccessDeniedException.class, () -> resolver.resolveArgument(param(0), null, request, null));
+
+		SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken("key",
+				"anonymousUser", List.of(new SimpleGrantedAuthority("ROLE_ANONYMOUS"))));
+		assertThrows(AccessDeniedException.class, () -> resolver.resolveArgument(param(0), null, request, null));
+
+		SecurityContextHolder.getContext()
+				.setAuthentication(UsernamePasswordAuthenticationToken.unauthenticated("alice@test.de", "pw"));
+		assertThrows(AccessDeniedException.class, () -> resolver.resolveArgument(param(0), null, request, null));
+	}
+
+	@Test
+	void shouldReturnNullWhenOptionalAndNotAuthenticated() throws Exception {
+		assertNull(resolver.resolveArgument(param(1), null, request, null));
+
+		SecurityContextHolder.getContext()
+				.setAuthentication(UsernamePasswordAuthenticationToken.authenticated("  ", null, List.of()));
+		assertNull(resolver.resolveArgument(param(1), null, request, null));
+		verify(users, never()).findByUsername(anyString());
+	}
+}
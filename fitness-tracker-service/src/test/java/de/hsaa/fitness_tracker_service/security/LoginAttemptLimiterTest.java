@@ -0,0 +1,108 @@
+package de.hsaa.fitness_tracker_service.security;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LoginAttemptLimiterTest {
+
+	AtomicLong now;
+	SimpleMeterRegistry meters;
+	LoginAttemptLimiter limiter;
+
+	@BeforeEach
+	void setUp() {
+		now = new AtomicLong(1_000_000_000L);
+		meters = new SimpleMeterRegistry();
+		limiter = new LoginAttemptLimiter(1 << 16, 16, 3, Duration.ofSeconds(10), 5, Duration.ofSeconds(1), meters,
+				now::get);
+	}
+
+	private double throttled(String key) {
+		return meters.get("auth.login.throttled").tag("key", key).counter().count();
+	}
+
+	@Test
+	void shouldThrottleUsernameAfterBurstAndRefillOverTime() {
+		for (int i = 0; i < 3; i++) {
+			limiter.acquire("alice@test.de", "10.0.0." + i);
+		}
+
+		LoginThrottledException ex = assertThrows(LoginThrottledException.class,
+				() -> limiter.acquire("ALICE@test.de", "10.0.0.9"));
+		assertEquals(Duration.ofSeconds(10), ex.getRetryAfter());
+		assertEquals(1.0, throttled("username"));
+
+		now.addAndGet(Duration.ofSeconds(10).toNanos());
+		assertDoesNotThrow(() -> limiter.acquire("alice@test.de", "10.0.0.9"));
+	}
+
+	@Test
+	void shouldThrottleAddressAcrossUsernames() {
+		for (int i = 0; i < 5; i++) {
+			limiter.acquire("user" + i + "@test.de", "10.0.0.1");
+		}
+
+		assertThrows(LoginThrottledException.class, () -> limiter.acquire("other@test.de", "10.0.0.1"));
+		assertEquals(1.0, throttled("address"));
+		assertDoesNotThrow(() -> limiter.acquire("other@test.de", "10.0.0.2"));
+	}
+
+	@Test
+	void shouldKeepIndependentBucketsPerUsername() {
+		for (int i = 0; i < 3; i++) {
+			limiter.acquire("alice@test.de", null);
+		}
+
+		assertThrows(LoginThrottledException.class, () -> limiter.acquire("alice@test.de", null));
+		assertDoesNotThrow(() -> limiter.acquire("bob@test.de", null));
+	}
+
+	@Test
+	void shouldNotChargeAddressWhenUsernameIsThrottled() {
+		for (int i = 0; i < 3; i++) {
+			limiter.acquire("alice@test.de", "10.0.0." + i);
+		}
+		for (int i = 0; i < 10; i++) {
+			assertThrows(LoginThrottledException.class, () -> limiter.acquire("alice@test.de", "10.0.0.1"));
+		}
+
+		assertEquals(0.0, throttled("address"));
+		for (int i = 0; i < 4; i++) {
+			limiter.acquire("user" + i + "@test.de", "10.0.0.1");
+		}
+	}
+
+	@Test
+	void shouldLimitNewKeysInSharedBucketsWhenFullAndKeepExistingBuckets() {
+		limiter = new LoginAttemptLimiter(2, 1, 1, Duration.ofSeconds(10), 100, Duration.ofSeconds(1), meters,
+				now::get);
+		limiter.acquire("alice@test.de", null);
+		limiter.acquire("random1@test.de", null);
+
+		assertDoesNotThrow(() -> limiter.acquire("random2@test.de", null));
+		assertThrows(LoginThrottledException.class, () -> limiter.acquire("bob@test.de", null));
+		assertThrows(LoginThrottledException.class, () -> limiter.acquire("alice@test.de", null));
+		assertEquals(2.0, meters.get("auth.login.overflow").counter().count());
+		assertEquals(2, limiter.bucketCount());
+	}
+
+	@Test
+	void shouldPurgeRefilledBuckets() {
+		limiter.acquire("alice@test.de", "10.0.0.1");
+		assertEquals(2, limiter.bucketCount());
+
+		now.addAndGet(Duration.ofSeconds(10).toNanos());
+		limiter.purgeIdle();
+
+		assertEquals(0, limiter.bucketCount());
+	}
+}
@@ -0,0 +1,75 @@
+package de.hsaa.fitness_tracker_service.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.hsaa.fitness_tracker_service.common.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PasswordHashingExecutorTest {
+
+	SimpleMeterRegistry meters;
+	PasswordHashingExecutor executor;
+
+	@BeforeEach
+	void setUp() {
+		meters = new SimpleMeterRegistry();
+		executor = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(2), meters);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdown();
+	}
+
+	@Test
+	void shouldRunTaskOnHashingThread() {
+		String thread = executor.call(() -> Thread.currentThread().getName());
+
+		assertTrue(thread.startsWith("password-hashing-"));
+	}
+
+	@Test
+	void shouldRejectWithRetryAfterWhenSaturated() throws Exception {
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		CompletableFuture<Object> busy = CompletableFuture.supplyAsync(() -> executor.call(() -> {
+			running.countDown();
+			return release.await(5, TimeUnit.SECONDS);
+		}));
+		assertTrue(running.await(5, TimeUnit.SECONDS));
+		CompletableFuture<Object> queued = CompletableFuture.supplyAsync(() -> executor.call(() -> "queued"));
+		while (meters.get("auth.hashing.queue.size").gauge().value() < 1) {
+			Thread.onSpinWait();
+		}
+
+		ServiceBusyException ex = assertThrows(ServiceBusyException.class, () -> executor.call(() -> "rejected"));
+		assertEquals(Duration.ofSeconds(2), ex.getRetryAfter());
+		assertEquals(1.0, meters.get("auth.hashing.rejected").counter().count());
+
+		release.countDown();
+		assertEquals(true, busy.get(5, TimeUnit.SECONDS));
+		assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void shouldEncodeAndMatchThroughExecutor() {
+		BoundedBCryptPasswordEncoder encoder = new BoundedBCryptPasswordEncoder(4, executor);
+
+		String hash = encoder.encode("secret");
+
+		assertTrue(hash.startsWith("$2a$04$"));
+		assertTrue(encoder.matches("secret", hash));
+	}
+}
@@ -0,0 +1,128 @@
+package de.hsaa.fitness_tracker_service.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+class TokenServiceTest {
+
+	static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+	static TokenService at(Instant now) {
+		return new TokenService(SECRET, Duration.ofMinutes(15), Duration.ofDays(7), Clock.fixed(now, ZoneOffset.UTC));
+	}
+
+	@Test
+	void shouldIssueAccessTokenCarryingUserIdAndRole() {
+		TokenService service = at(Instant.parse("2026-01-01T10:00:00Z"));
+
+		TokenService.IssuedTokens issued = service.issue(7L, "alice@test.de", "USER");
+		TokenService.TokenClaims claims = service.verify(issued.accessToken(), TokenService.TokenType.ACCESS);
+
+		assertEquals(7L, claims.userId());
+		assertEquals("alice@test.de", claims.username());
+		assertEquals("USER", claims.role());
+		assertEquals(Instant.parse("2026-01-01T10:15:00Z"), claims.expiresAt());
+		assertEquals(900, issued.expiresInSeconds());
+	}
+
+	@Test
+	void shouldRejectTamperedWrongTypeAndExpiredTokens() {
+		Instant now = Instant.parse("2026-01-01T10:00:00Z");
+		TokenService.IssuedTokens issued = at(now).issue(7L, "alice@test.de", "USER");
+
+		String tampered = "x" + issued.accessToken().substring(1);
+		assertThrows(BadCredentialsException.class, () -> at(now).verify(tampered, TokenService.TokenType.ACCESS));
+		assertThrows(BadCredentialsException.class, () -> at(now).verify("garbage", TokenService.TokenType.ACCESS));
+		assertThrows(BadCredentialsException.class,
+				() -> at(now).verify(issued.refreshToken(), TokenService.TokenType.ACCESS));
+		assertThrows(BadCredentialsException.class, () -> at(now.plus(Duration.ofMinutes(16)))
+				.verify(issued.accessToken(), TokenService.TokenType.ACCESS));
+	}
+
+	@Test
+	void shouldRotateRefreshTokenAndDenyReuse() {
+		TokenService service = at(Instant.parse("2026-01-01T10:00:00Z"));
+		TokenService.IssuedTokens first = service.issue(7L, "alice@test.de", "ADMIN");
+
+		TokenService.IssuedTokens second = service.refresh(first.refreshToken());
+
+		assertNotEquals(first.refreshToken(), second.refreshToken());
+		assertEquals("ADMIN", service.verify(second.accessToken(), TokenService.TokenType.ACCESS).role());
+		assertThrows(BadCredentialsException.class, () -> service.refresh(first.refreshToken()));
+	}
+
+	@Test
+	void shouldRefreshOnceWhenSameTokenIsUsedConcurrently() throws Exception {
+		TokenService service = at(Instant.parse("2026-01-01T10:00:00Z"));
+		String refreshToken = service.issue(7L, "alice@test.de", "USER").refreshToken();
+
+		int threads = 8;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				results.add(pool.submit(() -> {
+					start.await();
+					try {
+						service.refresh(refreshToken);
+						return true;
+					} catch (BadCredentialsException e) {
+						return false;
+					}
+				}));
+			}
+			start.countDown();
+
+			int succeeded = 0;
+			for (Future<Boolean> r : results) {
+				if (r.get())
+					succeeded++;
+			}
+			assertEquals(1, succeeded);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	void shouldDenyRevokedAccessTokenAndPurgeExpiredEntries() {
+		Instant now = Instant.parse("2026-01-01T10:00:00Z");
+		TokenService service = at(now);
+		TokenService.IssuedTokens issued = service.issue(7L, "alice@test.de", "USER");
+
+		service.revoke(service.verify(issued.accessToken(), TokenService.TokenType.ACCESS));
+		service.revoke(new TokenService.TokenClaims(TokenService.TokenType.ACCESS, 1L, 7L, "alice@test.de", "USER",
+				now.minusSeconds(1)));
+		assertEquals(2, service.denylistSize());
+
+		service.purgeExpired();
+
+		assertThrows(BadCredentialsException.class,
+				() -> service.verify(issued.accessToken(), TokenService.TokenType.ACCESS));
+		assertEquals(1, service.denylistSize());
+	}
+
+	@Test
+	void shouldRejectShortSecret() {
+		String shortSecret = Base64.getEncoder().encodeToString(new byte[8]);
+		assertThrows(IllegalArgumentException.class,
+				() -> new TokenService(shortSecret, Duration.ofMinutes(1), Duration.ofMinutes(1), Clock.systemUTC()));
+	}
+}
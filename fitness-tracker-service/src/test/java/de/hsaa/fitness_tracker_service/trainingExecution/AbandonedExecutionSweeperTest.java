@@ -0,0 +1,126 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import de.hsaa.fitness_tracker_service.outbox.Outbox;
+import de.hsaa.fitness_tracker_service.outbox.OutboxEvent;
+import de.hsaa.fitness_tracker_service.user.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class AbandonedExecutionSweeperTest {
+
+	static final LocalDateTime T = LocalDateTime.of(2025, 3, 10, 18, 0);
+
+	@Mock
+	TrainingExecutionRepository repo;
+	@Mock
+	ExecutedExerciseRepository executedRepo;
+	@Mock
+	TrainingExecutionService executions;
+	@Mock
+	TrainingActivityService activity;
+	@Mock
+	Outbox outbox;
+	@Mock
+	LiveExecutionHub live;
+	@Mock
+	PlatformTransactionManager transactionManager;
+
+	AbandonedExecutionSweeper sweeper;
+
+	@BeforeEach
+	void setUp() {
+		sweeper = new AbandonedExecutionSweeper(repo, executedRepo, executions, activity, outbox, live,
+				transactionManager, Duration.ofHours(12), 2, new SimpleMeterRegistry());
+	}
+
+	private static TrainingExecution running(Long id, Long userId, LocalDateTime startedAt) {
+		User user = mock(User.class);
+		lenient().when(user.getId()).thenReturn(userId);
+
+		TrainingExecution te = new TrainingExecution();
+		te.setId(id);
+		te.setUser(user);
+		te.setStatus(TrainingExecution.Status.IN_PROGRESS);
+		te.setStartedAt(startedAt);
+		return te;
+	}
+
+	@Test
+	void shouldCompleteTrainingsWithDoneExercisesAndDiscardTheRest() {
+		TrainingExecution withDone = running(1L, 10L, T);
+		TrainingExecution empty = running(2L, 11L, T.plusDays(1));
+		when(repo.findStartedBeforeForUpdate(eq(TrainingExecution.Status.IN_PROGRESS), any(), any()))
+				.thenReturn(List.of(withDone, empty), List.of());
+		when(executedRepo.findExecutionIdsWithDone(List.of(1L, 2L))).thenReturn(List.of(1L));
+
+		AbandonedExecutionSweeper.SweepReport report = sweeper.sweep();
+
+		assertEquals(1, report.completed());
+		assertEquals(1, report.discarded());
+		verify(executedRepo).deleteByExecutionIds(List.of(2L));
+		verify(repo).deleteByIds(List.of(2L));
+		verify(repo).completeAtStart(List.of(1L), TrainingExecution.Status.IN_PROGRESS,
+				TrainingExecution.Status.COMPLETED);
+		verify(executions).refreshStreak(10L);
+		verify(activity).recordTrainingDay(10L, T.toLocalDate());
+		verify(outbox).publish(OutboxEvent.Type.TRAINING_COMPLETED, 10L, 1L, null);
+		verify(executions, never()).refreshStreak(11L);
+
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<Supplier<Object>> completed = ArgumentCaptor.forClass(Supplier.class);
+		verify(live).publishAfterCommit(eq(1L), eq("completed"), completed.capture());
+		assertEquals(new LiveExecutionHub.Completed(T, "\"1.0\""), completed.getValue().get());
+		verify(live).publishAfterCommit(eq(2L), eq("cancelled"), any());
+	}
+
+	@Test
+	void shouldStopAfterShortBatch() {
+		TrainingExecution empty = running(1L, 10L, T);
+		when(repo.findStartedBeforeForUpdate(eq(TrainingExecution.Status.IN_PROGRESS), any(), any()))
+				.thenReturn(List.of(empty));
+		when(executedRepo.findExecutionIdsWithDone(List.of(1L))).thenReturn(List.of());
+
+		AbandonedExecutionSweeper.SweepReport report = sweeper.sweep();
+
+		assertEquals(0, report.completed());
+		assertEquals(1, report.discarded());
+		verify(repo, times(1)).findStartedBeforeForUpdate(any(), any(), any());
+		verify(repo, never()).completeAtStart(anyCollection(), any(), any());
+	}
+
+	@Test
+	void shouldDoNothingWhenNoTrainingIsAbandoned() {
+		when(repo.findStartedBeforeForUpdate(eq(TrainingExecution.Status.IN_PROGRESS), any(), any()))
+				.thenReturn(List.of());
+
+		AbandonedExecutionSweeper.SweepReport report = sweeper.sweep();
+
+		assertEquals(new AbandonedExecutionSweeper.SweepReport(0, 0), report);
+		verify(executedRepo, never()).findExecutionIdsWithDone(anyCollection());
+		verify(repo, never()).deleteByIds(anyCollection());
+	}
+}
@@ -0,0 +1,115 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ActivityBitmapTest {
+
+	static final LocalDate D = LocalDate.of(2025, 1, 1);
+
+	private static ActivityBitmap days(LocalDate... days) {
+		ActivityBitmap b = ActivityBitmap.EMPTY;
+		for (LocalDate d : days) {
+			b = b.with(d);
+		}
+		return b;
+	}
+
+	private static ActivityBitmap range(LocalDate from, int length) {
+		ActivityBitmap b = ActivityBitmap.EMPTY;
+		for (int i = 0; i < length; i++) {
+			b = b.with(from.plusDays(i));
+		}
+		return b;
+	}
+
+	@Test
+	void shouldBeEmptyWithoutDays() {
+		ActivityBitmap b = ActivityBitmap.EMPTY;
+
+		assertTrue(b.isEmpty());
+		assertEquals(0, b.count());
+		assertEquals(0, b.longestStreak());
+		assertEquals(0, b.currentStreak(D));
+		assertNull(b.first());
+		assertNull(b.last());
+	}
+
+	@Test
+	void shouldRejectDaysBeyondStorableSpan() {
+		ActivityBitmap b = days(D);
+
+		assertThrows(IllegalArgumentException.class, () -> b.with(LocalDate.of(1800, 1, 1)));
+		assertThrows(IllegalArgumentException.class, () -> b.with(LocalDate.MIN));
+		assertTrue(b.with(LocalDate.of(1970, 1, 1)).contains(D));
+	}
+
+	@Test
+	void shouldGrowInBothDirectionsAndKeepDays() {
+		ActivityBitmap b = days(D, D.minusDays(400), D.plusDays(300));
+
+		assertTrue(b.contains(D));
+		assertTrue(b.contains(D.minusDays(400)));
+		assertTrue(b.contains(D.plusDays(300)));
+		assertFalse(b.contains(D.plusDays(1)));
+		assertEquals(3, b.count());
+		assertEquals(D.minusDays(400), b.first());
+		assertEquals(D.plusDays(300), b.last());
+		assertSame(b, b.with(D));
+	}
+
+	@Test
+	void shouldCountAndListDaysInRange() {
+		ActivityBitmap b = days(D, D.plusDays(1), D.plusDays(63), D.plusDays(64), D.plusDays(200));
+
+		assertEquals(3, b.count(D.plusDays(1), D.plusDays(64)));
+		assertEquals(5, b.count(D.minusYears(1), D.plusYears(1)));
+		assertEquals(0, b.count(D.plusDays(2), D.plusDays(62)));
+		assertEquals(List.of(D.plusDays(63), D.plusDays(64)), b.days(D.plusDays(2), D.plusDays(100)));
+		assertEquals(List.of(), b.days(D.plusYears(2), D.plusYears(3)));
+	}
+
+	@Test
+	void shouldFindLongestStreakAcrossWordBoundaries() {
+		ActivityBitmap b = range(D, 5).with(D.plusDays(10));
+		ActivityBitmap longRun = range(D.plusDays(20), 150);
+
+		assertEquals(5, b.longestStreak());
+		assertEquals(150, longRun.longestStreak());
+
+		ActivityBitmap combined = longRun;
+		for (LocalDate d : List.of(D, D.plusDays(1), D.plusDays(2))) {
+			combined = combined.with(d);
+		}
+		assertEquals(150, combined.longestStreak());
+	}
+
+	@Test
+	void shouldCountCurrentStreakEndingTodayOrYesterday() {
+		LocalDate today = D.plusDays(200);
+		ActivityBitmap b = range(today.minusDays(130), 130); // ends yesterday
+
+		assertEquals(130, b.currentStreak(today));
+		assertEquals(131, b.with(today).currentStreak(today));
+		assertEquals(0, b.currentStreak(today.plusDays(1)));
+	}
+
+	@Test
+	void shouldRoundTripThroughBytes() {
+		ActivityBitmap b = days(D, D.plusDays(99), D.plusDays(1000));
+
+		ActivityBitmap copy = ActivityBitmap.fromBytes(b.baseDay(), b.toBytes());
+
+		assertEquals(b.days(D, D.plusYears(5)), copy.days(D, D.plusYears(5)));
+		assertTrue(b.toBytes().length <= 17 * Long.BYTES);
+	}
+}
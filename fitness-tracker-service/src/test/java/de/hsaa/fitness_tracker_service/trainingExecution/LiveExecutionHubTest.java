@@ -0,0 +1,116 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LiveExecutionHubTest {
+
+	final AtomicLong now = new AtomicLong();
+	final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+	LiveExecutionHub hub;
+
+	@BeforeEach
+	void setUp() {
+		hub = new LiveExecutionHub(1, Duration.ofMinutes(1), Duration.ofSeconds(10), 4, 2, meters, now::get);
+	}
+
+	@AfterEach
+	void tearDown() {
+		hub.shutdown();
+	}
+
+	private static void awaitCount(LiveExecutionHub hub, Long executionId, int expected) throws InterruptedException {
+		for (int i = 0; i < 200 && hub.subscriberCount(executionId) != expected; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(expected, hub.subscriberCount(executionId));
+	}
+
+	// counts down on every event; blocks in the write while the gate is closed, like a client that stopped reading
+	private static final class TestEmitter extends SseEmitter {
+
+		final CountDownLatch sent = new CountDownLatch(1);
+		final CountDownLatch gate;
+
+		TestEmitter(boolean blocked) {
+			this.gate = new CountDownLatch(blocked ? 1 : 0);
+		}
+
+		@Override
+		public void send(SseEventBuilder builder) {
+			sent.countDown();
+			try {
+				gate.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	@Test
+	void shouldLimitStreamsPerExecution() {
+		hub.subscribe(1L, "\"0.0\"");
+		hub.subscribe(1L, "\"0.0\"");
+
+		assertThrows(IllegalArgumentException.class, () -> hub.subscribe(1L, "\"0.0\""));
+		assertEquals(2, hub.subscriberCount(1L));
+		hub.subscribe(2L, "\"0.0\"");
+		assertEquals(1, hub.subscriberCount(2L));
+	}
+
+	@Test
+	void shouldCloseStreamsWhenTrainingEnds() throws InterruptedException {
+		hub.subscribe(1L, "\"0.0\"");
+		hub.subscribe(2L, "\"0.0\"");
+
+		hub.publish(1L, "completed", new LiveExecutionHub.Completed(LocalDateTime.now(), "\"1.0\""));
+
+		awaitCount(hub, 1L, 0);
+		assertEquals(1, hub.subscriberCount(2L));
+	}
+
+	@Test
+	void shouldIgnoreExecutionsWithoutStreams() {
+		hub.publishAfterCommit(3L, "cancelled", () -> {
+			throw new AssertionError("payload must not be built without subscribers");
+		});
+		hub.heartbeat();
+
+		assertEquals(0, hub.subscriberCount(3L));
+	}
+
+	@Test
+	void shouldCloseStalledStreamAndKeepServingOthers() throws InterruptedException {
+		TestEmitter stalled = new TestEmitter(true);
+		hub.subscribe(1L, "\"0.0\"", stalled);
+		assertTrue(stalled.sent.await(2, TimeUnit.SECONDS));
+
+		hub.closeStalled();
+		assertEquals(1, hub.subscriberCount(1L));
+
+		now.addAndGet(Duration.ofSeconds(11).toNanos());
+		hub.closeStalled();
+		assertEquals(0, hub.subscriberCount(1L));
+		assertEquals(1, meters.counter("executions.live.stalled").count());
+
+		// the only sender is still blocked, a spare one serves the next stream
+		TestEmitter other = new TestEmitter(false);
+		hub.subscribe(2L, "\"0.0\"", other);
+		assertTrue(other.sent.await(2, TimeUnit.SECONDS));
+		stalled.gate.countDown();
+	}
+}
@@ -0,0 +1,201 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+
+import de.hsaa.fitness_tracker_service.exercise.Exercise;
+
+@ExtendWith(MockitoExtension.class)
+class PersonalRecordServiceTest {
+
+	static final LocalDateTime T = LocalDateTime.of(2025, 3, 10, 18, 0);
+
+	@Mock
+	PersonalRecordRepository repo;
+	@Mock
+	ExecutedExerciseRepository executedRepo;
+	@Mock
+	TrainingExecutionRepository executionRepo;
+
+	PersonalRecordService service;
+
+	@BeforeEach
+	void setUp() {
+		service = new PersonalRecordService(repo, executedRepo, executionRepo);
+	}
+
+	private static ExecutedExercise executed(Long executionId, Long exerciseId, int sets, int reps, double weight,
+			boolean done) {
+		TrainingExecution te = new TrainingExecution();
+		te.setId(executionId);
+		te.setStatus(TrainingExecution.Status.IN_PROGRESS);
+		te.setStartedAt(T.minusHours(1));
+
+		Exercise ex = new Exercise();
+		ex.setId(exerciseId);
+
+		ExecutedExercise ee = new ExecutedExercise();
+		ee.setTrainingExecution(te);
+		ee.setExercise(ex);
+		ee.setActualSets(sets);
+		ee.setActualReps(reps);
+		ee.setActualWeightKg(weight);
+		ee.setDone(done);
+		return ee;
+	}
+
+	private static PersonalRecord stored(Long executionId, double weight, double e1rm, double volume) {
+		PersonalRecord pr = new PersonalRecord();
+		pr.setId(1L);
+		pr.setUserId(10L);
+		pr.setExerciseId(2L);
+		pr.setMaxWeightKg(weight);
+		pr.setMaxWeightExecutionId(executionId);
+		pr.setMaxWeightAt(T.minusDays(7));
+		pr.setBestE1rmKg(e1rm);
+		pr.setBestE1rmExecutionId(executionId);
+		pr.setBestE1rmAt(T.minusDays(7));
+		pr.setBestVolumeKg(volume);
+		pr.setBestVolumeExecutionId(executionId);
+		pr.setBestVolumeAt(T.minusDays(7));
+		return pr;
+	}
+
+	@Test
+	void shouldCreateRecordForFirstDoneExercise() {
+		when(repo.findForUpdate(10L, Set.of(2L))).thenReturn(List.of());
+
+		service.record(10L, List.of(executed(5L, 2L, 3, 10, 60.0, true)), T);
+
+		ArgumentCaptor<PersonalRecord> saved = ArgumentCaptor.forClass(PersonalRecord.class);
+		verify(repo).save(saved.capture());
+		PersonalRecord pr = saved.getValue();
+		assertEquals(2L, pr.getExerciseId());
+		assertEquals(60.0, pr.getMaxWeightKg());
+		assertEquals(80.0, pr.getBestE1rmKg());
+		assertEquals(1800.0, pr.getBestVolumeKg());
+		assertEquals(5L, pr.getMaxWeightExecutionId());
+		assertEquals(T, pr.getBestVolumeAt());
+	}
+
+	@Test
+	void shouldIgnoreExercisesThatAreNotDoneInRunningTraining() {
+		when(repo.findForUpdate(10L, Set.of(2L))).thenReturn(List.of());
+
+		service.record(10L, List.of(executed(5L, 2L, 3, 10, 60.0, false)), T);
+
+		verify(repo, never()).save(any());
+	}
+
+	@Test
+	void shouldOnlyRaiseMetricsThatImprove() {
+		PersonalRecord pr = stored(4L, 100.0, 110.0, 2000.0);
+		when(repo.findForUpdate(10L, Set.of(2L))).thenReturn(List.of(pr));
+
+		// lighter, but more volume
+		service.record(10L, List.of(executed(5L, 2L, 5, 10, 50.0, true)), T);
+
+		assertEquals(100.0, pr.getMaxWeightKg());
+		assertEquals(4L, pr.getMaxWeightExecutionId());
+		assertEquals(110.0, pr.getBestE1rmKg());
+		assertEquals(2500.0, pr.getBestVolumeKg());
+		assertEquals(5L, pr.getBestVolumeExecutionId());
+		assertEquals(T, pr.getBestVolumeAt());
+		verify(executedRepo, never()).findRecordCandidates(any(), anyCollection(), any());
+	}
+
+	@Test
+	void shouldRebuildFromHistoryWhenOwnRecordIsEditedDown() {
+		PersonalRecord pr = stored(5L, 100.0, 133.33, 3000.0);
+		when(repo.findForUpdate(10L, Set.of(2L))).thenReturn(List.of(pr));
+
+		ExecutedExercise edited = executed(5L, 2L, 3, 10, 60.0, true);
+		ExecutedExercise older = executed(4L, 2L, 3, 5, 80.0, true);
+		older.getTrainingExecution().setStatus(TrainingExecution.Status.COMPLETED);
+		older.getTrainingExecution().setCompletedAt(T.minusDays(3));
+		when(executedRepo.findRecordCandidates(10L, Set.of(2L), TrainingExecution.Status.COMPLETED))
+				.thenReturn(List.of(older, edited));
+
+		service.record(10L, List.of(edited), T);
+
+		assertEquals(80.0, pr.getMaxWeightKg());
+		assertEquals(4L, pr.getMaxWeightExecutionId());
+		assertEquals(T.minusDays(3), pr.getMaxWeightAt());
+		assertEquals(93.33, pr.getBestE1rmKg());
+		assertEquals(1800.0, pr.getBestVolumeKg());
+		assertEquals(5L, pr.getBestVolumeExecutionId());
+	}
+
+	@Test
+	void shouldDeleteRecordWhenNothingCountsAnyMore() {
+		PersonalRecord pr = stored(5L, 60.0, 80.0, 1800.0);
+		when(repo.findForUpdate(10L, Set.of(2L))).thenReturn(List.of(pr));
+		when(executedRepo.findRecordCandidates(10L, Set.of(2L), TrainingExecution.Status.COMPLETED))
+				.thenReturn(List.of());
+
+		service.record(10L, List.of(executed(5L, 2L, 3, 10, 60.0, false)), T);
+
+		verify(repo).delete(pr);
+	}
+
+	@Test
+	void shouldUseBestSetOfSetLog() {
+		ExecutedExercise ee = executed(5L, 2L, 0, 0, 0.0, true);
+		byte[] log = SetLog.append(null, 10, 60.0, null, Instant.EPOCH);
+		log = SetLog.append(log, 3, 80.0, 9.0, Instant.EPOCH);
+		log = SetLog.append(log, 0, 100.0, null, Instant.EPOCH);
+		ee.setSetLog(log);
+
+		PersonalRecordService.Metrics m = PersonalRecordService.Metrics.of(ee);
+
+		assertEquals(80.0, m.weightKg());
+		assertEquals(88.0, m.e1rmKg());
+		assertEquals(840.0, m.volumeKg());
+	}
+
+	@Test
+	void shouldListMetricsSetInExecution() {
+		PersonalRecord pr = stored(4L, 100.0, 110.0, 2000.0);
+		pr.setBestVolumeExecutionId(5L);
+		when(repo.findSetInExecution(10L, 5L)).thenReturn(List.of(pr));
+
+		List<PersonalRecordService.NewRecord> records = service.setInExecution(10L, 5L);
+
+		assertEquals(1, records.size());
+		assertEquals(PersonalRecordService.Metric.BEST_VOLUME, records.get(0).metric());
+		assertEquals(2000.0, records.get(0).valueKg());
+	}
+
+	@Test
+	void shouldRequireAuthenticationForReads() {
+		assertThrows(AccessDeniedException.class, () -> service.list(null));
+		assertThrows(AccessDeniedException.class, () -> service.setInExecution(null, 5L));
+	}
+
+	@Test
+	void shouldNotCreateRecordWithoutReps() {
+		when(repo.findForUpdate(10L, Set.of(2L))).thenReturn(List.of());
+
+		service.record(10L, List.of(executed(5L, 2L, 3, 0, 60.0, true)), T);
+
+		verify(repo, never()).save(any());
+	}
+}
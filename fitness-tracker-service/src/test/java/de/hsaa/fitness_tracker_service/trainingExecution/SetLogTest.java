@@ -0,0 +1,66 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+class SetLogTest {
+
+	static final Instant T = Instant.parse("2026-03-01T10:15:30Z");
+
+	@Test
+	void shouldAppendFixedSizeRecordsAndReadThemBack() {
+		byte[] log = SetLog.append(null, 10, 62.5, 8.5, T);
+		log = SetLog.append(log, 8, 65.0, null, T.plusSeconds(90));
+
+		assertEquals(2 * SetLog.RECORD_SIZE, log.length);
+		assertEquals(2, SetLog.count(log));
+		assertEquals(10, SetLog.reps(log, 0));
+		assertEquals(62.5, SetLog.weightKg(log, 0));
+		assertEquals(8.5, SetLog.rpe(log, 0));
+		assertEquals(T.getEpochSecond(), SetLog.loggedAtEpochSecond(log, 0));
+		assertEquals(0.0, SetLog.rpe(log, 1));
+	}
+
+	@Test
+	void shouldDecodeIntoColumns() {
+		byte[] log = SetLog.append(null, 12, 40.0, 7.0, T);
+		log = SetLog.append(log, SetLog.MAX_REPS, 0.01, 10.0, T.plusSeconds(60));
+
+		SetLog.Columns c = SetLog.columns(log);
+
+		assertArrayEquals(new int[] { 12, SetLog.MAX_REPS }, c.reps());
+		assertArrayEquals(new double[] { 40.0, 0.01 }, c.weightKg());
+		assertArrayEquals(new double[] { 7.0, 10.0 }, c.rpe());
+		assertArrayEquals(new long[] { T.getEpochSecond(), T.getEpochSecond() + 60 }, c.loggedAtEpochSecond());
+	}
+
+	@Test
+	void shouldReturnEmptyColumnsForMissingLog() {
+		assertEquals(0, SetLog.count(null));
+		assertEquals(0, SetLog.columns(null).reps().length);
+	}
+
+	@Test
+	void shouldRejectOutOfRangeValues() {
+		assertThrows(IllegalArgumentException.class, () -> SetLog.append(null, -1, 10.0, null, T));
+		assertThrows(IllegalArgumentException.class, () -> SetLog.append(null, 70000, 10.0, null, T));
+		assertThrows(IllegalArgumentException.class, () -> SetLog.append(null, 5, -1.0, null, T));
+		assertThrows(IllegalArgumentException.class, () -> SetLog.append(null, 5, 10.0, 11.0, T));
+	}
+
+	@Test
+	void shouldCapNumberOfSets() {
+		byte[] log = null;
+		for (int i = 0; i < SetLog.MAX_SETS; i++) {
+			log = SetLog.append(log, 1, 1.0, null, T);
+		}
+		byte[] full = log;
+
+		assertThrows(IllegalArgumentException.class, () -> SetLog.append(full, 1, 1.0, null, T));
+	}
+}
@@ -0,0 +1,141 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class TrainingActivityServiceTest {
+
+	static final LocalDate D = LocalDate.of(2025, 3, 10);
+
+	@Mock
+	TrainingActivityRepository repo;
+	@Mock
+	TrainingExecutionRepository executionRepo;
+
+	TrainingActivityService service;
+
+	@BeforeEach
+	void setUp() {
+		service = new TrainingActivityService(repo, executionRepo, 2);
+	}
+
+	private static TrainingActivity row(Long userId, ActivityBitmap bitmap) {
+		TrainingActivity a = new TrainingActivity();
+		a.setUserId(userId);
+		a.setBaseDay(bitmap.baseDay());
+		a.setWords(bitmap.toBytes());
+		return a;
+	}
+
+	@Test
+	void shouldLoadStoredBitmapOnceAndServeFromCache() {
+		when(repo.findById(10L)).thenReturn(Optional.of(row(10L, ActivityBitmap.EMPTY.with(D))));
+
+		ActivityBitmap first = service.get(10L);
+		ActivityBitmap second = service.get(10L);
+
+		assertSame(first, second);
+		assertTrue(first.contains(D));
+		verify(repo, times(1)).findById(10L);
+	}
+
+	@Test
+	void shouldEvictLeastRecentlyUsedUsers() {
+		when(repo.findById(any())).thenReturn(Optional.of(row(1L, ActivityBitmap.EMPTY.with(D))));
+
+		service.get(1L);
+		service.get(2L);
+		service.get(1L);
+		service.get(3L);
+		service.get(1L);
+		service.get(2L);
+
+		verify(repo, times(1)).findById(1L);
+		verify(repo, times(2)).findById(2L);
+	}
+
+	@Test
+	void shouldRebuildFromHistoryWhenNoRowExists() {
+		when(repo.findById(10L)).thenReturn(Optional.empty());
+		when(executionRepo.findCompletedDays(10L, TrainingExecution.Status.COMPLETED))
+				.thenReturn(List.of(D.minusDays(1), D));
+
+		ActivityBitmap bitmap = service.get(10L);
+
+		assertEquals(2, bitmap.count());
+		assertEquals(2, bitmap.longestStreak());
+		verify(repo, never()).save(any());
+	}
+
+	@Test
+	void shouldAddDayToStoredRowAndRefreshCache() {
+		when(repo.findForUpdate(10L)).thenReturn(Optional.of(row(10L, ActivityBitmap.EMPTY.with(D))));
+
+		service.recordTrainingDay(10L, D.plusDays(1));
+
+		ArgumentCaptor<TrainingActivity> saved = ArgumentCaptor.forClass(TrainingActivity.class);
+		verify(repo).save(saved.capture());
+		ActivityBitmap stored = ActivityBitmap.fromBytes(saved.getValue().getBaseDay(), saved.getValue().getWords());
+		assertEquals(2, stored.currentStreak(D.plusDays(1)));
+
+		assertEquals(2, service.get(10L).count());
+		verify(repo, never()).findById(any());
+	}
+
+	@Test
+	void shouldSkipWriteWhenDayAlreadyRecorded() {
+		when(repo.findForUpdate(10L)).thenReturn(Optional.of(row(10L, ActivityBitmap.EMPTY.with(D))));
+
+		service.recordTrainingDay(10L, D);
+
+		verify(repo, never()).save(any());
+	}
+
+	@Test
+	void shouldCreateRowFromHistoryOnFirstRecord() {
+		when(repo.findForUpdate(10L)).thenReturn(Optional.empty());
+		when(executionRepo.findCompletedDays(10L, TrainingExecution.Status.COMPLETED))
+				.thenReturn(List.of(D.minusDays(7)));
+
+		service.recordTrainingDay(10L, D);
+
+		ArgumentCaptor<TrainingActivity> saved = ArgumentCaptor.forClass(TrainingActivity.class);
+		verify(repo).save(saved.capture());
+		assertEquals(10L, saved.getValue().getUserId());
+		ActivityBitmap stored = ActivityBitmap.fromBytes(saved.getValue().getBaseDay(), saved.getValue().getWords());
+		assertEquals(List.of(D.minusDays(7), D), stored.days(D.minusYears(1), D));
+	}
+
+	@Test
+	void shouldReplaceStoredRowOnRefresh() {
+		TrainingActivity stored = row(10L, ActivityBitmap.EMPTY.with(D));
+		when(repo.findForUpdate(10L)).thenReturn(Optional.of(stored));
+		when(executionRepo.findCompletedDays(10L, TrainingExecution.Status.COMPLETED))
+				.thenReturn(List.of(D.minusYears(2), D));
+
+		service.refresh(10L);
+
+		verify(repo).save(stored);
+		ActivityBitmap bitmap = ActivityBitmap.fromBytes(stored.getBaseDay(), stored.getWords());
+		assertEquals(List.of(D.minusYears(2), D), bitmap.days(D.minusYears(3), D));
+		assertEquals(2, service.get(10L).count());
+	}
+}
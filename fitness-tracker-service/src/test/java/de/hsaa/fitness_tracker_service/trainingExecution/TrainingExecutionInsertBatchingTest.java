@@ -0,0 +1,122 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import de.hsaa.fitness_tracker_service.execution.ExerciseExecution;
+import de.hsaa.fitness_tracker_service.exercise.Exercise;
+import de.hsaa.fitness_tracker_service.exercise.ExerciseRepository;
+import de.hsaa.fitness_tracker_service.trainingsPlan.TrainingPlan;
+import de.hsaa.fitness_tracker_service.trainingsPlan.TrainingPlanRepository;
+import de.hsaa.fitness_tracker_service.trainingsSession.TrainingSession;
+import de.hsaa.fitness_tracker_service.trainingsSession.TrainingSessionRepository;
+import de.hsaa.fitness_tracker_service.trainingsSessionDay.SessionDay;
+import jakarta.persistence.EntityManager;
+
+// Counts JDBC statements through Hibernate statistics: with pooled sequence ids the inserts of one flush are
+// batched per table instead of being sent row by row.
+@SpringBootTest
+@Transactional
+class TrainingExecutionInsertBatchingTest {
+
+	private static final Long ADMIN_ID = 1L;
+
+	@Autowired
+	TrainingExecutionService service;
+	@Autowired
+	ExerciseRepository exerciseRepo;
+	@Autowired
+	TrainingPlanRepository planRepo;
+	@Autowired
+	TrainingSessionRepository sessionRepo;
+	@Autowired
+	EntityManager em;
+
+	Statistics stats;
+
+	@BeforeEach
+	void setUp() {
+		stats = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		stats.setStatisticsEnabled(true);
+	}
+
+	@AfterEach
+	void tearDown() {
+		stats.setStatisticsEnabled(false);
+	}
+
+	private TrainingSession session(int exercises, int days) {
+		TrainingPlan plan = new TrainingPlan();
+		plan.setName("Batching " + System.nanoTime());
+		plan.setDescription("Statement-Zählung");
+		planRepo.save(plan);
+
+		TrainingSession session = new TrainingSession();
+		session.setPlan(plan);
+		session.setName("Ganzkörper");
+		for (int i = 1; i <= exercises; i++) {
+			Exercise ex = new Exercise();
+			ex.setName("Übung " + i + " " + System.nanoTime());
+			ex.setCategory("Freihantel");
+			ex.setMuscleGroups("Ganzkörper");
+			exerciseRepo.save(ex);
+
+			ExerciseExecution planned = new ExerciseExecution();
+			planned.setSession(session);
+			planned.setExercise(ex);
+			planned.setOrderIndex(i);
+			planned.setPlannedSets(3);
+			planned.setPlannedReps(10);
+			planned.setPlannedWeightKg(20.0);
+			session.getExerciseExecutions().add(planned);
+		}
+		for (int d = 1; d <= days; d++) {
+			SessionDay day = new SessionDay();
+			day.setDay(d);
+			day.setSession(session);
+			session.getDays().add(day);
+		}
+		sessionRepo.save(session);
+		em.flush();
+		em.clear();
+		return session;
+	}
+
+	@Test
+	void shouldStartTwelveExerciseTrainingWithBatchedInserts() {
+		Long sessionId = session(12, 0).getId();
+
+		// the first use of a pooled sequence reads it twice to set up its block; measure a warm start
+		service.start(ADMIN_ID, sessionId);
+		em.flush();
+		em.clear();
+
+		stats.clear();
+		service.start(ADMIN_ID, sessionId);
+		em.flush();
+
+		assertEquals(13, stats.getEntityInsertCount());
+		// session graph select plus one batched insert per table; each sequence may cross into its next block
+		assertTrue(stats.getPrepareStatementCount() <= 3 + 2,
+				"statements: " + stats.getPrepareStatementCount());
+	}
+
+	@Test
+	void shouldInsertSessionDaysAndPlannedExercisesInOneBatchEach() {
+		stats.clear();
+		session(6, 5);
+
+		// plan, exercises and session keep identity ids and go one by one, days and planned exercises are batched
+		assertTrue(stats.getPrepareStatementCount() <= 1 + 6 + 1 + 1 + 1 + 2,
+				"statements: " + stats.getPrepareStatementCount());
+	}
+}
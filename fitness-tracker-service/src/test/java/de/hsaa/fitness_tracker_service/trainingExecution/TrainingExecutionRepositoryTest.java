@@ -0,0 +1,176 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import de.hsaa.fitness_tracker_service.exercise.Exercise;
+import de.hsaa.fitness_tracker_service.trainingsPlan.TrainingPlan;
+import de.hsaa.fitness_tracker_service.trainingsSession.TrainingSession;
+import de.hsaa.fitness_tracker_service.user.User;
+import jakarta.persistence.EntityManager;
+
+// Runs the queries against H2; users 1 to 3 come from data.sql.
+@DataJpaTest
+class TrainingExecutionRepositoryTest {
+
+	static final LocalDateTime T = LocalDateTime.of(2025, 3, 10, 18, 0);
+
+	@Autowired
+	TrainingExecutionRepository repo;
+	@Autowired
+	EntityManager em;
+
+	private TrainingExecution execution(Long userId, TrainingExecution.Status status) {
+		TrainingExecution te = new TrainingExecution();
+		te.setUser(em.getReference(User.class, userId));
+		te.setStatus(status);
+		te.setStartedAt(T);
+		te.setCompletedAt(status == TrainingExecution.Status.COMPLETED ? T.plusHours(1) : null);
+		em.persist(te);
+		return te;
+	}
+
+	private TrainingSession session(String planName, String sessionName) {
+		TrainingPlan plan = new TrainingPlan();
+		plan.setName(planName);
+		plan.setDescription("Beine");
+		em.persist(plan);
+
+		TrainingSession session = new TrainingSession();
+		session.setPlan(plan);
+		session.setName(sessionName);
+		em.persist(session);
+		return session;
+	}
+
+	private TrainingExecution execution(TrainingSession session, String sessionName, String planName) {
+		TrainingExecution te = new TrainingExecution();
+		te.setUser(em.getReference(User.class, 1L));
+		te.setSession(session);
+		te.setSessionNameSnapshot(sessionName);
+		te.setPlanNameSnapshot(planName);
+		te.setStatus(TrainingExecution.Status.COMPLETED);
+		te.setStartedAt(T);
+		te.setCompletedAt(T.plusHours(1));
+		em.persist(te);
+		return te;
+	}
+
+	private ExecutedExercise executed(TrainingExecution te, Exercise exercise) {
+		ExecutedExercise ee = new ExecutedExercise();
+		ee.setTrainingExecution(te);
+		ee.setExercise(exercise);
+		ee.setPlannedSets(3);
+		ee.setPlannedReps(10);
+		ee.setPlannedWeightKg(60.0);
+		ee.setActualSets(3);
+		ee.setActualReps(10);
+		ee.setActualWeightKg(60.0);
+		ee.setDone(true);
+		em.persist(ee);
+		return ee;
+	}
+
+	private Exercise exercise(String name) {
+		Exercise exercise = new Exercise();
+		exercise.setName(name);
+		exercise.setCategory("Freihantel");
+		exercise.setMuscleGroups("Beine");
+		em.persist(exercise);
+		return exercise;
+	}
+
+	private boolean rolledUp(Long id) {
+		return em.createQuery("select te.rolledUp from TrainingExecution te where te.id = :id", Boolean.class)
+				.setParameter("id", id).getSingleResult();
+	}
+
+	@Test
+	void shouldStreamRollupRowsGroupedByTraining() {
+		Exercise exercise = exercise("Kniebeuge");
+		TrainingExecution withExercises = execution(1L, TrainingExecution.Status.COMPLETED);
+		executed(withExercises, exercise);
+		executed(withExercises, exercise("Ausfallschritt"));
+		TrainingExecution empty = execution(1L, TrainingExecution.Status.COMPLETED);
+		executed(execution(1L, TrainingExecution.Status.IN_PROGRESS), exercise);
+		executed(execution(2L, TrainingExecution.Status.COMPLETED), exercise);
+		em.flush();
+		em.clear();
+
+		List<VolumeRollupRow> rows;
+		try (Stream<VolumeRollupRow> stream = repo.streamRollupRows(List.of(1L),
+				TrainingExecution.Status.COMPLETED)) {
+			rows = stream.toList();
+		}
+
+		assertEquals(List.of(withExercises.getId(), withExercises.getId(), empty.getId()),
+				rows.stream().map(VolumeRollupRow::executionId).toList());
+		assertEquals(1L, rows.get(0).userId());
+		assertEquals(T.plusHours(1), rows.get(0).completedAt());
+		assertEquals("Freihantel", rows.get(0).executedExercise().getExercise().getCategory());
+		assertNull(rows.get(2).executedExercise());
+	}
+
+	@Test
+	void shouldMarkTrainingRolledUpOnlyOnce() {
+		Long id = execution(1L, TrainingExecution.Status.COMPLETED).getId();
+		em.flush();
+
+		assertEquals(1, repo.markRolledUp(id));
+		assertEquals(0, repo.markRolledUp(id));
+		assertTrue(rolledUp(id));
+	}
+
+	@Test
+	void shouldMarkCompletedTrainingsOfRebuiltUsers() {
+		Long done = execution(1L, TrainingExecution.Status.COMPLETED).getId();
+		Long running = execution(1L, TrainingExecution.Status.IN_PROGRESS).getId();
+		Long otherUser = execution(2L, TrainingExecution.Status.COMPLETED).getId();
+		em.flush();
+
+		repo.markRolledUpByUsers(List.of(1L), TrainingExecution.Status.COMPLETED);
+		em.clear();
+
+		assertTrue(rolledUp(done));
+		assertFalse(rolledUp(running));
+		assertFalse(rolledUp(otherUser));
+		assertEquals(0, repo.markRolledUp(done));
+	}
+
+	@Test
+	void shouldDetachFromSessionAndKeepExistingSnapshots() {
+		TrainingSession session = session("Leg Day", "Beine A");
+		TrainingExecution blank = execution(session, " ", null);
+		TrainingExecution named = execution(session, "Beine alt", "Leg Day alt");
+		em.flush();
+		long version = blank.getVersion();
+
+		assertEquals(2, repo.detachFromSession(List.of(blank.getId(), named.getId()), session.getId(), "Beine A",
+				"Leg Day"));
+		em.clear();
+
+		TrainingExecution detachedBlank = em.find(TrainingExecution.class, blank.getId());
+		assertNull(detachedBlank.getSession());
+		assertEquals(session.getId(), detachedBlank.getSessionIdSnapshot());
+		assertEquals(session.getId(), detachedBlank.getEffectiveSessionId());
+		assertEquals("Beine A", detachedBlank.getSessionNameSnapshot());
+		assertEquals("Leg Day", detachedBlank.getPlanNameSnapshot());
+		assertEquals(version + 1, detachedBlank.getVersion());
+
+		TrainingExecution detachedNamed = em.find(TrainingExecution.class, named.getId());
+		assertNull(detachedNamed.getSession());
+		assertEquals("Beine alt", detachedNamed.getSessionNameSnapshot());
+		assertEquals("Leg Day alt", detachedNamed.getPlanNameSnapshot());
+		assertEquals(version + 1, detachedNamed.getVersion());
+	}
+}
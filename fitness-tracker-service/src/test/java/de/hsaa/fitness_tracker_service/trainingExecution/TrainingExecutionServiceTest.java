@@ -11,26 +11,30 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 
-import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 
 import de.hsaa.fitness_tracker_service.execution.ExerciseExecution;
 import de.hsaa.fitness_tracker_service.exercise.Exercise;
 import de.hsaa.fitness_tracker_service.exercise.ExerciseRepository;
+import de.hsaa.fitness_tracker_service.outbox.Outbox;
+import de.hsaa.fitness_tracker_service.outbox.OutboxEvent;
 import de.hsaa.fitness_tracker_service.trainingsPlan.TrainingPlan;
 import de.hsaa.fitness_tracker_service.trainingsSession.TrainingSession;
 import de.hsaa.fitness_tracker_service.trainingsSession.TrainingSessionRepository;
@@ -44,34 +48,31 @@ class TrainingExecutionServiceTest {
 	@Mock
 	TrainingExecutionRepository repo;
 	@Mock
+	ExecutedExerciseRepository executedRepo;
+	@Mock
 	TrainingSessionRepository sessionRepo;
 	@Mock
 	ExerciseRepository exerciseRepo;
 	@Mock
 	UserRepository userRepo;
+	@Mock
+	TrainingStreakRepository streakRepo;
+	@Mock
+	TrainingActivityService activity;
+	@Mock
+	Outbox outbox;
+	@Mock
+	LiveExecutionHub live;
 
 	@InjectMocks
 	TrainingExecutionService service;
 
-	@AfterEach
-	void cleanupSecurityContext() {
-		SecurityContextHolder.clearContext();
-	}
-
-	private void mockAuthUser(String username) {
-		Authentication auth = mock(Authentication.class);
-		when(auth.getName()).thenReturn(username);
-		SecurityContextHolder.getContext().setAuthentication(auth);
-	}
-
 	// --- start() -------------------------------------------------------------
 
 	@Test
 	void shouldStartTrainingExecutionSetsOwnerAndCreatesExecutedExerciseAndSnapshots() {
-		mockAuthUser("alice");
-
 		User current = mock(User.class);
-		when(userRepo.findByUsername("alice")).thenReturn(Optional.of(current));
+		when(userRepo.getReferenceById(10L)).thenReturn(current);
 
 		TrainingPlan plan = new TrainingPlan();
 		plan.setName("P");
@@ -98,7 +99,7 @@ class TrainingExecutionServiceTest {
 		when(sessionRepo.findWithExecutionsById(1L)).thenReturn(Optional.of(session));
 		when(repo.save(any())).thenAnswer(i -> i.getArgument(0));
 
-		TrainingExecution te = service.start(1L);
+		TrainingExecution te = service.start(10L, 1L);
 
 		assertEquals(TrainingExecution.Status.IN_PROGRESS, te.getStatus());
 		assertNotNull(te.getStartedAt());
@@ -132,15 +133,15 @@ class TrainingExecutionServiceTest {
 
 	@Test
 	void shouldThrowUnauthorizedWhenStartWithoutAuthentication() {
-		// keine Auth setzen, aber Session existiert -> Exception muss aus
-		// getCurrentUser kommen
+		// keine User-ID, aber Session existiert -> Exception muss aus
+		// requireAuthenticated kommen
 
 		TrainingSession session = mock(TrainingSession.class);
 		when(session.getExerciseExecutions()).thenReturn(new LinkedHashSet<>(List.of(mock(ExerciseExecution.class))));
 
 		when(sessionRepo.findWithExecutionsById(1L)).thenReturn(Optional.of(session));
 
-		assertThrows(AccessDeniedException.class, () -> service.start(1L));
+		assertThrows(AccessDeniedException.class, () -> service.start(null, 1L));
 	}
 
 	@Test
@@ -148,7 +149,7 @@ class TrainingExecutionServiceTest {
 		// Keine Auth nötig, weil vorher EntityNotFound fliegt
 		when(sessionRepo.findWithExecutionsById(1L)).thenReturn(Optional.empty());
 
-		assertThrows(EntityNotFoundException.class, () -> service.start(1L));
+		assertThrows(EntityNotFoundException.class, () -> service.start(10L, 1L));
 	}
 
 	@Test
@@ -159,214 +160,222 @@ class TrainingExecutionServiceTest {
 
 		when(sessionRepo.findWithExecutionsById(1L)).thenReturn(Optional.of(session));
 
-		assertThrows(IllegalArgumentException.class, () -> service.start(1L));
+		assertThrows(IllegalArgumentException.class, () -> service.start(10L, 1L));
 	}
 
 	// --- get() / owner -------------------------------------------------------
 
 	@Test
 	void shouldGetTrainingExecutionWhenOwnerMatches() {
-		mockAuthUser("alice");
-
 		User current = mock(User.class);
-		when(current.getId()).thenReturn(10L);
-		when(userRepo.findByUsername("alice")).thenReturn(Optional.of(current));
 
 		TrainingExecution te = new TrainingExecution();
 		te.setUser(current);
 
-		when(repo.findWithExercisesById(1L)).thenReturn(Optional.of(te));
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.of(te));
 
-		assertSame(te, service.get(1L));
+		assertSame(te, service.get(10L, 1L));
 	}
 
 	@Test
-	void shouldThrowForbiddenWhenGetNotOwner() {
-		mockAuthUser("alice");
+	void shouldThrowNotFoundWhenGetNotOwner() {
+		// fremde Executions sind fuer den Aufrufer nicht sichtbar
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.empty());
 
-		User current = mock(User.class);
-		when(current.getId()).thenReturn(10L);
-		when(userRepo.findByUsername("alice")).thenReturn(Optional.of(current));
-
-		User other = mock(User.class);
-		when(other.getId()).thenReturn(99L);
-
-		TrainingExecution te = new TrainingExecution();
-		te.setUser(other);
-
-		when(repo.findWithExercisesById(1L)).thenReturn(Optional.of(te));
+		assertThrows(EntityNotFoundException.class, () -> service.get(10L, 1L));
+	}
 
-		assertThrows(AccessDeniedException.class, () -> service.get(1L));
+	@Test
+	void shouldThrowAccessDeniedWhenGetWithoutUser() {
+		assertThrows(AccessDeniedException.class, () -> service.get(null, 1L));
+		verifyNoInteractions(repo);
 	}
 
 	@Test
 	void shouldThrowExceptionWhenTrainingExecutionNotFound() {
 		// Keine Auth nötig, weil vorher EntityNotFound fliegt
-		when(repo.findWithExercisesById(1L)).thenReturn(Optional.empty());
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.empty());
 
-		assertThrows(EntityNotFoundException.class, () -> service.get(1L));
+		assertThrows(EntityNotFoundException.class, () -> service.get(10L, 1L));
 	}
 
 	// --- complete() / cancel() ----------------------------------------------
 
 	@Test
 	void shouldCompleteTrainingExecution() {
-		mockAuthUser("alice");
-
 		User current = mock(User.class);
-		when(current.getId()).thenReturn(10L);
-		when(userRepo.findByUsername("alice")).thenReturn(Optional.of(current));
 
 		TrainingExecution te = new TrainingExecution();
 		te.setUser(current);
 		te.setStatus(TrainingExecution.Status.IN_PROGRESS);
 		te.setStartedAt(LocalDateTime.now());
 
-		when(repo.findWithExercisesById(1L)).thenReturn(Optional.of(te));
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.of(te));
+		when(streakRepo.findForUpdate(10L)).thenReturn(Optional.of(new TrainingStreak()));
 
-		TrainingExecution result = service.complete(1L);
+		TrainingExecution result = service.complete(10L, 1L, null);
 
 		assertSame(te, result);
 		assertEquals(TrainingExecution.Status.COMPLETED, result.getStatus());
 		assertNotNull(result.getCompletedAt());
+		verify(activity).recordTrainingDay(10L, result.getCompletedAt().toLocalDate());
+		verify(outbox).publish(OutboxEvent.Type.TRAINING_COMPLETED, 10L, te.getId(), null);
 	}
 
 	@Test
 	void shouldThrowExceptionWhenCompletingAlreadyCompletedTraining() {
-		mockAuthUser("alice");
-
 		User current = mock(User.class);
-		when(current.getId()).thenReturn(10L);
-		when(userRepo.findByUsername("alice")).thenReturn(Optional.of(current));
 
 		TrainingExecution te = new TrainingExecution();
 		te.setUser(current);
 		te.setStatus(TrainingExecution.Status.COMPLETED);
 		te.setCompletedAt(LocalDateTime.now());
 
-		when(repo.findWithExercisesById(1L)).thenReturn(Optional.of(te));
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.of(te));
 
-		assertThrows(IllegalArgumentException.class, () -> service.complete(1L));
+		assertThrows(IllegalArgumentException.class, () -> service.complete(10L, 1L, null));
 	}
 
 	@Test
 	void shouldCancelTrainingExecutionWhenNotCompleted() {
-		mockAuthUser("alice");
-
 		User current = mock(User.class);
-		when(current.getId()).thenReturn(10L);
-		when(userRepo.findByUsername("alice")).thenReturn(Optional.of(current));
 
 		TrainingExecution te = new TrainingExecution();
 		te.setUser(current);
 		te.setStatus(TrainingExecution.Status.IN_PROGRESS);
 
-		when(repo.findWithExercisesById(1L)).thenReturn(Optional.of(te));
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.of(te));
 
-		service.cancel(1L);
+		service.cancel(10L, 1L, null);
 
 		verify(repo).delete(te);
+		verify(outbox).publish(OutboxEvent.Type.TRAINING_CANCELLED, 10L, 1L, null);
 	}
 
 	@Test
 	void shouldThrowExceptionWhenCancelCompletedTraining() {
-		mockAuthUser("alice");
-
 		User current = mock(User.class);
-		when(current.getId()).thenReturn(10L);
-		when(userRepo.findByUsername("alice")).thenReturn(Optional.of(current));
 
 		TrainingExecution te = new TrainingExecution();
 		te.setUser(current);
 		te.setStatus(TrainingExecution.Status.COMPLETED);
 
-		when(repo.findWithExercisesById(1L)).thenReturn(Optional.of(te));
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.of(te));
 
-		assertThrows(IllegalArgumentException.class, () -> service.cancel(1L));
+		assertThrows(IllegalArgumentException.class, () -> service.cancel(10L, 1L, null));
 		verify(repo, never()).delete(any());
 	}
 
+	// --- If-Match ------------------------------------------------------------
+
+	@Test
+	void shouldRejectCompleteWithStaleETagAndCarryCurrentState() {
+		TrainingExecution te = new TrainingExecution();
+		te.setStatus(TrainingExecution.Status.IN_PROGRESS);
+		te.setVersion(3);
+		ExecutedExercise ee = new ExecutedExercise();
+		ee.setVersion(4);
+		te.getExecutedExercises().add(ee);
+
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.of(te));
+
+		StaleVersionException ex = assertThrows(StaleVersionException.class,
+				() -> service.complete(10L, 1L, "\"3.3\""));
+
+		assertSame(te, ex.getCurrent());
+		assertEquals("\"3.4\"", ex.getEtag());
+		assertEquals(TrainingExecution.Status.IN_PROGRESS, te.getStatus());
+		verifyNoInteractions(outbox);
+	}
+
+	@Test
+	void shouldCancelWhenETagMatches() {
+		TrainingExecution te = new TrainingExecution();
+		te.setStatus(TrainingExecution.Status.IN_PROGRESS);
+		te.setVersion(2);
+
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.of(te));
+
+		service.cancel(10L, 1L, "\"1.0\", \"2.0\"");
+
+		verify(repo).delete(te);
+	}
+
+	@Test
+	void shouldRejectSingleUpdateWithStaleETag() {
+		ExecutedExercise target = new ExecutedExercise();
+		target.setVersion(5);
+		when(executedRepo.findEditable(1L, 2L, 10L, TrainingExecution.Status.IN_PROGRESS))
+				.thenReturn(Optional.of(target));
+
+		assertThrows(StaleVersionException.class,
+				() -> service.updateExecutedExercise(10L, 1L, 2L, 1, 1, 1.0, true, null, "W/\"5\""));
+
+		assertNull(target.getActualSets());
+		verifyNoInteractions(outbox);
+	}
+
 	// --- upsertExecutedExercise() -------------------------------------------
 
 	@Test
 	void shouldThrowExceptionWhenUpsertOnNotInProgress() {
-		mockAuthUser("alice");
-
 		User current = mock(User.class);
-		when(current.getId()).thenReturn(10L);
-		when(userRepo.findByUsername("alice")).thenReturn(Optional.of(current));
 
 		TrainingExecution te = new TrainingExecution();
 		te.setUser(current);
 		te.setStatus(TrainingExecution.Status.COMPLETED);
 
-		when(repo.findWithExercisesById(1L)).thenReturn(Optional.of(te));
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.of(te));
 
 		assertThrows(IllegalArgumentException.class,
-				() -> service.upsertExecutedExercise(1L, 2L, 0, 0, 0.0, false, null));
+				() -> service.upsertExecutedExercise(10L, 1L, 2L, 0, 0, 0.0, false, null, null));
 	}
 
 	@Test
 	void shouldThrowExceptionWhenUpsertActualSetsInvalid() {
-		mockAuthUser("alice");
-
 		User current = mock(User.class);
-		when(current.getId()).thenReturn(10L);
-		when(userRepo.findByUsername("alice")).thenReturn(Optional.of(current));
 
 		TrainingExecution te = new TrainingExecution();
 		te.setUser(current);
 		te.setStatus(TrainingExecution.Status.IN_PROGRESS);
 
-		when(repo.findWithExercisesById(1L)).thenReturn(Optional.of(te));
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.of(te));
 
 		assertThrows(IllegalArgumentException.class,
-				() -> service.upsertExecutedExercise(1L, 2L, -1, 0, 0.0, false, null));
+				() -> service.upsertExecutedExercise(10L, 1L, 2L, -1, 0, 0.0, false, null, null));
 	}
 
 	@Test
 	void shouldThrowExceptionWhenUpsertActualRepsInvalid() {
-		mockAuthUser("alice");
-
 		User current = mock(User.class);
-		when(current.getId()).thenReturn(10L);
-		when(userRepo.findByUsername("alice")).thenReturn(Optional.of(current));
 
 		TrainingExecution te = new TrainingExecution();
 		te.setUser(current);
 		te.setStatus(TrainingExecution.Status.IN_PROGRESS);
 
-		when(repo.findWithExercisesById(1L)).thenReturn(Optional.of(te));
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.of(te));
 
 		assertThrows(IllegalArgumentException.class,
-				() -> service.upsertExecutedExercise(1L, 2L, 0, -1, 0.0, false, null));
+				() -> service.upsertExecutedExercise(10L, 1L, 2L, 0, -1, 0.0, false, null, null));
 	}
 
 	@Test
 	void shouldThrowExceptionWhenUpsertActualWeightInvalid() {
-		mockAuthUser("alice");
-
 		User current = mock(User.class);
-		when(current.getId()).thenReturn(10L);
-		when(userRepo.findByUsername("alice")).thenReturn(Optional.of(current));
 
 		TrainingExecution te = new TrainingExecution();
 		te.setUser(current);
 		te.setStatus(TrainingExecution.Status.IN_PROGRESS);
 
-		when(repo.findWithExercisesById(1L)).thenReturn(Optional.of(te));
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.of(te));
 
 		assertThrows(IllegalArgumentException.class,
-				() -> service.upsertExecutedExercise(1L, 2L, 0, 0, -0.1, false, null));
+				() -> service.upsertExecutedExercise(10L, 1L, 2L, 0, 0, -0.1, false, null, null));
 	}
 
 	@Test
 	void shouldThrowExceptionWhenExerciseNotFoundDuringUpsert() {
-		mockAuthUser("alice");
-
 		User current = mock(User.class);
-		when(current.getId()).thenReturn(10L);
-		when(userRepo.findByUsername("alice")).thenReturn(Optional.of(current));
 
 		TrainingExecution te = new TrainingExecution();
 		te.setUser(current);
@@ -379,20 +388,16 @@ class TrainingExecutionServiceTest {
 		row.setExercise(existing);
 		te.getExecutedExercises().add(row);
 
-		when(repo.findWithExercisesById(1L)).thenReturn(Optional.of(te));
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.of(te));
 		when(exerciseRepo.findById(2L)).thenReturn(Optional.empty());
 
 		assertThrows(EntityNotFoundException.class,
-				() -> service.upsertExecutedExercise(1L, 2L, 0, 0, 0.0, false, null));
+				() -> service.upsertExecutedExercise(10L, 1L, 2L, 0, 0, 0.0, false, null, null));
 	}
 
 	@Test
 	void shouldUpsertExecutedExerciseHappyPathTrimsNotesAndUpdatesSnapshotsWhenBlank() {
-		mockAuthUser("alice");
-
 		User current = mock(User.class);
-		when(current.getId()).thenReturn(10L);
-		when(userRepo.findByUsername("alice")).thenReturn(Optional.of(current));
 
 		TrainingExecution te = new TrainingExecution();
 		te.setUser(current);
@@ -412,10 +417,10 @@ class TrainingExecutionServiceTest {
 		when(exFromRepo.getName()).thenReturn("Bench");
 		when(exFromRepo.getCategory()).thenReturn("Free");
 
-		when(repo.findWithExercisesById(1L)).thenReturn(Optional.of(te));
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.of(te));
 		when(exerciseRepo.findById(2L)).thenReturn(Optional.of(exFromRepo));
 
-		TrainingExecution result = service.upsertExecutedExercise(1L, 2L, 5, 12, 42.5, true, "  ok  ");
+		TrainingExecution result = service.upsertExecutedExercise(10L, 1L, 2L, 5, 12, 42.5, true, "  ok  ", null);
 
 		assertSame(te, result);
 		assertEquals("Bench", row.getExerciseNameSnapshot());
@@ -425,15 +430,12 @@ class TrainingExecutionServiceTest {
 		assertEquals(12, row.getActualReps());
 		assertEquals(42.5, row.getActualWeightKg());
 		assertTrue(row.isDone());
+		verify(outbox).publish(OutboxEvent.Type.EXECUTED_EXERCISE_UPDATED, 10L, 1L, 2L);
 	}
 
 	@Test
 	void shouldUpsertExecutedExerciseSetsNullNotesWhenNullProvided() {
-		mockAuthUser("alice");
-
 		User current = mock(User.class);
-		when(current.getId()).thenReturn(10L);
-		when(userRepo.findByUsername("alice")).thenReturn(Optional.of(current));
 
 		TrainingExecution te = new TrainingExecution();
 		te.setUser(current);
@@ -451,10 +453,10 @@ class TrainingExecutionServiceTest {
 		when(exFromRepo.getName()).thenReturn("Bench");
 		when(exFromRepo.getCategory()).thenReturn("Free");
 
-		when(repo.findWithExercisesById(1L)).thenReturn(Optional.of(te));
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.of(te));
 		when(exerciseRepo.findById(2L)).thenReturn(Optional.of(exFromRepo));
 
-		TrainingExecution result = service.upsertExecutedExercise(1L, 2L, 1, 2, 3.0, false, null);
+		TrainingExecution result = service.upsertExecutedExercise(10L, 1L, 2L, 1, 2, 3.0, false, null, null);
 
 		assertSame(te, result);
 		assertNull(row.getNotes());
@@ -462,11 +464,7 @@ class TrainingExecutionServiceTest {
 
 	@Test
 	void shouldThrowExceptionWhenUpsertExerciseNotPartOfExecution() {
-		mockAuthUser("alice");
-
 		User current = mock(User.class);
-		when(current.getId()).thenReturn(10L);
-		when(userRepo.findByUsername("alice")).thenReturn(Optional.of(current));
 
 		TrainingExecution te = new TrainingExecution();
 		te.setUser(current);
@@ -479,109 +477,410 @@ class TrainingExecutionServiceTest {
 		row.setExercise(different);
 		te.getExecutedExercises().add(row);
 
-		when(repo.findWithExercisesById(1L)).thenReturn(Optional.of(te));
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.of(te));
 		when(exerciseRepo.findById(2L)).thenReturn(Optional.of(mock(Exercise.class)));
 
 		assertThrows(EntityNotFoundException.class,
-				() -> service.upsertExecutedExercise(1L, 2L, 0, 0, 0.0, false, null));
+				() -> service.upsertExecutedExercise(10L, 1L, 2L, 0, 0, 0.0, false, null, null));
+	}
+
+	// --- updateExecutedExercise() -------------------------------------------
+
+	@Test
+	void shouldUpdateSingleExecutedExerciseWithoutLoadingExecution() {
+		Exercise ex = new Exercise();
+		ex.setName("Squat");
+		ex.setCategory("Legs");
+
+		ExecutedExercise target = new ExecutedExercise();
+		target.setExercise(ex);
+
+		when(executedRepo.findEditable(1L, 2L, 10L, TrainingExecution.Status.IN_PROGRESS))
+				.thenReturn(Optional.of(target));
+
+		ExecutedExercise result = service.updateExecutedExercise(10L, 1L, 2L, 5, 12, 42.5, true, "  ok  ", null);
+
+		assertSame(target, result);
+		assertEquals(5, result.getActualSets());
+		assertEquals(12, result.getActualReps());
+		assertEquals(42.5, result.getActualWeightKg());
+		assertTrue(result.isDone());
+		assertEquals("ok", result.getNotes());
+		assertEquals("Squat", result.getExerciseNameSnapshot());
+		assertEquals("Legs", result.getExerciseCategorySnapshot());
+		verify(repo, never()).findWithExercisesByIdAndUserId(any(), any());
+		verify(exerciseRepo, never()).findById(any());
+	}
+
+	@Test
+	void shouldRejectInvalidValuesBeforeQueryingOnSingleUpdate() {
+		assertThrows(IllegalArgumentException.class,
+				() -> service.updateExecutedExercise(10L, 1L, 2L, -1, 0, 0.0, false, null, null));
+		verifyNoInteractions(executedRepo);
+	}
+
+	@Test
+	void shouldReportNotEditableWhenSingleUpdateTargetsCompletedTraining() {
+		TrainingExecution te = new TrainingExecution();
+		te.setStatus(TrainingExecution.Status.COMPLETED);
+
+		when(executedRepo.findEditable(1L, 2L, 10L, TrainingExecution.Status.IN_PROGRESS))
+				.thenReturn(Optional.empty());
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.of(te));
+
+		IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+				() -> service.updateExecutedExercise(10L, 1L, 2L, 1, 1, 1.0, false, null, null));
+		assertEquals("training is not editable", ex.getMessage());
+	}
+
+	@Test
+	void shouldReportNotFoundWhenSingleUpdateTargetsForeignExecution() {
+		when(executedRepo.findEditable(1L, 2L, 10L, TrainingExecution.Status.IN_PROGRESS))
+				.thenReturn(Optional.empty());
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.empty());
+
+		assertThrows(EntityNotFoundException.class,
+				() -> service.updateExecutedExercise(10L, 1L, 2L, 1, 1, 1.0, false, null, null));
+	}
+
+	@Test
+	void shouldReportNotFoundWhenExerciseIsNotPartOfExecution() {
+		TrainingExecution te = new TrainingExecution();
+		te.setStatus(TrainingExecution.Status.IN_PROGRESS);
+
+		when(executedRepo.findEditable(1L, 2L, 10L, TrainingExecution.Status.IN_PROGRESS))
+				.thenReturn(Optional.empty());
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.of(te));
+
+		assertThrows(EntityNotFoundException.class,
+				() -> service.updateExecutedExercise(10L, 1L, 2L, 1, 1, 1.0, false, null, null));
+	}
+
+	// --- logSet() -----------------------------------------------------------
+
+	@Test
+	void shouldAppendSetAndUpdateAggregates() {
+		ExecutedExercise target = new ExecutedExercise();
+		target.setSetLog(SetLog.append(null, 10, 60.0, null, Instant.now()));
+		when(executedRepo.findEditable(1L, 2L, 10L, TrainingExecution.Status.IN_PROGRESS))
+				.thenReturn(Optional.of(target));
+
+		ExecutedExercise result = service.logSet(10L, 1L, 2L, 8, 62.5, 9.0);
+
+		assertSame(target, result);
+		assertEquals(2, SetLog.count(result.getSetLog()));
+		assertEquals(8, SetLog.reps(result.getSetLog(), 1));
+		assertEquals(9.0, SetLog.rpe(result.getSetLog(), 1));
+		assertEquals(2, result.getActualSets());
+		assertEquals(8, result.getActualReps());
+		assertEquals(62.5, result.getActualWeightKg());
+	}
+
+	@Test
+	void shouldRejectSetWithoutReps() {
+		assertThrows(IllegalArgumentException.class, () -> service.logSet(10L, 1L, 2L, null, 60.0, null));
+		verifyNoInteractions(executedRepo);
+	}
+
+	@Test
+	void shouldRejectSetOnCompletedTraining() {
+		TrainingExecution te = new TrainingExecution();
+		te.setStatus(TrainingExecution.Status.COMPLETED);
+		when(executedRepo.findEditable(1L, 2L, 10L, TrainingExecution.Status.IN_PROGRESS))
+				.thenReturn(Optional.empty());
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.of(te));
+
+		assertThrows(IllegalArgumentException.class, () -> service.logSet(10L, 1L, 2L, 5, 60.0, null));
+	}
+
+	@Test
+	void shouldReadOwnedExecutedExercise() {
+		ExecutedExercise target = new ExecutedExercise();
+		when(executedRepo.findOwned(1L, 2L, 10L)).thenReturn(Optional.of(target));
+
+		assertSame(target, service.getExecutedExercise(10L, 1L, 2L));
+	}
+
+	@Test
+	void shouldThrowNotFoundWhenExecutedExerciseNotOwned() {
+		when(executedRepo.findOwned(1L, 2L, 10L)).thenReturn(Optional.empty());
+
+		assertThrows(EntityNotFoundException.class, () -> service.getExecutedExercise(10L, 1L, 2L));
+	}
+
+	// --- batchUpdateExecutedExercises() -------------------------------------
+
+	private static TrainingExecutionController.UpdateExecutedExerciseRequest update(Long exerciseId, int sets) {
+		return new TrainingExecutionController.UpdateExecutedExerciseRequest(exerciseId, sets, 10, 50.0, true, null);
+	}
+
+	private TrainingExecution executionWithExercises(TrainingExecution.Status status, Long... exerciseIds) {
+		TrainingExecution te = new TrainingExecution();
+		te.setStatus(status);
+		for (Long id : exerciseIds) {
+			Exercise ex = new Exercise();
+			ex.setId(id);
+			ex.setName("Ex" + id);
+			ExecutedExercise row = new ExecutedExercise();
+			row.setExercise(ex);
+			te.getExecutedExercises().add(row);
+		}
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.of(te));
+		return te;
+	}
+
+	@Test
+	void shouldApplyAllBatchUpdatesAndCompleteInSameCall() {
+		TrainingExecution te = executionWithExercises(TrainingExecution.Status.IN_PROGRESS, 2L, 3L);
+		when(streakRepo.findForUpdate(10L)).thenReturn(Optional.of(new TrainingStreak()));
+
+		TrainingExecution result = service.batchUpdateExecutedExercises(10L, 1L, List.of(update(2L, 4), update(3L, 5)),
+				true, null);
+
+		assertSame(te, result);
+		assertEquals(4, te.getExecutedExercises().get(0).getActualSets());
+		assertEquals(5, te.getExecutedExercises().get(1).getActualSets());
+		assertEquals("Ex3", te.getExecutedExercises().get(1).getExerciseNameSnapshot());
+		assertEquals(TrainingExecution.Status.COMPLETED, te.getStatus());
+		verify(activity).recordTrainingDay(10L, te.getCompletedAt().toLocalDate());
+		verify(exerciseRepo, never()).findById(any());
+	}
+
+	@Test
+	void shouldKeepExecutionInProgressWhenBatchDoesNotComplete() {
+		TrainingExecution te = executionWithExercises(TrainingExecution.Status.IN_PROGRESS, 2L);
+
+		service.batchUpdateExecutedExercises(10L, 1L, List.of(update(2L, 4)), false, null);
+
+		assertEquals(TrainingExecution.Status.IN_PROGRESS, te.getStatus());
+		verifyNoInteractions(streakRepo, activity);
+	}
+
+	@Test
+	void shouldRejectWholeBatchWhenOneUpdateIsInvalid() {
+		var invalid = new TrainingExecutionController.UpdateExecutedExerciseRequest(3L, 1, -1, 0.0, false, null);
+
+		assertThrows(IllegalArgumentException.class,
+				() -> service.batchUpdateExecutedExercises(10L, 1L, List.of(update(2L, 4), invalid), false, null));
+		verifyNoInteractions(repo);
+	}
+
+	@Test
+	void shouldRejectDuplicateExerciseIdsInBatch() {
+		assertThrows(IllegalArgumentException.class,
+				() -> service.batchUpdateExecutedExercises(10L, 1L, List.of(update(2L, 4), update(2L, 5)), false,
+						null));
+	}
+
+	@Test
+	void shouldRejectBatchWithExerciseNotPartOfExecution() {
+		TrainingExecution te = executionWithExercises(TrainingExecution.Status.IN_PROGRESS, 2L);
+
+		assertThrows(EntityNotFoundException.class,
+				() -> service.batchUpdateExecutedExercises(10L, 1L, List.of(update(2L, 4), update(9L, 1)), false,
+						null));
+		assertNull(te.getExecutedExercises().get(0).getActualSets());
+	}
+
+	@Test
+	void shouldRejectBatchOnCompletedExecution() {
+		executionWithExercises(TrainingExecution.Status.COMPLETED, 2L);
+
+		assertThrows(IllegalArgumentException.class,
+				() -> service.batchUpdateExecutedExercises(10L, 1L, List.of(update(2L, 4)), true, null));
 	}
 
 	// --- list ----------------------------------------------------------------
 
+	private static TrainingExecutionSummary summary(long id, LocalDateTime startedAt) {
+		return new TrainingExecutionSummary(id, 1L, "S", "P", TrainingExecution.Status.COMPLETED, startedAt, null, 4,
+				3);
+	}
+
 	@Test
-	void shouldListBySessionUsesRepositoryQueryWithUser() {
-		mockAuthUser("alice");
+	void shouldReturnFirstSummaryPageWithCursorWhenMoreRowsExist() {
+		LocalDateTime t = LocalDateTime.of(2026, 3, 1, 10, 0);
+		when(repo.findSummariesByUser(10L, Limit.of(3)))
+				.thenReturn(List.of(summary(9, t), summary(8, t.minusDays(1)), summary(7, t.minusDays(2))));
 
-		User current = mock(User.class);
-		when(userRepo.findByUsername("alice")).thenReturn(Optional.of(current));
+		TrainingExecutionService.SummaryPage page = service.pageSummaries(10L, null, null, 2);
+
+		assertEquals(2, page.items().size());
+		assertEquals(new HistoryCursor(t.minusDays(1), 8L), HistoryCursor.decode(page.nextCursor()));
+		assertEquals(0.75, page.items().get(0).completionRatio());
+	}
+
+	@Test
+	void shouldContinueAfterCursorAndEndWithoutNextCursor() {
+		LocalDateTime t = LocalDateTime.of(2026, 3, 1, 10, 0);
+		String cursor = new HistoryCursor(t, 8L).encode();
+		when(repo.findSummariesBySessionAndUserAfter(1L, 10L, t, 8L, Limit.of(3)))
+				.thenReturn(List.of(summary(7, t.minusDays(1))));
+
+		TrainingExecutionService.SummaryPage page = service.pageSummaries(10L, 1L, cursor, 2);
 
+		assertEquals(1, page.items().size());
+		assertNull(page.nextCursor());
+	}
+
+	@Test
+	void shouldRejectInvalidCursorAndLimit() {
+		assertThrows(IllegalArgumentException.class, () -> service.pageSummaries(10L, null, "%%%", 10));
+		assertThrows(IllegalArgumentException.class, () -> service.pageSummaries(10L, null, null, 0));
+		assertThrows(IllegalArgumentException.class, () -> service.pageSummaries(10L, null, null, 101));
+		verifyNoInteractions(repo);
+	}
+
+	@Test
+	void shouldListBySessionUsesRepositoryQueryWithUser() {
 		List<TrainingExecution> list = List.of(new TrainingExecution());
-		when(repo.findWithExercisesBySessionOrSnapshotAndUser(1L, current)).thenReturn(list);
+		when(repo.findWithExercisesByEffectiveSessionAndUser(1L, 10L)).thenReturn(list);
 
-		List<TrainingExecution> result = service.listBySession(1L);
+		List<TrainingExecution> result = service.listBySession(10L, 1L);
 
 		assertSame(list, result);
-		verify(repo).findWithExercisesBySessionOrSnapshotAndUser(1L, current);
+		verify(repo).findWithExercisesByEffectiveSessionAndUser(1L, 10L);
 	}
 
 	@Test
 	void shouldListAllUsesRepositoryQueryWithUser() {
-		mockAuthUser("alice");
-
-		User current = mock(User.class);
-		when(userRepo.findByUsername("alice")).thenReturn(Optional.of(current));
-
 		List<TrainingExecution> list = List.of(new TrainingExecution());
-		when(repo.findAllWithExercisesByUser(current)).thenReturn(list);
+		when(repo.findAllWithExercisesByUser(10L)).thenReturn(list);
 
-		List<TrainingExecution> result = service.listAll();
+		List<TrainingExecution> result = service.listAll(10L);
 
 		assertSame(list, result);
-		verify(repo).findAllWithExercisesByUser(current);
+		verify(repo).findAllWithExercisesByUser(10L);
 	}
 
 	// --- streak --------------------------------------------------------------
 
-	@Test
-	void shouldCalculateCompletedStreakDaysReturnsZeroWhenNoCompleted() {
-		mockAuthUser("alice");
+	private static TrainingStreak streak(int current, int longest, LocalDate lastDay) {
+		TrainingStreak s = new TrainingStreak();
+		s.setUserId(10L);
+		s.setCurrentStreak(current);
+		s.setLongestStreak(longest);
+		s.setLastTrainingDay(lastDay);
+		return s;
+	}
 
-		User current = mock(User.class);
-		when(userRepo.findByUsername("alice")).thenReturn(Optional.of(current));
+	private TrainingExecution inProgressExecution() {
+		TrainingExecution te = new TrainingExecution();
+		te.setStatus(TrainingExecution.Status.IN_PROGRESS);
+		te.setStartedAt(LocalDateTime.now());
+		when(repo.findWithExercisesByIdAndUserId(1L, 10L)).thenReturn(Optional.of(te));
+		return te;
+	}
 
-		when(repo.findByUserAndStatusAndCompletedAtIsNotNullOrderByCompletedAtDesc(current,
-				TrainingExecution.Status.COMPLETED)).thenReturn(List.of());
+	@Test
+	void shouldReturnEmptyStreakWhenNothingCompleted() {
+		when(streakRepo.findById(10L)).thenReturn(Optional.empty());
+
+		TrainingStreak result = service.getStreak(10L);
 
-		assertEquals(0, service.calculateCompletedStreakDays());
+		assertEquals(0, result.getCurrentStreak());
+		assertEquals(0, result.getLongestStreak());
+		assertNull(result.getLastTrainingDay());
 	}
 
 	@Test
-	void shouldCalculateCompletedStreakDaysCountsConsecutiveUniqueDays() {
-		mockAuthUser("alice");
+	void shouldReturnStoredStreakWhenLastTrainingWasYesterday() {
+		LocalDate yesterday = LocalDate.now().minusDays(1);
+		when(streakRepo.findById(10L)).thenReturn(Optional.of(streak(3, 5, yesterday)));
 
-		User current = mock(User.class);
-		when(userRepo.findByUsername("alice")).thenReturn(Optional.of(current));
+		TrainingStreak result = service.getStreak(10L);
 
-		LocalDateTime now = LocalDateTime.now().withHour(12).withMinute(0).withSecond(0).withNano(0);
+		assertEquals(3, result.getCurrentStreak());
+		assertEquals(5, result.getLongestStreak());
+		assertEquals(yesterday, result.getLastTrainingDay());
+		verify(repo, never()).findCompletedDays(any(), any());
+	}
 
-		TrainingExecution te1 = new TrainingExecution();
-		te1.setStatus(TrainingExecution.Status.COMPLETED);
-		te1.setCompletedAt(now.minusHours(1)); // today
+	@Test
+	void shouldReportZeroStreakWhenLastTrainingOlderThanYesterday() {
+		LocalDate old = LocalDate.now().minusDays(2);
+		TrainingStreak stored = streak(4, 4, old);
+		when(streakRepo.findById(10L)).thenReturn(Optional.of(stored));
 
-		TrainingExecution te2 = new TrainingExecution();
-		te2.setStatus(TrainingExecution.Status.COMPLETED);
-		te2.setCompletedAt(now.minusDays(1).withHour(9)); // yesterday
+		TrainingStreak result = service.getStreak(10L);
 
-		TrainingExecution te3 = new TrainingExecution();
-		te3.setStatus(TrainingExecution.Status.COMPLETED);
-		te3.setCompletedAt(now.minusDays(1).withHour(20)); // yesterday (duplicate day)
+		assertEquals(0, result.getCurrentStreak());
+		assertEquals(4, result.getLongestStreak());
+		assertEquals(old, result.getLastTrainingDay());
+		assertEquals(4, stored.getCurrentStreak());
+	}
 
-		TrainingExecution te4 = new TrainingExecution();
-		te4.setStatus(TrainingExecution.Status.COMPLETED);
-		te4.setCompletedAt(now.minusDays(3).withHour(8)); // gap
+	@Test
+	void shouldExtendStreakWhenCompletingDayAfterLastTraining() {
+		inProgressExecution();
+		TrainingStreak stored = streak(2, 2, LocalDate.now().minusDays(1));
+		when(streakRepo.findForUpdate(10L)).thenReturn(Optional.of(stored));
 
-		when(repo.findByUserAndStatusAndCompletedAtIsNotNullOrderByCompletedAtDesc(current,
-				TrainingExecution.Status.COMPLETED)).thenReturn(List.of(te1, te2, te3, te4));
+		service.complete(10L, 1L, null);
 
-		assertEquals(2, service.calculateCompletedStreakDays());
+		assertEquals(3, stored.getCurrentStreak());
+		assertEquals(3, stored.getLongestStreak());
+		assertEquals(LocalDate.now(), stored.getLastTrainingDay());
 	}
 
 	@Test
-	void shouldCalculateCompletedStreakDaysReturnsZeroWhenLastTrainingOlderThanYesterday() {
-		mockAuthUser("alice");
+	void shouldKeepStreakWhenCompletingTwiceOnSameDay() {
+		inProgressExecution();
+		TrainingStreak stored = streak(2, 6, LocalDate.now());
+		when(streakRepo.findForUpdate(10L)).thenReturn(Optional.of(stored));
 
-		User current = mock(User.class);
-		when(userRepo.findByUsername("alice")).thenReturn(Optional.of(current));
+		service.complete(10L, 1L, null);
 
-		LocalDateTime now = LocalDateTime.now();
+		assertEquals(2, stored.getCurrentStreak());
+		assertEquals(6, stored.getLongestStreak());
+	}
 
-		TrainingExecution teOld = new TrainingExecution();
-		teOld.setStatus(TrainingExecution.Status.COMPLETED);
-		teOld.setCompletedAt(now.minusDays(2).withHour(10)); // older than yesterday
+	@Test
+	void shouldRestartStreakAfterGap() {
+		inProgressExecution();
+		TrainingStreak stored = streak(4, 4, LocalDate.now().minusDays(3));
+		when(streakRepo.findForUpdate(10L)).thenReturn(Optional.of(stored));
 
-		when(repo.findByUserAndStatusAndCompletedAtIsNotNullOrderByCompletedAtDesc(current,
-				TrainingExecution.Status.COMPLETED)).thenReturn(List.of(teOld));
+		service.complete(10L, 1L, null);
 
-		assertEquals(0, service.calculateCompletedStreakDays());
+		assertEquals(1, stored.getCurrentStreak());
+		assertEquals(4, stored.getLongestStreak());
+		assertEquals(LocalDate.now(), stored.getLastTrainingDay());
+	}
+
+	@Test
+	void shouldRebuildStreakFromHistoryOnFirstCompletion() {
+		TrainingExecution te = inProgressExecution();
+		LocalDate yesterday = LocalDate.now().minusDays(1);
+		LocalDate gap = LocalDate.now().minusDays(3);
+
+		when(streakRepo.findForUpdate(10L)).thenReturn(Optional.empty());
+		when(repo.findCompletedDays(10L, TrainingExecution.Status.COMPLETED)).thenReturn(List.of(gap, yesterday));
+		when(streakRepo.save(any(TrainingStreak.class))).thenAnswer(inv -> inv.getArgument(0));
+
+		service.complete(10L, 1L, null);
+
+		ArgumentCaptor<TrainingStreak> saved = ArgumentCaptor.forClass(TrainingStreak.class);
+		verify(streakRepo).save(saved.capture());
+		assertEquals(10L, saved.getValue().getUserId());
+		assertEquals(2, saved.getValue().getCurrentStreak());
+		assertEquals(2, saved.getValue().getLongestStreak());
+		assertEquals(te.getCompletedAt().toLocalDate(), saved.getValue().getLastTrainingDay());
+	}
+
+	@Test
+	void shouldRecomputeStoredStreakOnRefresh() {
+		LocalDate today = LocalDate.now();
+		TrainingStreak stored = streak(1, 1, today);
+		when(streakRepo.findForUpdate(10L)).thenReturn(Optional.of(stored));
+		when(repo.findCompletedDays(10L, TrainingExecution.Status.COMPLETED))
+				.thenReturn(List.of(today.minusDays(9), today.minusDays(8), today.minusDays(7), today));
+
+		service.refreshStreak(10L);
+
+		verify(streakRepo).save(stored);
+		assertEquals(1, stored.getCurrentStreak());
+		assertEquals(3, stored.getLongestStreak());
+		assertEquals(today, stored.getLastTrainingDay());
 	}
 }
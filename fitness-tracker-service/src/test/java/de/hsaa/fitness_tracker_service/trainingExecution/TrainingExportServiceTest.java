@@ -0,0 +1,94 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+@ExtendWith(MockitoExtension.class)
+class TrainingExportServiceTest {
+
+	static final LocalDateTime T = LocalDateTime.of(2026, 3, 1, 10, 0);
+
+	@Mock
+	TrainingExecutionRepository repo;
+
+	ObjectMapper mapper;
+	TrainingExportService service;
+
+	@BeforeEach
+	void setUp() {
+		mapper = new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+		service = new TrainingExportService(repo, mapper);
+	}
+
+	private static TrainingExportRow row(long executionId, Long executedId, String notes) {
+		return new TrainingExportRow(executionId, 5L, "Push", "Plan A", TrainingExecution.Status.COMPLETED, T,
+				T.plusHours(1), executedId, executedId == null ? null : 7L, "Bench", "Free", 3, 10, 50.0, 3, 10,
+				55.0, true, notes);
+	}
+
+	private String export(TrainingExportService.Format format) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		service.export(10L, format, out);
+		return out.toString(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void shouldWriteOneNdjsonLinePerExecutionWithItsExercises() throws Exception {
+		when(repo.streamExportRows(10L))
+				.thenReturn(Stream.of(row(1, 11L, null), row(1, 12L, null), row(2, null, null)));
+
+		String[] lines = export(TrainingExportService.Format.NDJSON).split("\n");
+
+		assertEquals(2, lines.length);
+		JsonNode first = mapper.readTree(lines[0]);
+		assertEquals(1, first.get("id").asLong());
+		assertEquals(2, first.get("executedExercises").size());
+		assertEquals("2026-03-01T10:00:00", first.get("startedAt").asText());
+		assertEquals(0, mapper.readTree(lines[1]).get("executedExercises").size());
+	}
+
+	@Test
+	void shouldWriteCsvWithHeaderAndEscapedValues() {
+		when(repo.streamExportRows(10L)).thenReturn(Stream.of(row(1, 11L, "heavy, \"good\"")));
+
+		String[] lines = export(TrainingExportService.Format.CSV).split("\n");
+
+		assertEquals(TrainingExportService.CSV_HEADER, lines[0]);
+		assertTrue(lines[1].startsWith("1,5,Push,Plan A,COMPLETED,2026-03-01T10:00,2026-03-01T11:00,11,7,Bench"));
+		assertTrue(lines[1].endsWith(",true,\"heavy, \"\"good\"\"\""));
+	}
+
+	@Test
+	void shouldWriteEmptyExportAndCloseStream() {
+		AtomicBoolean closed = new AtomicBoolean();
+		when(repo.streamExportRows(10L)).thenReturn(Stream.<TrainingExportRow>empty().onClose(() -> closed.set(true)));
+
+		assertEquals("", export(TrainingExportService.Format.NDJSON));
+		assertTrue(closed.get());
+	}
+
+	@Test
+	void shouldParseFormatCaseInsensitively() {
+		assertEquals(TrainingExportService.Format.CSV, TrainingExportService.Format.parse("CsV"));
+		assertThrows(IllegalArgumentException.class, () -> TrainingExportService.Format.parse("xml"));
+		assertThrows(IllegalArgumentException.class, () -> TrainingExportService.Format.parse(null));
+	}
+}
@@ -0,0 +1,236 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.hsaa.fitness_tracker_service.exercise.Exercise;
+import de.hsaa.fitness_tracker_service.exercise.ExerciseRepository;
+import de.hsaa.fitness_tracker_service.trainingExecution.TrainingExportService.Format;
+import de.hsaa.fitness_tracker_service.trainingExecution.TrainingImportService.ImportReport;
+import de.hsaa.fitness_tracker_service.user.User;
+import de.hsaa.fitness_tracker_service.user.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+
+@ExtendWith(MockitoExtension.class)
+class TrainingImportServiceTest {
+
+	@Mock
+	TrainingExecutionRepository repo;
+	@Mock
+	ExerciseRepository exerciseRepo;
+	@Mock
+	UserRepository userRepo;
+	@Mock
+	TrainingExecutionService executions;
+	@Mock
+	TrainingActivityService activity;
+	@Mock
+	PersonalRecordService records;
+	@Mock
+	VolumeRollupService rollups;
+	@Mock
+	EntityManager em;
+	@Mock
+	PlatformTransactionManager transactionManager;
+
+	List<List<TrainingExecution>> saved;
+
+	@BeforeEach
+	void setUp() {
+		Exercise bench = new Exercise();
+		bench.setId(1L);
+		bench.setName("Bankdrücken");
+		bench.setCategory("Freihantel");
+		Exercise squat = new Exercise();
+		squat.setId(2L);
+		squat.setName("Kniebeugen");
+		squat.setCategory("Freihantel");
+		lenient().when(exerciseRepo.findAll()).thenReturn(List.of(bench, squat));
+		lenient().when(exerciseRepo.getReferenceById(any())).thenAnswer(inv -> {
+			Exercise ref = new Exercise();
+			ref.setId(inv.getArgument(0));
+			return ref;
+		});
+		lenient().when(userRepo.getReferenceById(10L)).thenReturn(new User());
+
+		saved = new ArrayList<>();
+		lenient().when(repo.saveAll(anyList())).thenAnswer(inv -> {
+			saved.add(new ArrayList<>(inv.getArgument(0)));
+			return inv.getArgument(0);
+		});
+	}
+
+	private ImportReport importAs(Format format, int chunkSize, String body) {
+		TrainingImportService service = new TrainingImportService(repo, exerciseRepo, userRepo, executions, activity,
+				records, rollups, new ObjectMapper().findAndRegisterModules(), em, transactionManager, chunkSize,
+				new SimpleMeterRegistry());
+		return service.importHistory(10L, format, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static String line(String startedAt, String exercises) {
+		return "{\"sessionName\":\"Alt\",\"startedAt\":\"" + startedAt + "\",\"executedExercises\":[" + exercises
+				+ "]}\n";
+	}
+
+	@Test
+	void shouldImportValidLinesAndReportInvalidOnes() {
+		String body = line("2024-01-01T10:00:00",
+				"{\"exerciseName\":\"bankdrücken\",\"actualSets\":3,\"actualReps\":8,\"actualWeightKg\":70}")
+				+ "\n"
+				+ line("2024-01-02T10:00:00", "{\"exerciseName\":\"Rudern\"}")
+				+ "{broken\n"
+				+ "{\"startedAt\":\"2024-01-03T10:00:00\",\"status\":\"IN_PROGRESS\"}\n";
+
+		ImportReport report = importAs(Format.NDJSON, 1000, body);
+
+		assertEquals(4, report.recordsRead());
+		assertEquals(1, report.executionsImported());
+		assertEquals(1, report.exercisesImported());
+		assertEquals(3, report.executionsRejected());
+		assertEquals(3, report.errors().get(0).line());
+		assertEquals("unknown exercise 'Rudern'", report.errors().get(0).message());
+		assertEquals(4, report.errors().get(1).line());
+		assertEquals("only completed trainings can be imported", report.errors().get(2).message());
+
+		TrainingExecution te = saved.get(0).get(0);
+		assertEquals(TrainingExecution.Status.COMPLETED, te.getStatus());
+		assertEquals(te.getStartedAt(), te.getCompletedAt());
+		assertEquals("Alt", te.getSessionNameSnapshot());
+		ExecutedExercise ee = te.getExecutedExercises().get(0);
+		assertEquals(1L, ee.getExercise().getId());
+		assertEquals("Bankdrücken", ee.getExerciseNameSnapshot());
+		assertEquals(3, ee.getPlannedSets());
+		assertEquals(70.0, ee.getPlannedWeightKg());
+		assertTrue(ee.isDone());
+
+		verify(executions).refreshStreak(10L);
+		verify(activity).refresh(10L);
+		verify(records).refresh(10L);
+		verify(rollups).refresh(10L);
+	}
+
+	@Test
+	void shouldCommitInChunksAndClearPersistenceContext() {
+		String exercise = "{\"exerciseName\":\"Kniebeugen\",\"actualSets\":1}";
+		String body = line("2024-01-01T10:00:00", exercise) + line("2024-01-02T10:00:00", exercise)
+				+ line("2024-01-03T10:00:00", exercise);
+
+		ImportReport report = importAs(Format.NDJSON, 4, body);
+
+		assertEquals(2, report.chunksCommitted());
+		assertEquals(List.of(2, 1), saved.stream().map(List::size).toList());
+		verify(em, times(2)).clear();
+	}
+
+	@Test
+	void shouldRejectChunkThatCannotBeStoredAndKeepGoing() {
+		when(repo.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("duplicate"))
+				.thenAnswer(inv -> inv.getArgument(0));
+		String body = line("2024-01-01T10:00:00", "") + line("2024-01-02T10:00:00", "");
+
+		ImportReport report = importAs(Format.NDJSON, 1, body);
+
+		assertEquals(1, report.executionsImported());
+		assertEquals(1, report.executionsRejected());
+		assertEquals(1, report.errors().get(0).line());
+		assertTrue(report.errors().get(0).message().startsWith("not stored"));
+	}
+
+	@Test
+	void shouldGroupCsvRowsByExecutionAndReportOffendingRow() {
+		String csv = "executionId,startedAt,exerciseName,actualSets,actualReps,actualWeightKg,notes\n"
+				+ "a,2024-01-01T10:00,Bankdrücken,3,8,70,\"schwer, \"\"gut\"\"\nzweite Zeile\"\n"
+				+ "a,2024-01-01T10:00,Kniebeugen,3,8,90,\n"
+				+ "b,2024-01-02T10:00,Kniebeugen,x,8,90,\n"
+				+ "c,2024-01-03T10:00,,,,,\n";
+
+		ImportReport report = importAs(Format.CSV, 1000, csv);
+
+		assertEquals(4, report.recordsRead());
+		assertEquals(2, report.executionsImported());
+		assertEquals(2, report.exercisesImported());
+		assertEquals(5, report.errors().get(0).line());
+		assertEquals("actualSets must be a whole number", report.errors().get(0).message());
+
+		List<ExecutedExercise> first = saved.get(0).get(0).getExecutedExercises();
+		assertEquals(2, first.size());
+		assertEquals("schwer, \"gut\"\nzweite Zeile", first.get(0).getNotes());
+		assertTrue(saved.get(0).get(1).getExecutedExercises().isEmpty());
+	}
+
+	@Test
+	void shouldRejectDuplicateExerciseAndNegativeValues() {
+		String body = line("2024-01-01T10:00:00", "{\"exerciseName\":\"Kniebeugen\"},{\"exerciseName\":\"KNIEBEUGEN\"}")
+				+ line("2024-01-02T10:00:00", "{\"exerciseName\":\"Kniebeugen\",\"actualWeightKg\":-5}");
+
+		ImportReport report = importAs(Format.NDJSON, 1000, body);
+
+		assertEquals(0, report.executionsImported());
+		assertEquals("exercise 'Kniebeugen' appears more than once", report.errors().get(0).message());
+		assertEquals("actualWeightKg must be >= 0", report.errors().get(1).message());
+		verify(repo, never()).saveAll(anyList());
+		verify(executions, never()).refreshStreak(any());
+		verify(activity, never()).refresh(any());
+		verify(records, never()).refresh(any());
+		verify(rollups, never()).refresh(any());
+	}
+
+	@Test
+	void shouldRejectTrainingsStartedBefore1970() {
+		String exercise = "{\"exerciseName\":\"Kniebeugen\",\"actualSets\":1}";
+		String body = line("1800-01-01T10:00:00", exercise) + line("2024-01-01T10:00:00", exercise);
+
+		ImportReport report = importAs(Format.NDJSON, 1000, body);
+
+		assertEquals(1, report.executionsImported());
+		assertEquals(1, report.errors().get(0).line());
+		assertEquals("startedAt must not be before 1970-01-01", report.errors().get(0).message());
+	}
+
+	@Test
+	void shouldRejectTrainingsCompletedInTheFuture() {
+		String body = "{\"startedAt\":\"2024-01-01T10:00:00\",\"completedAt\":\"2300-01-01T10:00:00\"}\n"
+				+ line("2024-01-01T10:00:00", "{\"exerciseName\":\"Kniebeugen\",\"actualSets\":1}");
+
+		ImportReport report = importAs(Format.NDJSON, 1000, body);
+
+		assertEquals(1, report.executionsImported());
+		assertEquals(1, report.errors().get(0).line());
+		assertEquals("completedAt must not be in the future", report.errors().get(0).message());
+	}
+
+	@Test
+	void shouldRequireStartedAtColumnAndAuthentication() {
+		assertThrows(IllegalArgumentException.class, () -> importAs(Format.CSV, 1000, "exerciseName\nBankdrücken\n"));
+
+		TrainingImportService service = new TrainingImportService(repo, exerciseRepo, userRepo, executions, activity,
+				records, rollups, new ObjectMapper(), em, transactionManager, 1000, new SimpleMeterRegistry());
+		assertThrows(AccessDeniedException.class,
+				() -> service.importHistory(null, Format.NDJSON, new ByteArrayInputStream(new byte[0])));
+	}
+}
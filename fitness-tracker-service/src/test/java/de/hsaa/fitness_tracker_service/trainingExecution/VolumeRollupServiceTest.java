@@ -0,0 +1,220 @@
+package de.hsaa.fitness_tracker_service.trainingExecution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import de.hsaa.fitness_tracker_service.exercise.Exercise;
+import de.hsaa.fitness_tracker_service.trainingExecution.VolumeRollup.Dimension;
+import de.hsaa.fitness_tracker_service.trainingExecution.VolumeRollup.Period;
+import de.hsaa.fitness_tracker_service.user.User;
+
+@ExtendWith(MockitoExtension.class)
+class VolumeRollupServiceTest {
+
+	// a Wednesday
+	static final LocalDateTime T = LocalDateTime.of(2025, 3, 12, 18, 0);
+	static final LocalDate WEEK = LocalDate.of(2025, 3, 10);
+	static final LocalDate MONTH = LocalDate.of(2025, 3, 1);
+
+	@Mock
+	VolumeRollupRepository repo;
+	@Mock
+	TrainingExecutionRepository executionRepo;
+	@Mock
+	PlatformTransactionManager transactionManager;
+
+	VolumeRollupService service;
+
+	@BeforeEach
+	void setUp() {
+		service = new VolumeRollupService(repo, executionRepo, transactionManager, 2, 2);
+	}
+
+	private static ExecutedExercise executed(TrainingExecution te, Long exerciseId, String category, int sets,
+			int reps, double weight) {
+		Exercise ex = new Exercise();
+		ex.setId(exerciseId);
+		ex.setCategory(category);
+
+		ExecutedExercise ee = new ExecutedExercise();
+		ee.setTrainingExecution(te);
+		ee.setExercise(ex);
+		ee.setExerciseCategorySnapshot(category);
+		ee.setActualSets(sets);
+		ee.setActualReps(reps);
+		ee.setActualWeightKg(weight);
+		te.getExecutedExercises().add(ee);
+		return ee;
+	}
+
+	private static TrainingExecution completed(Long id, Long userId, LocalDateTime completedAt) {
+		User user = mock(User.class);
+		when(user.getId()).thenReturn(userId);
+
+		TrainingExecution te = new TrainingExecution();
+		te.setId(id);
+		te.setUser(user);
+		te.setStatus(TrainingExecution.Status.COMPLETED);
+		te.setStartedAt(completedAt.minusHours(1));
+		te.setCompletedAt(completedAt);
+		return te;
+	}
+
+	private static VolumeRollup row(Period period, LocalDate start, Dimension dimension, String key) {
+		VolumeRollup r = new VolumeRollup();
+		r.setId(99L);
+		r.setUserId(10L);
+		r.setPeriod(period);
+		r.setPeriodStart(start);
+		r.setDimension(dimension);
+		r.setDimensionKey(key);
+		return r;
+	}
+
+	private List<VolumeRollup> savedRows() {
+		ArgumentCaptor<VolumeRollup> saved = ArgumentCaptor.forClass(VolumeRollup.class);
+		verify(repo, atLeastOnce()).save(saved.capture());
+		return saved.getAllValues();
+	}
+
+	private static Map<String, VolumeRollup> byKey(Collection<VolumeRollup> rows) {
+		return rows.stream().collect(Collectors.toMap(
+				r -> r.getPeriod() + "/" + r.getPeriodStart() + "/" + r.getDimension() + "/" + r.getDimensionKey(),
+				Function.identity()));
+	}
+
+	@Test
+	void shouldAddCompletedTrainingToItsWeekAndMonth() {
+		TrainingExecution te = new TrainingExecution();
+		te.setId(5L);
+		te.setCompletedAt(T);
+		executed(te, 1L, "Freihantel", 3, 10, 60.0);
+		executed(te, 2L, "Freihantel", 4, 8, 100.0);
+		executed(te, 3L, "Maschine", 0, 0, 0.0);
+
+		VolumeRollup week = row(Period.WEEK, WEEK, Dimension.TOTAL, "");
+		week.setTonnageKg(1000.0);
+		week.setSets(5);
+		week.setReps(50);
+		week.setSessions(1);
+		when(executionRepo.markRolledUp(5L)).thenReturn(1);
+		when(repo.findForUpdate(10L, Period.WEEK, WEEK, Period.MONTH, MONTH)).thenReturn(List.of(week));
+
+		service.record(10L, te);
+
+		assertEquals(1000.0 + 1800.0 + 3200.0, week.getTonnageKg());
+		assertEquals(5 + 7, week.getSets());
+		assertEquals(50 + 30 + 32, week.getReps());
+		assertEquals(2, week.getSessions());
+
+		Map<String, VolumeRollup> created = byKey(savedRows());
+		// month total, two exercises and one category for each period
+		assertEquals(1 + 2 * 3, created.size());
+		VolumeRollup category = created.get("MONTH/" + MONTH + "/CATEGORY/Freihantel");
+		assertEquals(5000.0, category.getTonnageKg());
+		assertEquals(1, category.getSessions());
+		VolumeRollup bench = created.get("WEEK/" + WEEK + "/EXERCISE/1");
+		assertEquals(3, bench.getSets());
+		assertEquals(1800.0, bench.getTonnageKg());
+	}
+
+	@Test
+	void shouldSkipTrainingAlreadyCountedByRebuild() {
+		TrainingExecution te = new TrainingExecution();
+		te.setId(5L);
+		te.setCompletedAt(T);
+		executed(te, 1L, "Freihantel", 3, 10, 60.0);
+		when(executionRepo.markRolledUp(5L)).thenReturn(0);
+
+		service.record(10L, te);
+
+		verify(repo, never()).findForUpdate(any(), any(), any(), any(), any());
+		verify(repo, never()).save(any());
+	}
+
+	@Test
+	void shouldRebuildAllUsersInChunks() {
+		when(executionRepo.findUserIdsWithStatus(TrainingExecution.Status.COMPLETED))
+				.thenReturn(List.of(10L, 11L, 12L));
+
+		TrainingExecution te = new TrainingExecution();
+		List<VolumeRollupRow> first = List.of(
+				new VolumeRollupRow(1L, 10L, T, executed(te, 1L, "Freihantel", 3, 10, 60.0)),
+				new VolumeRollupRow(2L, 10L, T.plusDays(1), executed(te, 1L, "Freihantel", 3, 10, 70.0)),
+				new VolumeRollupRow(4L, 10L, T.plusDays(2), null));
+		List<VolumeRollupRow> second = List.of(
+				new VolumeRollupRow(3L, 12L, T, executed(te, 1L, "Freihantel", 1, 1, 100.0)));
+
+		when(executionRepo.streamRollupRows(any(), any())).thenAnswer(inv -> {
+			Collection<Long> users = inv.getArgument(0);
+			return users.contains(10L) ? first.stream() : second.stream();
+		});
+		List<VolumeRollup> saved = new ArrayList<>();
+		when(repo.saveAll(any())).thenAnswer(inv -> {
+			synchronized (saved) {
+				((Iterable<VolumeRollup>) inv.getArgument(0)).forEach(saved::add);
+			}
+			return List.of();
+		});
+
+		VolumeRollupService.RebuildReport report = service.rebuildAll();
+
+		assertEquals(3, report.users());
+		assertEquals(2, report.chunks());
+		verify(executionRepo).markRolledUpByUsers(List.of(10L, 11L), TrainingExecution.Status.COMPLETED);
+		verify(repo).deleteByUsers(List.of(10L, 11L));
+		verify(repo).deleteByUsers(List.of(12L));
+		verify(repo, times(2)).saveAll(any());
+
+		Map<String, VolumeRollup> rows = byKey(saved.stream().filter(r -> r.getUserId().equals(10L)).toList());
+		VolumeRollup week = rows.get("WEEK/" + WEEK + "/TOTAL/");
+		assertEquals(3, week.getSessions());
+		assertEquals(3900.0, week.getTonnageKg());
+		assertEquals(60, week.getReps());
+	}
+
+	@Test
+	void shouldRequireKeyForExerciseAndCategoryRanges() {
+		assertThrows(IllegalArgumentException.class,
+				() -> service.range(10L, Period.WEEK, Dimension.EXERCISE, null, MONTH, WEEK));
+		assertThrows(IllegalArgumentException.class,
+				() -> service.range(10L, Period.WEEK, Dimension.TOTAL, null, WEEK, MONTH));
+		assertThrows(AccessDeniedException.class,
+				() -> service.range(null, Period.WEEK, Dimension.TOTAL, null, MONTH, WEEK));
+	}
+
+	@Test
+	void shouldQueryFromStartOfFirstPeriod() {
+		when(repo.findRange(10L, Period.MONTH, Dimension.CATEGORY, "Freihantel", MONTH, WEEK))
+				.thenReturn(List.of());
+
+		service.range(10L, Period.MONTH, Dimension.CATEGORY, "Freihantel", MONTH.plusDays(4), WEEK);
+
+		verify(repo).findRange(10L, Period.MONTH, Dimension.CATEGORY, "Freihantel", MONTH, WEEK);
+	}
+}
@@ -0,0 +1,156 @@
+package de.hsaa.fitness_tracker_service.trainingsPlan;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import de.hsaa.fitness_tracker_service.execution.ExerciseExecution;
+import de.hsaa.fitness_tracker_service.exercise.Exercise;
+import de.hsaa.fitness_tracker_service.trainingExecution.ExecutedExercise;
+import de.hsaa.fitness_tracker_service.trainingExecution.TrainingExecution;
+import de.hsaa.fitness_tracker_service.trainingsSession.TrainingSession;
+import de.hsaa.fitness_tracker_service.trainingsSession.TrainingSessionRepository;
+import de.hsaa.fitness_tracker_service.trainingsSessionDay.SessionDay;
+import de.hsaa.fitness_tracker_service.user.User;
+import jakarta.persistence.EntityManager;
+
+// Runs the bulk statements of a plan delete against H2, whose foreign keys fail any statement issued out of order.
+@DataJpaTest
+@Import(TrainingPlanService.class)
+class TrainingPlanDeleteTest {
+
+	static final LocalDateTime T = LocalDateTime.of(2025, 3, 10, 18, 0);
+
+	@Autowired
+	TrainingPlanService service;
+	@Autowired
+	TrainingSessionRepository sessionRepo;
+	@Autowired
+	EntityManager em;
+
+	private TrainingPlan plan(String name) {
+		TrainingPlan plan = new TrainingPlan();
+		plan.setName(name);
+		plan.setDescription("Beine");
+		em.persist(plan);
+		return plan;
+	}
+
+	private TrainingSession session(TrainingPlan plan, String name, Exercise exercise) {
+		TrainingSession session = new TrainingSession();
+		session.setPlan(plan);
+		session.setName(name);
+		em.persist(session);
+
+		SessionDay day = new SessionDay();
+		day.setSession(session);
+		day.setDay(1);
+		em.persist(day);
+
+		ExerciseExecution planned = new ExerciseExecution();
+		planned.setSession(session);
+		planned.setExercise(exercise);
+		planned.setOrderIndex(1);
+		planned.setPlannedSets(3);
+		planned.setPlannedReps(10);
+		planned.setPlannedWeightKg(60.0);
+		em.persist(planned);
+		return session;
+	}
+
+	private TrainingExecution execution(TrainingSession session, String sessionName, String planName,
+			Exercise exercise) {
+		TrainingExecution te = new TrainingExecution();
+		te.setUser(em.getReference(User.class, 1L));
+		te.setSession(session);
+		te.setSessionNameSnapshot(sessionName);
+		te.setPlanNameSnapshot(planName);
+		te.setStatus(TrainingExecution.Status.COMPLETED);
+		te.setStartedAt(T);
+		te.setCompletedAt(T.plusHours(1));
+		em.persist(te);
+
+		ExecutedExercise ee = new ExecutedExercise();
+		ee.setTrainingExecution(te);
+		ee.setExercise(exercise);
+		ee.setPlannedSets(3);
+		ee.setPlannedReps(10);
+		ee.setPlannedWeightKg(60.0);
+		ee.setActualSets(3);
+		ee.setActualReps(10);
+		ee.setActualWeightKg(60.0);
+		ee.setDone(true);
+		em.persist(ee);
+		return te;
+	}
+
+	private Exercise exercise() {
+		Exercise exercise = new Exercise();
+		exercise.setName("Kniebeuge");
+		exercise.setCategory("Freihantel");
+		exercise.setMuscleGroups("Beine");
+		em.persist(exercise);
+		return exercise;
+	}
+
+	private long count(String entity) {
+		return em.createQuery("select count(e) from " + entity + " e", Long.class).getSingleResult();
+	}
+
+	@Test
+	void shouldDeletePlanAndDetachItsTrainings() {
+		Exercise exercise = exercise();
+		TrainingPlan plan = plan("Leg Day");
+		TrainingSession first = session(plan, "Beine A", exercise);
+		TrainingSession second = session(plan, "Beine B", exercise);
+		TrainingExecution blank = execution(first, "", null, exercise);
+		TrainingExecution named = execution(second, "Beine alt", "Leg Day alt", exercise);
+		em.flush();
+		em.clear();
+		long sessions = count("TrainingSession");
+		long days = count("SessionDay");
+		long planned = count("ExerciseExecution");
+		long plans = count("TrainingPlan");
+
+		service.delete(plan.getId());
+		em.flush();
+		em.clear();
+
+		assertEquals(plans - 1, count("TrainingPlan"));
+		assertEquals(sessions - 2, count("TrainingSession"));
+		assertEquals(days - 2, count("SessionDay"));
+		assertEquals(planned - 2, count("ExerciseExecution"));
+
+		TrainingExecution detachedBlank = em.find(TrainingExecution.class, blank.getId());
+		assertNull(detachedBlank.getSession());
+		assertEquals(first.getId(), detachedBlank.getSessionIdSnapshot());
+		assertEquals(first.getId(), detachedBlank.getEffectiveSessionId());
+		assertEquals("Beine A", detachedBlank.getSessionNameSnapshot());
+		assertEquals("Leg Day", detachedBlank.getPlanNameSnapshot());
+		assertEquals(1, detachedBlank.getExecutedExercises().size());
+
+		TrainingExecution detachedNamed = em.find(TrainingExecution.class, named.getId());
+		assertNull(detachedNamed.getSession());
+		assertEquals(second.getId(), detachedNamed.getSessionIdSnapshot());
+		assertEquals("Beine alt", detachedNamed.getSessionNameSnapshot());
+		assertEquals("Leg Day alt", detachedNamed.getPlanNameSnapshot());
+	}
+
+	// the order above is not incidental: sessions cannot go while their days still point at them
+	@Test
+	void shouldRejectSessionsDeletedBeforeTheirDays() {
+		TrainingPlan plan = plan("Leg Day");
+		session(plan, "Beine A", exercise());
+		em.flush();
+
+		assertThrows(DataIntegrityViolationException.class, () -> sessionRepo.deleteByPlanId(plan.getId()));
+	}
+}
@@ -5,15 +5,18 @@ import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -21,6 +24,10 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import de.hsaa.fitness_tracker_service.execution.ExerciseExecutionRepository;
+import de.hsaa.fitness_tracker_service.trainingExecution.TrainingExecutionRepository;
+import de.hsaa.fitness_tracker_service.trainingsSession.TrainingSessionRepository;
+import de.hsaa.fitness_tracker_service.trainingsSessionDay.SessionDayRepository;
 import jakarta.persistence.EntityNotFoundException;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +35,14 @@ class TrainingPlanServiceTest {
 
 	@Mock
 	TrainingPlanRepository repo;
+	@Mock
+	TrainingSessionRepository sessionRepo;
+	@Mock
+	SessionDayRepository sessionDayRepo;
+	@Mock
+	ExerciseExecutionRepository exerciseExecutionRepo;
+	@Mock
+	TrainingExecutionRepository trainingExecutionRepo;
 
 	@InjectMocks
 	TrainingPlanService service;
@@ -168,21 +183,29 @@ class TrainingPlanServiceTest {
 	}
 
 	@Test
-	void shouldDeletePlanWhenExists() {
-		when(repo.existsById(1L)).thenReturn(true);
+	void shouldDetachExecutionsThenDeleteChildrenSessionsAndPlanInBulk() {
+		TrainingPlan plan = new TrainingPlan();
+		plan.setName("P");
+		when(repo.findById(1L)).thenReturn(Optional.of(plan));
 
 		service.delete(1L);
 
-		verify(repo).existsById(1L);
-		verify(repo).deleteById(1L);
+		InOrder order = inOrder(trainingExecutionRepo, sessionDayRepo, exerciseExecutionRepo, sessionRepo, repo);
+		order.verify(trainingExecutionRepo).detachFromPlan(1L, "P");
+		order.verify(sessionDayRepo).deleteByPlanId(1L);
+		order.verify(exerciseExecutionRepo).deleteByPlanId(1L);
+		order.verify(sessionRepo).deleteByPlanId(1L);
+		order.verify(repo).deleteAllByIdInBatch(List.of(1L));
+		verify(repo, never()).deleteById(anyLong());
 	}
 
 	@Test
 	void shouldThrowExceptionWhenDeleteNotFound() {
-		when(repo.existsById(1L)).thenReturn(false);
+		when(repo.findById(1L)).thenReturn(Optional.empty());
 
 		assertThrows(EntityNotFoundException.class, () -> service.delete(1L));
-		verify(repo).existsById(1L);
-		verify(repo, never()).deleteById(anyLong());
+		verify(trainingExecutionRepo, never()).detachFromPlan(anyLong(), any());
+		verify(sessionRepo, never()).deleteByPlanId(anyLong());
+		verify(repo, never()).deleteAllByIdInBatch(any());
 	}
 }
@@ -4,25 +4,28 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.List;
 import java.util.Optional;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
 
-import de.hsaa.fitness_tracker_service.trainingExecution.TrainingExecution;
 import de.hsaa.fitness_tracker_service.trainingExecution.TrainingExecutionRepository;
 import de.hsaa.fitness_tracker_service.trainingsPlan.TrainingPlan;
 import de.hsaa.fitness_tracker_service.trainingsPlan.TrainingPlanRepository;
@@ -41,10 +44,17 @@ class TrainingSessionServiceTest {
     TrainingExecutionRepository trainingExecutionRepo;
     @Mock
     SessionDayRepository sessionDayRepo;
+    @Mock
+    PlatformTransactionManager transactionManager;
 
-    @InjectMocks
     TrainingSessionService service;
 
+    @BeforeEach
+    void setUp() {
+        service = new TrainingSessionService(repo, planRepo, trainingExecutionRepo, sessionDayRepo, transactionManager,
+                2, 4);
+    }
+
     @Test
     void shouldCreateSessionWithValidDaysDistinctSortedAndTrimmedName() {
         TrainingPlan plan = new TrainingPlan();
@@ -254,8 +264,7 @@ class TrainingSessionServiceTest {
         assertThrows(DataIntegrityViolationException.class, () -> service.update(1L, null, null, List.of(1)));
     }
 
-    @Test
-    void shouldDeleteSessionAndDetachExecutionsAndBackfillSnapshotsThenDelete() {
+    private TrainingSession sessionWithExecutions(long executions) {
         TrainingPlan plan = new TrainingPlan();
         plan.setName("P");
 
@@ -263,35 +272,31 @@ class TrainingSessionServiceTest {
         s.setName("S");
         s.setPlan(plan);
 
-        TrainingExecution te1 = mock(TrainingExecution.class);
-        TrainingExecution te2 = mock(TrainingExecution.class);
-
         when(repo.findById(1L)).thenReturn(Optional.of(s));
-        when(trainingExecutionRepo.findBySessionId(1L)).thenReturn(List.of(te1, te2));
+        when(trainingExecutionRepo.countBySessionId(1L)).thenReturn(executions);
+        return s;
+    }
 
-        service.delete(1L);
+    @Test
+    void shouldDetachExecutionsInChunksWithSnapshotsThenDelete() {
+        TrainingSession s = sessionWithExecutions(3);
+        when(trainingExecutionRepo.findIdsBySessionId(1L, Limit.of(2))).thenReturn(List.of(10L, 11L), List.of(12L));
 
-        verify(te1).setSession(null);
-        verify(te2).setSession(null);
-        verify(trainingExecutionRepo).saveAll(anyList());
+        assertEquals(TrainingSessionService.Deletion.DELETED, service.delete(1L));
+
+        verify(trainingExecutionRepo).detachFromSession(List.of(10L, 11L), 1L, "S", "P");
+        verify(trainingExecutionRepo).detachFromSession(List.of(12L), 1L, "S", "P");
         verify(repo).delete(s);
     }
 
     @Test
     void shouldDeleteSessionWhenNoExecutions() {
-        TrainingPlan plan = new TrainingPlan();
-        plan.setName("P");
-
-        TrainingSession s = new TrainingSession();
-        s.setName("S");
-        s.setPlan(plan);
-
-        when(repo.findById(1L)).thenReturn(Optional.of(s));
-        when(trainingExecutionRepo.findBySessionId(1L)).thenReturn(List.of());
+        TrainingSession s = sessionWithExecutions(0);
+        when(trainingExecutionRepo.findIdsBySessionId(1L, Limit.of(2))).thenReturn(List.of());
 
-        service.delete(1L);
+        assertEquals(TrainingSessionService.Deletion.DELETED, service.delete(1L));
 
-        verify(trainingExecutionRepo, never()).saveAll(anyList());
+        verify(trainingExecutionRepo, never()).detachFromSession(anyCollection(), anyLong(), any(), any());
         verify(repo).delete(s);
     }
 
@@ -303,29 +308,14 @@ class TrainingSessionServiceTest {
     }
 
     @Test
-    void shouldBackfillSnapshotsOnlyWhenNullOrBlank() {
-        TrainingPlan plan = new TrainingPlan();
-        plan.setName("P");
+    void shouldDeleteSessionWithLongHistoryInBackground() {
+        TrainingSession s = sessionWithExecutions(5);
+        when(trainingExecutionRepo.findIdsBySessionId(1L, Limit.of(2))).thenReturn(List.of(10L, 11L),
+                List.of(12L, 13L), List.of(14L));
 
-        TrainingSession s = new TrainingSession();
-        s.setName("S");
-        s.setPlan(plan);
-
-        TrainingExecution te1 = mock(TrainingExecution.class);
-        when(te1.getSessionIdSnapshot()).thenReturn(null);
-        when(te1.getSessionNameSnapshot()).thenReturn("  ");
-        when(te1.getPlanNameSnapshot()).thenReturn(null);
-
-        when(repo.findById(1L)).thenReturn(Optional.of(s));
-        when(trainingExecutionRepo.findBySessionId(1L)).thenReturn(List.of(te1));
-
-        service.delete(1L);
+        assertEquals(TrainingSessionService.Deletion.SCHEDULED, service.delete(1L));
 
-        verify(te1).setSessionIdSnapshot(1L);
-        verify(te1).setSessionNameSnapshot("S");
-        verify(te1).setPlanNameSnapshot("P");
-        verify(te1).setSession(null);
-        verify(trainingExecutionRepo).saveAll(anyList());
-        verify(repo).delete(s);
+        verify(repo, timeout(1000)).delete(s);
+        verify(trainingExecutionRepo).detachFromSession(List.of(14L), 1L, "S", "P");
     }
 }
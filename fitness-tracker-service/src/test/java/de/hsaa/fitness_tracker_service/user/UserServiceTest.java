@@ -6,11 +6,11 @@ import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,12 +21,19 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import de.hsaa.fitness_tracker_service.security.AuthenticatedUser;
+import de.hsaa.fitness_tracker_service.security.TokenService;
 import jakarta.persistence.EntityNotFoundException;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +41,9 @@ class UserServiceTest {
 
     @Mock UserRepository repo;
     @Mock BCryptPasswordEncoder encoder;
+    @Mock ApplicationEventPublisher events;
+    @Mock AuthenticationManager authenticationManager;
+    @Mock TokenService tokens;
 
     @InjectMocks UserService service;
 
@@ -46,13 +56,6 @@ class UserServiceTest {
         SecurityContextHolder.getContext().setAuthentication(auth);
     }
 
-    private Authentication auth(String name, boolean authenticated) {
-        Authentication a = mock(Authentication.class);
-        when(a.isAuthenticated()).thenReturn(authenticated);
-        when(a.getName()).thenReturn(name);
-        return a;
-    }
-
     @Test
     void registerShouldSaveUserWithNormalizedLowercasedEmailAndHashedPassword() {
         when(repo.existsByUsername("alice@test.de")).thenReturn(false);
@@ -111,67 +114,35 @@ class UserServiceTest {
     }
 
     @Test
-    void getMeShouldReturnUserWhenAuthenticatedAndExists() {
-        setAuth(auth("alice@test.de", true));
-
+    void getMeShouldReturnUserByIdWhenExists() {
         User u = new User();
         u.setUsername("alice@test.de");
 
-        when(repo.findByUsername("alice@test.de")).thenReturn(Optional.of(u));
+        when(repo.findById(5L)).thenReturn(Optional.of(u));
 
-        User me = service.getMe();
+        User me = service.getMe(5L);
 
         assertSame(u, me);
-        verify(repo).findByUsername("alice@test.de");
-    }
-
-    @Test
-    void getMeShouldThrowEntityNotFoundWhenUserMissingInDb() {
-        setAuth(auth("missing@test.de", true));
-        when(repo.findByUsername("missing@test.de")).thenReturn(Optional.empty());
-
-        assertThrows(EntityNotFoundException.class, () -> service.getMe());
-        verify(repo).findByUsername("missing@test.de");
-    }
-
-    @Test
-    void getMeShouldThrowAccessDeniedWhenAuthIsNull() {
-        // no auth set
-        assertThrows(AccessDeniedException.class, () -> service.getMe());
-        verify(repo, never()).findByUsername(anyString());
-    }
-
-    @Test
-    void getMeShouldThrowAccessDeniedWhenNotAuthenticated() {
-        Authentication a = mock(Authentication.class);
-        when(a.isAuthenticated()).thenReturn(false);
-        SecurityContextHolder.getContext().setAuthentication(a);
-
-        assertThrows(AccessDeniedException.class, () -> service.getMe());
+        verify(repo).findById(5L);
         verify(repo, never()).findByUsername(anyString());
     }
 
-
     @Test
-    void getMeShouldThrowAccessDeniedWhenNameBlank() {
-        setAuth(auth("   ", true));
+    void getMeShouldThrowEntityNotFoundWhenUserMissingInDb() {
+        when(repo.findById(5L)).thenReturn(Optional.empty());
 
-        assertThrows(AccessDeniedException.class, () -> service.getMe());
-        verify(repo, never()).findByUsername(anyString());
+        assertThrows(EntityNotFoundException.class, () -> service.getMe(5L));
+        verify(repo).findById(5L);
     }
 
     @Test
-    void getMeShouldThrowAccessDeniedWhenAnonymousUser() {
-        setAuth(auth("anonymousUser", true));
-
-        assertThrows(AccessDeniedException.class, () -> service.getMe());
-        verify(repo, never()).findByUsername(anyString());
+    void getMeShouldThrowAccessDeniedWhenUserIdMissing() {
+        assertThrows(AccessDeniedException.class, () -> service.getMe(null));
+        verify(repo, never()).findById(any());
     }
 
     @Test
     void updateMeShouldPatchOnlyNonNullFieldsAndTrimStrings() {
-        setAuth(auth("alice@test.de", true));
-
         User u = new User();
         u.setUsername("alice@test.de");
         u.setFirstName("Old");
@@ -179,24 +150,24 @@ class UserServiceTest {
         u.setAge(10);
         u.setGender("x");
 
-        when(repo.findByUsername("alice@test.de")).thenReturn(Optional.of(u));
+        when(repo.findById(5L)).thenReturn(Optional.of(u));
 
         UserController.UpdateMeRequest patch =
                 new UserController.UpdateMeRequest("  NewFirst  ", null, 22, "  weiblich  ");
 
-        User updated = service.updateMe(patch);
+        User updated = service.updateMe(5L, patch);
 
         assertSame(u, updated);
         assertEquals("NewFirst", u.getFirstName()); // trimmed
         assertEquals("Name", u.getLastName());      // unchanged
         assertEquals(22, u.getAge());
         assertEquals("weiblich", u.getGender());    // trimmed
+
+        verify(events).publishEvent(new UserChangedEvent(null, "alice@test.de"));
     }
 
     @Test
     void updateMeShouldNotChangeAnythingWhenAllPatchFieldsNull() {
-        setAuth(auth("alice@test.de", true));
-
         User u = new User();
         u.setUsername("alice@test.de");
         u.setFirstName("A");
@@ -204,12 +175,12 @@ class UserServiceTest {
         u.setAge(20);
         u.setGender("g");
 
-        when(repo.findByUsername("alice@test.de")).thenReturn(Optional.of(u));
+        when(repo.findById(5L)).thenReturn(Optional.of(u));
 
         UserController.UpdateMeRequest patch =
                 new UserController.UpdateMeRequest(null, null, null, null);
 
-        User updated = service.updateMe(patch);
+        User updated = service.updateMe(5L, patch);
 
         assertSame(u, updated);
         assertEquals("A", u.getFirstName());
@@ -228,4 +199,88 @@ class UserServiceTest {
         assertSame(list, result);
         verify(repo).findAll();
     }
+
+    @Test
+    void loginShouldAuthenticateAndIssueTokensWithUserIdAndRole() {
+        Authentication authenticated = UsernamePasswordAuthenticationToken.authenticated("gruppe8@gmail.com", null,
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+        when(authenticationManager.authenticate(any())).thenReturn(authenticated);
+
+        User u = new User();
+        u.setId(1L);
+        u.setUsername("gruppe8@gmail.com");
+        when(repo.findByUsername("gruppe8@gmail.com")).thenReturn(Optional.of(u));
+
+        TokenService.IssuedTokens issued = new TokenService.IssuedTokens("A", "R", 900);
+        when(tokens.issue(1L, "gruppe8@gmail.com", "ADMIN")).thenReturn(issued);
+
+        TokenService.IssuedTokens result =
+                service.login(new UserController.LoginRequest("  Gruppe8@gmail.com ", "pw"));
+
+        assertSame(issued, result);
+        verify(repo).findByUsername("gruppe8@gmail.com");
+        ArgumentCaptor<Authentication> captor = ArgumentCaptor.forClass(Authentication.class);
+        verify(authenticationManager).authenticate(captor.capture());
+        assertEquals("gruppe8@gmail.com", captor.getValue().getName());
+        assertEquals("pw", captor.getValue().getCredentials());
+    }
+
+    @Test
+    void loginShouldTakeUserIdFromAuthenticatedPrincipalWithoutLookup() {
+        var authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        AuthenticatedUser principal = new AuthenticatedUser(2L, "alice@test.de", "", authorities);
+        when(authenticationManager.authenticate(any()))
+                .thenReturn(UsernamePasswordAuthenticationToken.authenticated(principal, null, authorities));
+
+        TokenService.IssuedTokens issued = new TokenService.IssuedTokens("A", "R", 900);
+        when(tokens.issue(2L, "alice@test.de", "USER")).thenReturn(issued);
+
+        assertSame(issued, service.login(new UserController.LoginRequest("alice@test.de", "pw")));
+        verify(repo, never()).findByUsername(anyString());
+    }
+
+    @Test
+    void loginShouldPropagateBadCredentialsWithoutIssuingTokens() {
+        when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("bad"));
+
+        assertThrows(BadCredentialsException.class,
+                () -> service.login(new UserController.LoginRequest("alice@test.de", "wrong")));
+        verify(tokens, never()).issue(any(), anyString(), anyString());
+    }
+
+    @Test
+    void refreshShouldDelegateToTokenService() {
+        TokenService.IssuedTokens issued = new TokenService.IssuedTokens("A2", "R2", 900);
+        when(tokens.refresh("R")).thenReturn(issued);
+
+        assertSame(issued, service.refresh("R"));
+    }
+
+    @Test
+    void logoutShouldRevokeCurrentAccessTokenAndGivenRefreshToken() {
+        TokenService.TokenClaims access = new TokenService.TokenClaims(TokenService.TokenType.ACCESS, 1L, 2L,
+                "alice@test.de", "USER", Instant.now().plusSeconds(60));
+        TokenService.TokenClaims refresh = new TokenService.TokenClaims(TokenService.TokenType.REFRESH, 3L, 2L,
+                "alice@test.de", "USER", Instant.now().plusSeconds(600));
+
+        UsernamePasswordAuthenticationToken auth =
+                UsernamePasswordAuthenticationToken.authenticated("alice@test.de", null, List.of());
+        auth.setDetails(access);
+        setAuth(auth);
+        when(tokens.verify("R", TokenService.TokenType.REFRESH)).thenReturn(refresh);
+
+        service.logout("R");
+
+        verify(tokens).revoke(access);
+        verify(tokens).revoke(refresh);
+    }
+
+    @Test
+    void logoutShouldIgnoreBlankRefreshTokenAndNonTokenAuthentication() {
+        setAuth(UsernamePasswordAuthenticationToken.authenticated("alice@test.de", null, List.of()));
+
+        service.logout("  ");
+
+        verify(tokens, never()).revoke(any());
+    }
 }